@@ -19,6 +19,8 @@ import java.io.*;
 import java.net.*;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
@@ -26,9 +28,11 @@ import java.time.LocalDateTime;
 @SuppressWarnings("serial")
 public class AdminClient extends JFrame {
 
-    // Host and port for the server connection.
-    private String hostname;
-    private int port;
+    // Rows requested per page of the show table.
+    private static final int PAGE_SIZE = 50;
+
+    // Shared, long-lived connection to the server.
+    private final ServerConnection server;
 
     // GUI components for the admin login screen.
     private JTextField adminUsernameField;
@@ -52,6 +56,7 @@ public class AdminClient extends JFrame {
     private static final int MAX_SEATS_PER_ROOM     = 40;
     private static final int MIN_MOVIE_TITLE_LENGTH = 2;
     private static final int MIN_MOVIE_INFO_LENGTH  = 10;
+    private static final int METRICS_REFRESH_MILLIS = 2000;
 
 
     /**
@@ -66,8 +71,7 @@ public class AdminClient extends JFrame {
      * @param port The server port number for connection.
      */
     public AdminClient(String hostname, int port) {
-        this.hostname = hostname;
-        this.port = port;
+        this.server = new ServerConnection(hostname, port);
 
         setTitle("Movie Ticket Reservation System - Administrator");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -181,6 +185,14 @@ public class AdminClient extends JFrame {
         JPanel listShowsPanel = buildListShowsPanel();
         tabbedPane.addTab("List Shows", listShowsPanel);
 
+        // Tab for the reservation report
+        JPanel reservationReportPanel = buildReservationReportPanel();
+        tabbedPane.addTab("Reservation Report", reservationReportPanel);
+
+        // Tab for live server metrics
+        JPanel metricsPanel = buildMetricsPanel();
+        tabbedPane.addTab("Metrics", metricsPanel);
+
         // Tab for adding movies.
         JPanel addMoviePanel = buildAddMoviePanel();
         tabbedPane.addTab("Add Movie", addMoviePanel);
@@ -348,8 +360,8 @@ public class AdminClient extends JFrame {
      * Builds the show listing panel for administrators.
      * - Uses a table to display show details including ID, movie, date & time, room, seats, and price.
      * - Provides a refresh button to dynamically update the show list.
-     * - Fetches show data from the server and populates the table upon refresh.
-     * - Automatically refreshes the list when the panel is loaded.
+     * - Loads the first page of shows when the panel is loaded, and further pages as the user scrolls down.
+     * - On refresh, fetches only the changes since the last refresh and applies them to the table in place.
      *
      * @return A JPanel containing a show table and refresh functionality.
      */
@@ -365,32 +377,44 @@ public class AdminClient extends JFrame {
         tableModel.addColumn("Room");
         tableModel.addColumn("Seats");
         tableModel.addColumn("Price");
+        ShowTableSync showSync = new ShowTableSync(tableModel, show -> new Object[] {
+                show.getShowID(), show.getMovieTitle(),
+                show.getShowDate().toString() + " " + show.getShowTime().toString().substring(0, 5),
+                show.getRoomNumber(), show.getAvailableSeats(), show.getPrice() });
 
         // Panel for the refresh button.
         JPanel buttonPanel = new JPanel();
         JButton refreshButton = new JButton("Refresh Shows");
         buttonPanel.add(refreshButton);
 
-        panel.add(new JScrollPane(showsTable), BorderLayout.CENTER);
+        JScrollPane scrollPane = new JScrollPane(showsTable);
+        panel.add(scrollPane, BorderLayout.CENTER);
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
-        // Action to refresh the shows list.
+        // Load further pages as the user scrolls towards the end of the table.
+        ScrollToLoad pageLoader = ScrollToLoad.install(scrollPane, showSync::hasMorePages, () -> {
+            Page<ShowItem> page = fetchShowsPageFromServer(showSync.getNextCursor());
+            if (page == null) {
+                return false;
+            }
+            showSync.applyNextPage(page);
+            return true;
+        });
+
+        // Action to refresh the shows list: the first page, then only the changes.
         refreshButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                tableModel.setRowCount(0);
-                List<ShowItem> shows = fetchShowsFromServer();
-                if (shows != null) {
-                    for (ShowItem show : shows) {
-                        int id = show.getShowID();
-                        String movie = show.getMovieTitle();
-                        String dateTime = show.getShowDate().toString() + " " +
-                                show.getShowTime().toString().substring(0, 5);
-                        int room = show.getRoomNumber();
-                        int seats = show.getAvailableSeats();
-                        double price = show.getPrice();
-
-                        tableModel.addRow(new Object[] { id, movie, dateTime, room, seats, price });
+                if (showSync.getVersion() == ShowDelta.NO_VERSION) {
+                    Page<ShowItem> page = fetchShowsPageFromServer(null);
+                    if (page != null) {
+                        showSync.applyFirstPage(page);
+                        pageLoader.checkSoon();
                     }
+                    return;
+                }
+                ShowDelta changes = fetchShowChangesFromServer(showSync.getVersion());
+                if (changes != null) {
+                    showSync.apply(changes);
                 }
             }
         });
@@ -402,6 +426,225 @@ public class AdminClient extends JFrame {
     }
 
 
+    /**
+     * Builds the reservation report panel for administrators.
+     * - Lists every reservation with its customer, show, tickets, time, and amount paid.
+     * - The report is streamed: rows are added to the table as their chunks arrive, while the
+     *   rest are still being read on the server.
+     * - Runs on a background thread when the button is pressed (not on panel load, since the
+     *   report covers the full reservation and payment tables).
+     *
+     * @return A JPanel containing the report table and a run button.
+     */
+    private JPanel buildReservationReportPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        // Table model and JTable for the report rows.
+        DefaultTableModel tableModel = new DefaultTableModel();
+        JTable reportTable = new JTable(tableModel);
+        tableModel.addColumn("Reservation ID");
+        tableModel.addColumn("Customer");
+        tableModel.addColumn("Show Details");
+        tableModel.addColumn("Tickets");
+        tableModel.addColumn("Reservation Time");
+        tableModel.addColumn("Amount Paid");
+
+        // Panel for the run button.
+        JPanel buttonPanel = new JPanel();
+        JButton runButton = new JButton("Run Report");
+        buttonPanel.add(runButton);
+
+        panel.add(new JScrollPane(reportTable), BorderLayout.CENTER);
+        panel.add(buttonPanel, BorderLayout.SOUTH);
+
+        // Action to stream the report into the table.
+        runButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                tableModel.setRowCount(0);
+                runButton.setEnabled(false);
+                updateStatus("Loading reservation report...");
+                Thread reader = new Thread(() -> streamReservationReport(tableModel, runButton), "reservation-report");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        });
+
+        return panel;
+    }
+
+
+    /**
+     * Streams the reservation report from the server into a table (runs off the event thread).
+     * - Each chunk's rows are added on the event thread as the chunk arrives.
+     * - Reports the outcome in the status bar and re-enables the run button at the end.
+     *
+     * @param tableModel The report table's model.
+     * @param runButton The button that started the report.
+     */
+    private void streamReservationReport(DefaultTableModel tableModel, JButton runButton) {
+        String outcome;
+        try {
+            Object result = server.stream("GET_RESERVATION_REPORT", null, chunk -> {
+                List<?> rows = chunk.getRows();
+                SwingUtilities.invokeLater(() -> {
+                    for (Object item : rows) {
+                        ReservationReportItem row = (ReservationReportItem) item;
+                        tableModel.addRow(new Object[]{ row.getReservationID(), row.getUsername(), row.getShowDetails(),
+                                row.getNumTickets(), row.getReservationTime(), row.getAmountPaid() });
+                    }
+                });
+            });
+            if (result instanceof ResultChunk<?> end) {
+                outcome = end.getError();
+            } else {
+                outcome = String.valueOf(result);
+            }
+        } catch (ConnectException ex) {
+            outcome = "Server is unreachable. Please ensure it is online.";
+        } catch (Exception ex) {
+            outcome = "Error loading report: " + ex.getMessage();
+        }
+        String message = outcome;
+        // Queued after the last rows, so the row count is final.
+        SwingUtilities.invokeLater(() -> {
+            updateStatus(message != null ? message : "Report loaded: " + tableModel.getRowCount() + " reservations.");
+            runButton.setEnabled(true);
+        });
+    }
+
+
+    /**
+     * Builds the live metrics panel for administrators.
+     * - Lists every request type with its call rate, errors, latency percentiles, and the share of
+     *   its time spent in the database; below, the server-wide counters.
+     * - Refreshes itself every METRICS_REFRESH_MILLIS while the tab is visible, fetching STATS on a
+     *   background thread so a slow server never freezes the window.
+     * - Call rates are computed from the change since the previous refresh.
+     *
+     * @return A JPanel containing the metrics tables.
+     */
+    private JPanel buildMetricsPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+
+        // Table model and JTable for the per-request metrics (times in milliseconds).
+        DefaultTableModel operationsModel = new DefaultTableModel();
+        JTable operationsTable = new JTable(operationsModel);
+        operationsModel.addColumn("Request");
+        operationsModel.addColumn("Calls");
+        operationsModel.addColumn("Calls/s");
+        operationsModel.addColumn("Errors");
+        operationsModel.addColumn("p50");
+        operationsModel.addColumn("p90");
+        operationsModel.addColumn("p99");
+        operationsModel.addColumn("p99.9");
+        operationsModel.addColumn("Max");
+        operationsModel.addColumn("Mean");
+        operationsModel.addColumn("DB %");
+
+        // Table model and JTable for the server-wide counters.
+        DefaultTableModel countersModel = new DefaultTableModel();
+        JTable countersTable = new JTable(countersModel);
+        countersModel.addColumn("Counter");
+        countersModel.addColumn("Value");
+
+        JLabel uptimeLabel = new JLabel(" ");
+        JScrollPane countersPane = new JScrollPane(countersTable);
+        countersPane.setPreferredSize(new Dimension(0, 120));
+        panel.add(uptimeLabel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(operationsTable), BorderLayout.CENTER);
+        panel.add(countersPane, BorderLayout.SOUTH);
+
+        // Calls per request type and uptime at the previous refresh, for the call rates.
+        Map<String, Long> previousCalls = new HashMap<>();
+        long[] previousUptime = { 0 };
+        boolean[] refreshing = { false };
+
+        Timer refreshTimer = new Timer(METRICS_REFRESH_MILLIS, e -> {
+            if (!panel.isShowing() || refreshing[0]) {
+                return;
+            }
+            refreshing[0] = true;
+            Thread fetcher = new Thread(() -> {
+                ServerStats stats = fetchStatsFromServer();
+                SwingUtilities.invokeLater(() -> {
+                    refreshing[0] = false;
+                    if (stats == null) {
+                        return;
+                    }
+                    double seconds = (stats.getUptimeMillis() - previousUptime[0]) / 1000.0;
+                    operationsModel.setRowCount(0);
+                    for (OperationStats operation : stats.getOperations()) {
+                        Long before = previousCalls.put(operation.getRequestType(), operation.getCalls());
+                        String rate = before == null || seconds <= 0 ? ""
+                                : String.format("%.1f", (operation.getCalls() - before) / seconds);
+                        long calls = operation.getCalls();
+                        operationsModel.addRow(new Object[]{ operation.getRequestType(), calls, rate,
+                                operation.getErrors(), millis(operation.getP50Micros()), millis(operation.getP90Micros()),
+                                millis(operation.getP99Micros()), millis(operation.getP999Micros()),
+                                millis(operation.getMaxMicros()),
+                                calls == 0 ? "" : millis(operation.getTotalMicros() / calls),
+                                operation.getTotalMicros() == 0 ? ""
+                                        : String.format("%.0f%%", 100.0 * operation.getDbMicros() / operation.getTotalMicros()) });
+                    }
+                    previousUptime[0] = stats.getUptimeMillis();
+                    countersModel.setRowCount(0);
+                    Map<String, Long> counters = stats.getCounters();
+                    for (Map.Entry<String, Long> counter : counters.entrySet()) {
+                        countersModel.addRow(new Object[]{ counter.getKey(), counter.getValue() });
+                        // Follow each cache's misses with its hit ratio.
+                        String name = counter.getKey();
+                        if (name.endsWith(".misses")) {
+                            Long hits = counters.get(name.substring(0, name.length() - ".misses".length()) + ".hits");
+                            long lookups = hits == null ? 0 : hits + counter.getValue();
+                            if (lookups > 0) {
+                                countersModel.addRow(new Object[]{ name.replace(".misses", ".hitRatio"),
+                                        String.format("%.1f%%", 100.0 * hits / lookups) });
+                            }
+                        }
+                    }
+                    uptimeLabel.setText("Server up for " + stats.getUptimeMillis() / 1000 + " s; times in ms.");
+                });
+            }, "metrics-refresh");
+            fetcher.setDaemon(true);
+            fetcher.start();
+        });
+        refreshTimer.setInitialDelay(0);
+        refreshTimer.start();
+
+        return panel;
+    }
+
+
+    /**
+     * Fetches the server's metrics (runs off the event thread).
+     * - Reports an unreachable server or an error reply in the status bar.
+     *
+     * @return The metrics, or null on failure.
+     */
+    private ServerStats fetchStatsFromServer() {
+        String problem;
+        try {
+            Object result = server.request("STATS", null);
+            if (result instanceof ServerStats) {
+                return (ServerStats) result;
+            }
+            problem = String.valueOf(result);
+        } catch (ConnectException ex) {
+            problem = "Server is unreachable. Please ensure it is online.";
+        } catch (Exception ex) {
+            problem = "Error fetching metrics: " + ex.getMessage();
+        }
+        String message = problem;
+        SwingUtilities.invokeLater(() -> updateStatus(message));
+        return null;
+    }
+
+
+    private static String millis(long micros) {
+        return String.format("%.2f", micros / 1000.0);
+    }
+
+
     /**
      * Builds the Add Show panel for administrators.
      * - Provides input fields for selecting a movie, date, time, room number, and price.
@@ -675,52 +918,28 @@ public class AdminClient extends JFrame {
 
     /**
      * Sends a request to the server and retrieves a response.
-     * - Establishes a socket connection to the specified hostname and port.
+     * - Uses the shared server connection, which reconnects if it was dropped.
      * - Sends a request type and payload to the server.
      * - Reads and returns the server's response.
-     * - Handles connection errors and ensures proper cleanup of resources.
+     * - Handles connection errors gracefully.
      *
      * @param requestType The command string (e.g., "LOGIN_USER", "ADD_MOVIE", "ADD_SHOW").
      * @param payload The object to be sent (e.g., LoginRequest, Movie, Show).
      * @return The response message received from the server.
      */
     private String sendMessageToServer(String requestType, Object payload) {
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
         String response = "";
-
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send request type and payload to server.
-            outputStream.writeObject(requestType);
-            outputStream.writeObject(payload);
-            outputStream.flush();
-
-            // Receive response from server.
-            response = (String) inputStream.readObject();
+            response = (String) server.request(requestType, payload);
         } catch (ConnectException ex) {
             // Handle server connection failure gracefully.
             System.err.println("Error: Unable to connect to the server. Ensure the server is running and try again.");
             JOptionPane.showMessageDialog(null, "Server is unreachable. Please check that it is online and restart the client.", 
                     "Connection Error", JOptionPane.ERROR_MESSAGE);
             response = "Error: Server is unavailable. Try again later.";
-        } catch (IOException | ClassNotFoundException ex) {
+        } catch (IOException | ClassCastException ex) {
             System.err.println("Error communicating with the server: " + ex.getMessage());
             response = "Error: Communication failure with the server.";
-        } finally {
-            // Ensure all resources are properly closed.
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                System.err.println("Error closing resources: " + ex.getMessage());
-            }
         }
         return response;
     }
@@ -728,44 +947,23 @@ public class AdminClient extends JFrame {
 
     /**
      * Fetches a list of movies from the server.
-     * - Establishes a socket connection for communication.
-     * - Sends a request to retrieve movie data.
+     * - Sends a request to retrieve movie data over the shared connection.
      * - Parses the received list of MovieItem objects.
-     * - Handles exceptions and ensures proper resource cleanup.
+     * - Handles exceptions by reporting them in the status bar.
      *
      * @return A list of MovieItem objects representing available movies.
      */
     @SuppressWarnings("unchecked")
     private List<MovieItem> fetchMoviesFromServer() {
         List<MovieItem> movies = new ArrayList<>();
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send the GET_MOVIES command
-            outputStream.writeObject("GET_MOVIES");
-            outputStream.flush();
-
             // Read the list of MovieItem objects from the server.
-            Object result = inputStream.readObject();
+            Object result = server.request("GET_MOVIES", null);
             if (result instanceof List) {
                 movies = (List<MovieItem>) result;
             }
         } catch (Exception ex) {
             updateStatus("Error fetching movies: " + ex.getMessage());
-        } finally {
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
         }
         return movies;
     }
@@ -773,55 +971,77 @@ public class AdminClient extends JFrame {
 
     /**
      * Fetches a list of available shows from the server.
-     * - Sends a "PING" command to verify server connectivity before proceeding.
-     * - Establishes a socket connection to request show data.
+     * - Sends a request to retrieve show data over the shared connection.
      * - Parses and returns a list of ShowItem objects.
-     * - Handles exceptions and ensures proper resource cleanup.
+     * - Reports an unreachable server in the status bar.
      *
      * @return A list of ShowItem objects representing available shows.
      */
     @SuppressWarnings("unchecked")
     private List<ShowItem> fetchShowsFromServer() {
         List<ShowItem> shows = new ArrayList<>();
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
-
-        // Early exit
-        String serverTest = sendMessageToServer("PING", null);
-        if (serverTest.startsWith("Error")) {
+        try {
+            // Read the list of ShowItem objects from the server.
+            Object result = server.request("GET_SHOWS", null);
+            if (result instanceof List) {
+                shows = (List<ShowItem>) result;
+            }
+        } catch (ConnectException ex) {
             updateStatus("Server is unreachable. Please ensure it is online.");
-            return shows;
+        } catch (Exception ex) {
+            updateStatus("Error fetching shows: " + ex.getMessage());
         }
+        return shows;
+    }
 
-        // Connection is successful, move on
+
+    /**
+     * Fetches one page of the show list from the server.
+     * - Reports an unreachable server or an error reply in the status bar.
+     *
+     * @param cursor The cursor from the previous page, or null for the first page.
+     * @return The page of shows, or null on failure.
+     */
+    @SuppressWarnings("unchecked")
+    private Page<ShowItem> fetchShowsPageFromServer(String cursor) {
+        Page<ShowItem> page = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
+            Object result = server.request("GET_SHOWS_PAGE", new PageRequest(null, cursor, PAGE_SIZE));
+            if (result instanceof Page) {
+                page = (Page<ShowItem>) result;
+            } else if (result instanceof String) {
+                updateStatus((String) result);
+            }
+        } catch (ConnectException ex) {
+            updateStatus("Server is unreachable. Please ensure it is online.");
+        } catch (Exception ex) {
+            updateStatus("Error fetching shows: " + ex.getMessage());
+        }
+        return page;
+    }
 
-            // Send the GET_SHOWS command.
-            outputStream.writeObject("GET_SHOWS");
-            outputStream.flush();
 
-            // Read the list of ShowItem objects from the server.
-            Object result = inputStream.readObject();
-            if (result instanceof List) {
-                shows = (List<ShowItem>) result;
+    /**
+     * Fetches the changes to the show list from the server.
+     * - Sends the version of the list the client already has over the shared connection.
+     * - Reports an unreachable server in the status bar.
+     *
+     * @param version The version from the last applied ShowDelta, or ShowDelta.NO_VERSION.
+     * @return The changes since that version (or the full list), or null on failure.
+     */
+    private ShowDelta fetchShowChangesFromServer(long version) {
+        ShowDelta changes = null;
+        try {
+            Object result = server.request("GET_SHOWS_SINCE", version);
+            if (result instanceof ShowDelta) {
+                changes = (ShowDelta) result;
             }
+        } catch (ConnectException ex) {
+            updateStatus("Server is unreachable. Please ensure it is online.");
         } catch (Exception ex) {
             updateStatus("Error fetching shows: " + ex.getMessage());
-        } finally {
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
         }
-        return shows;
+        return changes;
     }
 
 
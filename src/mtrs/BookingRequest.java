@@ -19,12 +19,26 @@ public class BookingRequest implements Serializable {
     private int numTickets;
     private String username;
     private String creditCardNumber;  // New field for payment info
+    private String idempotencyKey;    // Client-generated; identifies retries of the same booking
+    private String sessionToken;      // From START_SESSION; when set, it identifies the user instead of username
 
     public BookingRequest(int showID, int numTickets, String username, String creditCardNumber) {
+        this(showID, numTickets, username, creditCardNumber, null);
+    }
+
+    public BookingRequest(int showID, int numTickets, String username, String creditCardNumber,
+            String idempotencyKey) {
+        this(showID, numTickets, username, creditCardNumber, idempotencyKey, null);
+    }
+
+    public BookingRequest(int showID, int numTickets, String username, String creditCardNumber,
+            String idempotencyKey, String sessionToken) {
         this.showID = showID;
         this.numTickets = numTickets;
         this.username = username;
         this.creditCardNumber = creditCardNumber;
+        this.idempotencyKey = idempotencyKey;
+        this.sessionToken = sessionToken;
     }
 
     public int getShowID() {
@@ -42,4 +56,12 @@ public class BookingRequest implements Serializable {
     public String getCreditCardNumber() {
         return creditCardNumber;
     }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
 }
\ No newline at end of file
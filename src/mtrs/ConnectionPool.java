@@ -0,0 +1,461 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ConnectionPool.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A small fixed-bound JDBC connection pool.
+ * - Keeps between minSize and maxSize physical connections open to the database.
+ * - Hands out one connection per request; closing the borrowed connection returns it to the pool.
+ * - Each borrow gets its own handle, so a handle kept after close() can never reach the next borrower:
+ *   closing it again does nothing, and any other call fails. Statements and result sets are handed out
+ *   through the handle too, so their getConnection() and getStatement() never reach the driver's objects.
+ * - Waits at most acquireTimeoutMillis for a free connection before failing with an SQLException.
+ * - Validates connections that have been idle for a while before handing them out.
+ * - Logs connections that are held longer than leakThresholdMillis; with leak tracing on, also the stack
+ *   that borrowed them (capturing it costs a stack walk per borrow, so it is off by default).
+ * - Takes back connections held longer than reclaimAfterMillis: the borrower's handle is invalidated and
+ *   the physical connection aborted, so a leak costs the pool a connection only for that long.
+ * - Sums, per thread, how long the thread has held connections, so callers can tell database time
+ *   from the rest of a request's time.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS  = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 5_000;
+
+    private final String url;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final long reclaimAfterMillis;
+    private final boolean traceLeaks;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+    // Nanoseconds each thread has held connections, summed over the connections it has returned
+    private final ThreadLocal<long[]> heldNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+
+    /**
+     * Creates the pool and opens the minimum number of connections up front.
+     *
+     * @param url The JDBC URL, including credentials and driver options.
+     * @param minSize The number of connections kept open even when idle.
+     * @param maxSize The maximum number of connections open at the same time.
+     * @param acquireTimeoutMillis How long a caller may wait for a free connection.
+     * @param leakThresholdMillis How long a connection may be held before it is reported as leaked.
+     * @param reclaimAfterMillis How long a connection may be held before the pool takes it back (0 for never).
+     * @param traceLeaks Whether to record the borrowing stack, so leak reports can show it.
+     * @throws SQLException If the initial connections cannot be opened.
+     */
+    public ConnectionPool(String url, int minSize, int maxSize, long acquireTimeoutMillis, long leakThresholdMillis,
+            long reclaimAfterMillis, boolean traceLeaks) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.reclaimAfterMillis = reclaimAfterMillis;
+        this.traceLeaks = traceLeaks;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.add(new PooledConnection(DriverManager.getConnection(url)));
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+                HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Borrows a connection from the pool.
+     * - Waits up to the acquire timeout if all connections are in use.
+     * - Reuses the most recently returned idle connection, validating it if it sat idle too long.
+     * - Opens a new physical connection if no idle one is available.
+     * The caller must close the returned connection (ideally with try-with-resources) to give it back.
+     *
+     * @return A connection reserved for the caller until it is closed.
+     * @throws SQLException If no connection becomes available in time or a new one cannot be opened.
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMillis
+                        + " ms waiting for a database connection (" + maxSize + " in use).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleConnection();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(url));
+            }
+            Connection lease = pooled.borrow();
+            inUse.add(pooled);
+            return lease;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Takes the most recently used idle connection, discarding any that fail validation.
+     *
+     * @return A usable idle connection, or null if none is available.
+     */
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            long idleMillis = System.currentTimeMillis() - pooled.lastReturnedAt;
+            if (idleMillis < VALIDATE_AFTER_IDLE_MILLIS || pooled.isValid()) {
+                return pooled;
+            }
+            System.err.println("Discarding invalid pooled connection.");
+            pooled.closePhysical();
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns a borrowed connection to the pool.
+     * - Closes any statements the borrower left open.
+     * - Rolls back an unfinished transaction and restores auto-commit so the next borrower starts clean.
+     * - Discards the physical connection if it can no longer be reset.
+     *
+     * @param pooled The connection being returned.
+     */
+    private void giveBack(PooledConnection pooled) {
+        inUse.remove(pooled);
+        try {
+            pooled.closeStatements();
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastReturnedAt = System.currentTimeMillis();
+            if (closed) {
+                pooled.closePhysical();
+            } else {
+                idle.addFirst(pooled);
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding pooled connection that could not be reset: " + e.getMessage());
+            pooled.closePhysical();
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    /**
+     * Takes back a connection that was held too long.
+     * - Invalidates the borrower's handle first, so a late close() does not return the connection twice.
+     * - Aborts the physical connection rather than resetting it: the borrower may still be using it.
+     *
+     * @param pooled The connection being taken back.
+     */
+    private void reclaim(PooledConnection pooled) {
+        Lease lease = pooled.lease;
+        if (lease == null || !lease.returned.compareAndSet(false, true)) {
+            return; // returned meanwhile
+        }
+        inUse.remove(pooled);
+        try {
+            pooled.physical.abort(Runnable::run);
+        } catch (SQLException | RuntimeException e) {
+            pooled.closePhysical();
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    /**
+     * Periodic maintenance run by the housekeeper thread.
+     * - Reports connections held longer than the leak threshold (once per borrow).
+     * - Takes back connections held longer than the reclaim limit.
+     * - Tops the idle set back up to the minimum size.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : inUse) {
+            long heldMillis = now - pooled.borrowedAt;
+            if (reclaimAfterMillis > 0 && heldMillis > reclaimAfterMillis) {
+                System.err.println("Reclaiming leaked connection after " + heldMillis + " ms");
+                reclaim(pooled);
+                continue;
+            }
+            if (!pooled.leakReported && heldMillis > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.err.println("Possible connection leak: connection held for " + (now - pooled.borrowedAt) + " ms");
+                Throwable borrowedBy = pooled.borrowedBy;
+                if (borrowedBy != null) {
+                    borrowedBy.printStackTrace();
+                }
+            }
+        }
+
+        while (!closed && idle.size() + inUse.size() < minSize) {
+            try {
+                idle.addLast(new PooledConnection(DriverManager.getConnection(url)));
+            } catch (SQLException e) {
+                System.err.println("Could not refill connection pool: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Returns how long the calling thread has held connections from this pool, over its whole life.
+     * - Only connections the thread has already returned are counted; take the difference of two
+     *   readings to time one piece of work.
+     *
+     * @return The total time in nanoseconds.
+     */
+    public long getThreadHeldNanos() {
+        return heldNanos.get()[0];
+    }
+
+
+    public int getActiveCount() {
+        return inUse.size();
+    }
+
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+
+    /**
+     * Closes all idle connections and stops housekeeping.
+     * Connections still borrowed are closed as they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            pooled.closePhysical();
+        }
+    }
+
+
+    /**
+     * A physical connection together with its pool bookkeeping.
+     * Borrowers only ever see a Lease proxy, whose close() returns the connection to the pool.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long borrowedAt;
+        private volatile long lastReturnedAt = System.currentTimeMillis();
+        private volatile Throwable borrowedBy;
+        private volatile boolean leakReported;
+        private volatile Lease lease; // the current borrow
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        // Starts a borrow and returns the borrower's handle, valid until its close().
+        Connection borrow() {
+            borrowedAt = System.currentTimeMillis();
+            borrowedBy = traceLeaks ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            lease = new Lease(this);
+            return lease.handle;
+        }
+
+        boolean isValid() {
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closeStatements() {
+            synchronized (openStatements) {
+                for (Statement statement : openStatements) {
+                    try {
+                        statement.close();
+                    } catch (SQLException e) {
+                        // Statement is unusable either way.
+                    }
+                }
+                openStatements.clear();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing pooled connection: " + e.getMessage());
+            }
+        }
+
+    }
+
+
+    /**
+     * One borrow of a pooled connection.
+     * - The first close() returns the connection; later calls to close() do nothing, and any other
+     *   call fails, even after the connection has been lent to someone else.
+     * - Statements and result sets are wrapped, so they fail the same way once the borrow is over.
+     */
+    private class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final long borrowedAtNanos = System.nanoTime();
+        private final AtomicBoolean returned = new AtomicBoolean();
+        private final Connection handle;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.handle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                if (returned.compareAndSet(false, true)) {
+                    heldNanos.get()[0] += System.nanoTime() - borrowedAtNanos;
+                    giveBack(pooled);
+                }
+                return null;
+            }
+            if (name.equals("isClosed")) {
+                return returned.get() || pooled.physical.isClosed();
+            }
+            checkNotReturned();
+
+            Object result = call(pooled.physical, method, args);
+            // Track statements so they can be closed when the connection is returned.
+            if (result instanceof Statement statement) {
+                synchronized (pooled.openStatements) {
+                    pooled.openStatements.add(statement);
+                }
+                if (Statement.class.isAssignableFrom(method.getReturnType())) {
+                    return wrap(statement, method.getReturnType(), null);
+                }
+            }
+            return result;
+        }
+
+        void checkNotReturned() throws SQLException {
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+        }
+
+        // Hands out a statement or result set as the interface the borrower asked for, bound to this lease.
+        Object wrap(Object target, Class<?> type, Object statement) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                    new LeasedObject(this, target, statement));
+        }
+    }
+
+
+    /**
+     * A statement or result set obtained through a lease.
+     * - getConnection() returns the lease's handle and getStatement() the wrapped statement, never the
+     *   driver's objects.
+     * - Any call but close() and isClosed() fails once the lease has been returned.
+     */
+    private static class LeasedObject implements InvocationHandler {
+        private final Lease lease;
+        private final Object target;
+        private final Object statement; // for result sets: the wrapped statement that produced it, if any
+
+        LeasedObject(Lease lease, Object target, Object statement) {
+            this.lease = lease;
+            this.target = target;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.equals("close") && !name.equals("isClosed")) {
+                lease.checkNotReturned();
+            }
+            if (name.equals("getConnection") && args == null) {
+                return lease.handle;
+            }
+            if (name.equals("getStatement") && args == null) {
+                return statement;
+            }
+            Object result = call(target, method, args);
+            if (result instanceof ResultSet && method.getReturnType() == ResultSet.class) {
+                return lease.wrap(result, ResultSet.class, target instanceof Statement ? proxy : statement);
+            }
+            return result;
+        }
+    }
+
+
+    // Invokes a driver method, rethrowing what the driver threw.
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -19,17 +19,38 @@ import java.awt.event.*;
 import java.io.*;
 import java.net.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @SuppressWarnings("serial")
 public class CustomerClient extends JFrame {
 
-    // Host and port for the server connection.
-    private String hostname;
-    private int port;
+    // Rows requested per page of the show and reservation tables.
+    private static final int PAGE_SIZE = 50;
+
+    // Shared, long-lived connection to the server.
+    private final ServerConnection server;
+
+    // Responses requested ahead of time, keyed by request type (used on the event thread only).
+    private final Map<String, CompletableFuture<Object>> prefetchedResponses = new HashMap<>();
+
+    // Idempotency key of the booking form, reused until the form changes so repeats are not booked twice.
+    private String bookingKey;
+    private String bookingKeyForm;
+
+    // Show views kept current by pushed seat updates (used on the event thread only).
+    private ShowTableSync liveShowTable;
+    private JComboBox<ShowItem> liveShowComboBox;
+
+    // Cursor of the next page of reservations, or null once all are loaded (event thread only).
+    private String reservationsCursor;
 
     // To hold the logged-in customer’s username.
     private String currentUsername;
+    private String sessionToken; // identifies the customer in bookings and reservation pages
     private UserProfile currentUserProfile;
 
     // GUI components for the login screen.
@@ -58,8 +79,7 @@ public class CustomerClient extends JFrame {
      * @param port The server port number for connection.
      */
     public CustomerClient(String hostname, int port) {
-        this.hostname = hostname;
-        this.port = port;
+        this.server = new ServerConnection(hostname, port);
 
         setTitle("Movie Ticket Reservation System - Customer");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -139,14 +159,14 @@ public class CustomerClient extends JFrame {
                 // Create a LoginRequest object (assumed to exist).
                 LoginRequest loginReq = new LoginRequest(username, password, "customer");
 
-                // Send login request to server.
-                String response = sendMessageToServer("LOGIN_USER", loginReq);
+                // Send login request to server; it opens a session for the customer.
+                String response = startSession(loginReq);
                 updateStatus(response);
 
                 // If login is successful, remember the username and switch view.
                 if (response.toLowerCase().contains("success")) {
                     currentUsername = loginReq.getUsername();
-                    currentUserProfile = fetchUserProfileFromServer(currentUsername);
+                    currentUserProfile = fetchUserProfileFromServer();
 
                     // Create dashboard panel since login was successful
                     JPanel dashboardPanel = buildDashboardPanel();
@@ -342,6 +362,7 @@ public class CustomerClient extends JFrame {
      * @return A JPanel containing a tabbed interface for customer interaction.
      */
     private JPanel buildDashboardPanel() {
+        prefetchDashboardData();
         JPanel dashboard = new JPanel(new BorderLayout());
         JTabbedPane tabbedPane = new JTabbedPane();
 
@@ -368,10 +389,129 @@ public class CustomerClient extends JFrame {
         }
 
         dashboard.add(tabbedPane, BorderLayout.CENTER);
+        subscribeToSeatUpdates();
         return dashboard;
     }
 
 
+    /**
+     * Subscribes to seat updates, so the show list and the booking choices stay current without a refresh.
+     * - Updates arrive on the connection's reader thread and are applied on the event thread.
+     * - After a lost connection is replaced, both views are reloaded, since updates may have been missed.
+     */
+    private void subscribeToSeatUpdates() {
+        server.subscribe("SUBSCRIBE_SHOWS", new ServerConnection.PushListener() {
+            public void subscribed(boolean renewed) {
+                if (renewed) {
+                    SwingUtilities.invokeLater(() -> reloadLiveShowViews());
+                }
+            }
+
+            public void pushed(Object message) {
+                if (message instanceof List<?> updates) {
+                    SwingUtilities.invokeLater(() -> applySeatUpdates(updates));
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Reloads the live show views from the server.
+     */
+    private void reloadLiveShowViews() {
+        if (liveShowTable != null) {
+            ShowDelta changes = fetchShowChangesFromServer(liveShowTable.getVersion());
+            if (changes != null) {
+                liveShowTable.apply(changes);
+            }
+        }
+        if (liveShowComboBox != null) {
+            updateShowComboBox(liveShowComboBox);
+        }
+    }
+
+
+    /**
+     * Applies pushed seat counts to the show list and the booking choices.
+     *
+     * @param updates The pushed SeatUpdate objects.
+     */
+    private void applySeatUpdates(List<?> updates) {
+        for (Object item : updates) {
+            if (!(item instanceof SeatUpdate update)) {
+                continue;
+            }
+            if (liveShowTable != null) {
+                liveShowTable.apply(update);
+            }
+            if (liveShowComboBox != null) {
+                updateShowChoice(liveShowComboBox, update);
+            }
+        }
+    }
+
+
+    /**
+     * Replaces a show's entry in the booking choices with one showing its new seat count.
+     * - Keeps the selection on that show if it was selected.
+     *
+     * @param comboBox The booking combo box.
+     * @param update The show's new seat count.
+     */
+    private void updateShowChoice(JComboBox<ShowItem> comboBox, SeatUpdate update) {
+        for (int i = 0; i < comboBox.getItemCount(); i++) {
+            ShowItem show = comboBox.getItemAt(i);
+            if (show.getShowID() == update.getShowID()) {
+                boolean selected = comboBox.getSelectedIndex() == i;
+                comboBox.insertItemAt(ShowTableSync.withAvailableSeats(show, update.getAvailableSeats()), i);
+                comboBox.removeItemAt(i + 1);
+                if (selected) {
+                    comboBox.setSelectedIndex(i);
+                }
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Requests the data shown by the dashboard tabs all at once.
+     * - The requests are pipelined on the shared connection, so the server works on them concurrently.
+     * - Each tab then picks up its response instead of sending its own request and waiting in turn.
+     */
+    private void prefetchDashboardData() {
+        prefetchedResponses.clear();
+        prefetchedResponses.put("GET_MOVIES", server.send("GET_MOVIES", null));
+        prefetchedResponses.put("GET_SHOWS_PAGE", server.send("GET_SHOWS_PAGE", new PageRequest(null, null, PAGE_SIZE)));
+        prefetchedResponses.put("GET_AVAILABLE_SHOWS", server.send("GET_AVAILABLE_SHOWS", null));
+        prefetchedResponses.put("GET_CUSTOMER_RESERVATIONS_PAGE",
+                server.send("GET_CUSTOMER_RESERVATIONS_PAGE", new PageRequest(currentUsername, null, PAGE_SIZE, sessionToken)));
+    }
+
+
+    /**
+     * Sends a read request, using the prefetched response if one is waiting.
+     * - A failed prefetch is sent again, which also reconnects if the connection was lost.
+     *
+     * @param requestType The command string (e.g., "GET_SHOWS").
+     * @param payload The request payload, or null for requests that carry none.
+     * @return The decoded response.
+     * @throws IOException If the server cannot be reached or the exchange fails.
+     */
+    private Object requestFromServer(String requestType, Object payload) throws IOException {
+        CompletableFuture<Object> prefetched = prefetchedResponses.remove(requestType);
+        if (prefetched != null) {
+            try {
+                return ServerConnection.await(prefetched);
+            } catch (IOException e) {
+                // Fall through and send the request again.
+            }
+        }
+        return server.request(requestType, payload);
+    }
+
+
     /**
      * Builds the movie listing panel for displaying available movies.
      * - Uses a table to present movie details including title, rating, and description.
@@ -426,8 +566,8 @@ public class CustomerClient extends JFrame {
      * Builds the show listing panel for displaying available movie showtimes.
      * - Uses a table to present details such as movie title, date & time, room, seats, and price.
      * - Provides a refresh button to dynamically update the show list.
-     * - Fetches show data from the server and populates the table upon refresh.
-     * - Automatically refreshes the list when the panel is loaded.
+     * - Loads the first page of shows when the panel is loaded, and further pages as the user scrolls down.
+     * - On refresh, fetches only the changes since the last refresh and applies them to the table in place.
      *
      * @return A JPanel containing a show table and refresh functionality.
      */
@@ -442,31 +582,45 @@ public class CustomerClient extends JFrame {
         tableModel.addColumn("Room");
         tableModel.addColumn("Seats");
         tableModel.addColumn("Price");
+        ShowTableSync showSync = new ShowTableSync(tableModel, show -> new Object[] {
+                show.getMovieTitle(),
+                show.getShowDate().toString() + " " + show.getShowTime().toString().substring(0, 5),
+                show.getRoomNumber(), show.getAvailableSeats(), show.getPrice() });
+        liveShowTable = showSync;
 
         // Create a panel for the refresh button.
         JPanel buttonPanel = new JPanel();
         JButton refreshButton = new JButton("Refresh Shows");
         buttonPanel.add(refreshButton);
 
-        panel.add(new JScrollPane(showsTable), BorderLayout.CENTER);
+        JScrollPane scrollPane = new JScrollPane(showsTable);
+        panel.add(scrollPane, BorderLayout.CENTER);
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
-        // Define the action to refresh the shows list.
+        // Load further pages as the user scrolls towards the end of the table.
+        ScrollToLoad pageLoader = ScrollToLoad.install(scrollPane, showSync::hasMorePages, () -> {
+            Page<ShowItem> page = fetchShowsPageFromServer(showSync.getNextCursor());
+            if (page == null) {
+                return false;
+            }
+            showSync.applyNextPage(page);
+            return true;
+        });
+
+        // Define the action to refresh the shows list: the first page, then only the changes.
         refreshButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
-                tableModel.setRowCount(0); // Clear existing rows.
-                List<ShowItem> shows = fetchShowsFromServer();
-                if (shows != null) {
-                    for (ShowItem show : shows) {
-                        String movie = show.getMovieTitle();
-                        String dateTime = show.getShowDate().toString() + " " +
-                                show.getShowTime().toString().substring(0, 5);
-                        int room = show.getRoomNumber();
-                        int seats = show.getAvailableSeats();
-                        double price = show.getPrice();
-
-                        tableModel.addRow(new Object[] { movie, dateTime, room, seats, price });
+                if (showSync.getVersion() == ShowDelta.NO_VERSION) {
+                    Page<ShowItem> page = fetchShowsPageFromServer(null);
+                    if (page != null) {
+                        showSync.applyFirstPage(page);
+                        pageLoader.checkSoon();
                     }
+                    return;
+                }
+                ShowDelta changes = fetchShowChangesFromServer(showSync.getVersion());
+                if (changes != null) {
+                    showSync.apply(changes);
                 }
             }
         });
@@ -549,54 +703,55 @@ public class CustomerClient extends JFrame {
     }
 
 
+    /**
+     * Logs in and opens a session on the server.
+     * - Remembers the session token for later bookings and reservation pages.
+     *
+     * @param loginReq The customer's credentials.
+     * @return The server's greeting, or an error message.
+     */
+    private String startSession(LoginRequest loginReq) {
+        try {
+            Object result = server.request("START_SESSION", loginReq);
+            if (result instanceof SessionInfo) {
+                SessionInfo session = (SessionInfo) result;
+                sessionToken = session.getToken();
+                return session.getMessage();
+            }
+            return String.valueOf(result);
+        } catch (ConnectException ex) {
+            return "Error: Server is unavailable. Try again later.";
+        } catch (IOException ex) {
+            System.err.println("Error communicating with the server: " + ex.getMessage());
+            return "Error: Communication failure with the server.";
+        }
+    }
+
+
     /**
      * Sends a request to the server and retrieves the response.
-     * - Establishes a socket connection to the specified hostname and port.
+     * - Uses the shared server connection, which reconnects if it was dropped.
      * - Sends the request type and payload to the server.
      * - Reads and returns the server's response.
-     * - Handles connection errors and ensures proper cleanup of resources.
+     * - Handles connection errors gracefully.
      *
      * @param requestType The type of request being sent.
      * @param payload The request data being sent to the server.
      * @return The response message received from the server.
      */
     private String sendMessageToServer(String requestType, Object payload) {
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
         String response = "";
-
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send request type and payload to server.
-            outputStream.writeObject(requestType);
-            outputStream.writeObject(payload);
-            outputStream.flush();
-
-            // Receive response from server.
-            response = (String) inputStream.readObject();
+            response = (String) server.request(requestType, payload);
         } catch (ConnectException ex) {
             // Handle server connection failure gracefully.
             System.err.println("Error: Unable to connect to the server. Ensure the server is running and try again.");
             JOptionPane.showMessageDialog(null, "Server is unreachable. Please check that it is online and restart the client.",
                     "Connection Error", JOptionPane.ERROR_MESSAGE);
             response = "Error: Server is unavailable. Try again later.";
-        } catch (IOException | ClassNotFoundException ex) {
+        } catch (IOException | ClassCastException ex) {
             System.err.println("Error communicating with the server: " + ex.getMessage());
             response = "Error: Communication failure with the server.";
-        } finally {
-            // Ensure all resources are properly closed.
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                System.err.println("Error closing resources: " + ex.getMessage());
-            }
         }
         return response;
     }
@@ -624,6 +779,7 @@ public class CustomerClient extends JFrame {
 
         JComboBox<ShowItem> showComboBox = new JComboBox<>();
         updateShowComboBox(showComboBox);
+        liveShowComboBox = showComboBox;
         gbc.gridx = 1;
         panel.add(showComboBox, gbc);
 
@@ -688,7 +844,8 @@ public class CustomerClient extends JFrame {
 
                     // Create a combined booking request with payment details.
                     BookingRequest bookingReq = new BookingRequest(selectedShow.getShowID(), numTickets, 
-                            currentUsername, cardNumber);
+                            currentUsername, cardNumber, bookingKeyFor(selectedShow.getShowID(), numTickets, cardNumber),
+                            sessionToken);
                     String response = sendMessageToServer("BOOK_TICKET", bookingReq);
                     updateStatus(response);
                     updateShowComboBox(showComboBox);
@@ -702,10 +859,32 @@ public class CustomerClient extends JFrame {
     }
 
 
+    /**
+     * Returns the idempotency key for the booking form's current contents.
+     * - Repeated submissions of an unchanged form (double clicks, retries) reuse the same key,
+     *   so the server books them only once and replays the original result.
+     * - Any change to the show, ticket count, or card starts a new booking with a new key.
+     *
+     * @param showID The selected show.
+     * @param numTickets The number of tickets entered.
+     * @param cardNumber The credit card number entered.
+     * @return The idempotency key to send with the booking.
+     */
+    private String bookingKeyFor(int showID, int numTickets, String cardNumber) {
+        String form = currentUsername + "|" + showID + "|" + numTickets + "|" + cardNumber;
+        if (bookingKey == null || !form.equals(bookingKeyForm)) {
+            bookingKey = UUID.randomUUID().toString();
+            bookingKeyForm = form;
+        }
+        return bookingKey;
+    }
+
+
     /**
      * Builds the reservations panel for customers to manage their bookings.
      * - Displays a table listing reservation details including ID, show info, ticket count, and reservation time.
-     * - Provides a refresh button to update the list dynamically.
+     * - Lists the newest reservations first, one page at a time; further pages load as the user scrolls down.
+     * - Provides a refresh button to reload the list from the first page.
      * - Allows users to cancel a selected reservation with a confirmation prompt.
      * - Updates the reservation list upon cancellation to reflect changes.
      *
@@ -729,23 +908,29 @@ public class CustomerClient extends JFrame {
         buttonPanel.add(refreshButton);
         buttonPanel.add(cancelButton);
 
-        panel.add(new JScrollPane(reservationsTable), BorderLayout.CENTER);
+        JScrollPane scrollPane = new JScrollPane(reservationsTable);
+        panel.add(scrollPane, BorderLayout.CENTER);
         panel.add(buttonPanel, BorderLayout.SOUTH);
 
-        // Action to refresh the reservation list.
+        // Load further pages as the user scrolls towards the end of the table.
+        ScrollToLoad pageLoader = ScrollToLoad.install(scrollPane, () -> reservationsCursor != null, () -> {
+            Page<ReservationItem> page = fetchReservationsPageFromServer(reservationsCursor);
+            if (page == null) {
+                return false;
+            }
+            addReservationRows(tableModel, page);
+            return true;
+        });
+
+        // Action to refresh the reservation list, starting again from the first page.
         refreshButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 tableModel.setRowCount(0);
-                List<ReservationItem> reservations = fetchReservationsForCustomer(currentUsername);
-                if (reservations != null) {
-                    for (ReservationItem res : reservations) {
-                        tableModel.addRow(new Object[]{
-                                res.getReservationID(),
-                                res.getShowDetails(),
-                                res.getNumTickets(),
-                                res.getReservationTime()
-                        });
-                    }
+                reservationsCursor = null;
+                Page<ReservationItem> page = fetchReservationsPageFromServer(null);
+                if (page != null) {
+                    addReservationRows(tableModel, page);
+                    pageLoader.checkSoon();
                 }
             }
         });
@@ -785,6 +970,25 @@ public class CustomerClient extends JFrame {
     }
 
 
+    /**
+     * Adds a page of reservations to the end of the reservations table.
+     *
+     * @param tableModel The reservations table's model.
+     * @param page The page to add; its cursor becomes the one for the next page.
+     */
+    private void addReservationRows(DefaultTableModel tableModel, Page<ReservationItem> page) {
+        for (ReservationItem res : page.getItems()) {
+            tableModel.addRow(new Object[]{
+                    res.getReservationID(),
+                    res.getShowDetails(),
+                    res.getNumTickets(),
+                    res.getReservationTime()
+            });
+        }
+        reservationsCursor = page.getNextCursor();
+    }
+
+
     /**
      * Updates the show selection dropdown with available shows.
      * - Fetches the list of available shows from the server.
@@ -806,228 +1010,143 @@ public class CustomerClient extends JFrame {
 
     /**
      * Fetches a list of movies from the server.
-     * - Establishes a socket connection to communicate with the server.
-     * - Sends a request to retrieve movie data.
+     * - Sends a request to retrieve movie data over the shared connection.
      * - Parses the received list of MovieItem objects.
-     * - Handles exceptions and ensures proper resource cleanup.
+     * - Handles exceptions by reporting them in the status bar.
      *
      * @return A list of MovieItem objects representing available movies.
      */
     @SuppressWarnings("unchecked")
     private List<MovieItem> fetchMoviesFromServer() {
         List<MovieItem> movies = new ArrayList<>();
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send the GET_MOVIES command
-            outputStream.writeObject("GET_MOVIES");
-            outputStream.flush();
-
             // Read the list of MovieItem objects from the server.
-            Object result = inputStream.readObject();
+            Object result = requestFromServer("GET_MOVIES", null);
             if (result instanceof List) {
                 movies = (List<MovieItem>) result;
             }
         } catch (Exception ex) {
             updateStatus("Error fetching movies: " + ex.getMessage());
-        } finally {
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
         }
         return movies;
     }
 
 
     /**
-     * Fetches a list of available shows from the server.
-     * - Establishes a socket connection for communication.
-     * - Sends a request to retrieve show data.
-     * - Parses the received list of ShowItem objects.
-     * - Handles exceptions and ensures proper resource cleanup.
+     * Fetches the changes to the show list from the server.
+     * - Sends the version of the list the client already has over the shared connection.
+     * - Handles exceptions by reporting them in the status bar.
      *
-     * @return A list of ShowItem objects representing available shows.
+     * @param version The version from the last applied ShowDelta, or ShowDelta.NO_VERSION.
+     * @return The changes since that version (or the full list), or null on failure.
      */
-    @SuppressWarnings("unchecked")
-    private List<ShowItem> fetchShowsFromServer() {
-        List<ShowItem> shows = new ArrayList<>();
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
+    private ShowDelta fetchShowChangesFromServer(long version) {
+        ShowDelta changes = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
+            Object result = requestFromServer("GET_SHOWS_SINCE", version);
+            if (result instanceof ShowDelta) {
+                changes = (ShowDelta) result;
+            }
+        } catch (Exception ex) {
+            updateStatus("Error fetching shows: " + ex.getMessage());
+        }
+        return changes;
+    }
 
-            // Send the GET_SHOWS command.
-            outputStream.writeObject("GET_SHOWS");
-            outputStream.flush();
 
-            // Read the list of ShowItem objects from the server.
-            Object result = inputStream.readObject();
-            if (result instanceof List) {
-                shows = (List<ShowItem>) result;
+    /**
+     * Fetches one page of the show list from the server.
+     * - Handles exceptions and error replies by reporting them in the status bar.
+     *
+     * @param cursor The cursor from the previous page, or null for the first page.
+     * @return The page of shows, or null on failure.
+     */
+    @SuppressWarnings("unchecked")
+    private Page<ShowItem> fetchShowsPageFromServer(String cursor) {
+        Page<ShowItem> page = null;
+        try {
+            Object result = requestFromServer("GET_SHOWS_PAGE", new PageRequest(null, cursor, PAGE_SIZE));
+            if (result instanceof Page) {
+                page = (Page<ShowItem>) result;
+            } else if (result instanceof String) {
+                updateStatus((String) result);
             }
         } catch (Exception ex) {
             updateStatus("Error fetching shows: " + ex.getMessage());
-        } finally {
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
         }
-        return shows;
+        return page;
     }
 
 
     /**
      * Fetches the list of available shows from the server.
-     * - Establishes a socket connection to send a request.
-     * - Sends a command to retrieve available show data.
+     * - Sends a command to retrieve available show data over the shared connection.
      * - Parses and returns the list of ShowItem objects.
-     * - Ensures proper resource cleanup in case of failure.
      *
-     * @return A list of ShowItem objects representing available shows.
+     * @return A list of ShowItem objects representing available shows, or null on failure.
      */
     @SuppressWarnings({ "unchecked" })
     private List<ShowItem> fetchAvailableShowsFromServer() {
         List<ShowItem> shows = null;
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send the GET_AVAILABLE_SHOWS command.
-            outputStream.writeObject("GET_AVAILABLE_SHOWS");
-            outputStream.flush();
-
-            // Read the object from the server.
-            Object result = inputStream.readObject();
+            Object result = requestFromServer("GET_AVAILABLE_SHOWS", null);
             if (result instanceof List) {
                 shows = (List<ShowItem>) result;
             }
-        } catch(Exception ex) {
-            // TODO: show an error message.
-        } finally {
-            try {
-                if (outputStream != null) { outputStream.close(); }
-                if (inputStream != null) { inputStream.close(); }
-                if (socket != null && !socket.isClosed()) { socket.close(); }
-            } catch(IOException ex) {
-                ex.printStackTrace();
-            }
+        } catch (Exception ex) {
+            updateStatus("Error fetching available shows: " + ex.getMessage());
         }
         return shows;
     }
 
 
     /**
-     * Fetches user profile information from the server.
-     * - Establishes a socket connection and sends a request for user details.
+     * Fetches the logged-in customer's profile from the server.
+     * - Sends the session token over the shared connection; the server finds the customer from it.
      * - Reads and returns a UserProfile object if successfully retrieved.
-     * - Handles exceptions and ensures proper cleanup of resources.
      *
-     * @param username The username of the user whose profile is being requested.
      * @return A UserProfile object containing user details, or null if retrieval fails.
      */
-    private UserProfile fetchUserProfileFromServer(String username) {
+    private UserProfile fetchUserProfileFromServer() {
         UserProfile profile = null;
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
-
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            outputStream.writeObject("GET_USER_INFO");
-            outputStream.writeObject(username);
-            outputStream.flush();
-
             // Retrieve the UserProfile object from the server.
-            Object result = inputStream.readObject();
+            Object result = server.request("GET_SESSION_USER_INFO", sessionToken);
             if (result instanceof UserProfile) {
                 profile = (UserProfile) result;
+            } else if (result instanceof String) {
+                updateStatus((String) result);
             }
         } catch (Exception ex) {
-            ex.printStackTrace();
-            // TODO: update a status label here to reflect the error.
-        } finally {
-            try {
-                if (outputStream != null) outputStream.close();
-                if (inputStream != null) inputStream.close();
-                if (socket != null && !socket.isClosed()) socket.close();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
+            updateStatus("Error fetching profile: " + ex.getMessage());
         }
         return profile;
     }
 
 
     /**
-     * Fetches the reservations for a specific customer from the server.
-     * - Establishes a socket connection for communication.
-     * - Sends a request with the username to filter reservations.
-     * - Parses and returns a list of ReservationItem objects.
-     * - Handles exceptions and ensures proper resource cleanup.
+     * Fetches one page of the logged-in customer's reservations from the server, newest first.
+     * - Sends the session token and cursor over the shared connection.
+     * - Handles exceptions and error replies by reporting them in the status bar.
      *
-     * @param username The username of the customer whose reservations are being fetched.
-     * @return A list of ReservationItem objects representing the customer's reservations.
+     * @param cursor The cursor from the previous page, or null for the first page.
+     * @return The page of ReservationItem objects, or null on failure.
      */
     @SuppressWarnings("unchecked")
-    private List<ReservationItem> fetchReservationsForCustomer(String username) {
-        List<ReservationItem> reservations = null;
-        Socket socket = null;
-        ObjectOutputStream outputStream = null;
-        ObjectInputStream inputStream = null;
+    private Page<ReservationItem> fetchReservationsPageFromServer(String cursor) {
+        Page<ReservationItem> page = null;
         try {
-            socket = new Socket(hostname, port);
-            outputStream = new ObjectOutputStream(socket.getOutputStream());
-            outputStream.flush();
-            inputStream = new ObjectInputStream(socket.getInputStream());
-
-            // Send the command and the username for filtering.
-            outputStream.writeObject("GET_CUSTOMER_RESERVATIONS");
-            outputStream.writeObject(username);
-            outputStream.flush();
-
-            Object result = inputStream.readObject();
-            if (result instanceof List) {
-                reservations = (List<ReservationItem>) result;
+            Object result = requestFromServer("GET_CUSTOMER_RESERVATIONS_PAGE",
+                    new PageRequest(currentUsername, cursor, PAGE_SIZE, sessionToken));
+            if (result instanceof Page) {
+                page = (Page<ReservationItem>) result;
+            } else if (result instanceof String) {
+                updateStatus((String) result);
             }
         } catch (Exception ex) {
-            ex.printStackTrace();
-        } finally {
-            try {
-                if (outputStream != null) { outputStream.close(); }
-                if (inputStream != null) { inputStream.close(); }
-                if (socket != null && !socket.isClosed()) { socket.close(); }
-            } catch (IOException ex) {
-                ex.printStackTrace();
-            }
+            updateStatus("Error fetching reservations: " + ex.getMessage());
         }
-        return reservations;
+        return page;
     }
 
 
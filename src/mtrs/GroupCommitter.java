@@ -0,0 +1,263 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: GroupCommitter.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines many small write transactions into shared, batched transactions (group commit).
+ * - Callers submit items and wait on the returned future; one committer thread writes them.
+ * - Items are collected for up to windowMillis after the first one arrives, or until maxBatchSize are queued.
+ * - Each batch runs in one transaction on one pooled connection, so a single commit (and a single
+ *   log flush in the database) covers every item in it.
+ * - The writer sends each kind of statement for the whole batch at once (JDBC addBatch/executeBatch),
+ *   so a batch costs a few round trips however many items it holds. One batch is written at a time;
+ *   throughput is then bounded by batch size over batch time, not by round trips per item.
+ * - If a batched write fails, the transaction is rolled back and the batch is written again one item
+ *   at a time, each under its own savepoint, so only the failing items fail.
+ * - Results are delivered after the commit. If the commit itself fails, the database may have committed
+ *   anyway, so the writer decides each item's message; any earlier failure fails every item in the batch.
+ *
+ * @param <T> The type of the queued items.
+ */
+public class GroupCommitter<T> implements AutoCloseable {
+
+    /**
+     * Writes the items of a batch transaction.
+     */
+    public interface Writer<T> {
+        /**
+         * Writes every item of a batch with batched statements.
+         * - Must not commit or roll back the whole transaction.
+         * - A refused item must undo its own changes and get its refusal message.
+         * - Throwing an SQLException rolls the batch back; it is then written again with write().
+         *
+         * @param conn The batch connection, with auto-commit off.
+         * @param items The items, in arrival order.
+         * @return One message per item, in the same order.
+         * @throws SQLException If a statement fails.
+         */
+        List<String> writeBatch(Connection conn, List<T> items) throws SQLException;
+
+        /**
+         * Writes one item, after its batch could not be written as a whole.
+         * - Must not commit or roll back the whole transaction.
+         * - To refuse the item, roll back to the given savepoint and return the refusal message.
+         * - Throwing an SQLException also undoes the item (and fails its future).
+         *
+         * @param conn The batch connection, with auto-commit off.
+         * @param item The item.
+         * @param savepoint A savepoint set just before this item.
+         * @return The message for the caller.
+         * @throws SQLException If a statement fails.
+         */
+        String write(Connection conn, T item, Savepoint savepoint) throws SQLException;
+
+        /**
+         * Decides an item's message after the batch's commit failed.
+         * - The database may have committed before the error was seen (e.g., the connection broke while
+         *   waiting for the reply), so the item's changes must be treated as possibly written.
+         *
+         * @param item The item.
+         * @param message The message the item was written with.
+         * @param cause The commit failure.
+         * @return The message for the caller.
+         */
+        String commitFailed(T item, String message, SQLException cause);
+    }
+
+    private static final class PendingWork<T> {
+        private final T item;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private String message;
+        private boolean failed;
+
+        PendingWork(T item) {
+            this.item = item;
+        }
+    }
+
+    private final ConnectionPool connectionPool;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Writer<T> writer;
+    private final LinkedBlockingQueue<PendingWork<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean closed = false;
+
+
+    /**
+     * Creates the committer and starts its thread.
+     *
+     * @param connectionPool The pool that provides one connection per batch.
+     * @param windowMillis How long to keep collecting work after the first item of a batch arrives.
+     * @param maxBatchSize The maximum number of items per transaction.
+     * @param writer Writes the items of each batch.
+     */
+    public GroupCommitter(ConnectionPool connectionPool, long windowMillis, int maxBatchSize, Writer<T> writer) {
+        this.connectionPool = connectionPool;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.writer = writer;
+        this.committer = new Thread(this::run, "group-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+
+    /**
+     * Queues an item for the next batch.
+     *
+     * @param item The item to write.
+     * @return A future completed with the item's message once its batch has been committed.
+     */
+    public CompletableFuture<String> submit(T item) {
+        PendingWork<T> pending = new PendingWork<>(item);
+        if (closed) {
+            pending.result.completeExceptionally(new SQLException("Group committer is closed."));
+        } else {
+            queue.add(pending);
+        }
+        return pending.result;
+    }
+
+
+    /**
+     * Stops the committer thread; work still queued fails.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        committer.interrupt();
+        failAll(drain(), new SQLException("Group committer is closed."));
+    }
+
+
+    private void run() {
+        while (!closed) {
+            List<PendingWork<T>> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                commitBatch(batch);
+            } catch (SQLException | RuntimeException e) {
+                e.printStackTrace();
+                failAll(batch, e);
+            }
+        }
+    }
+
+
+    /**
+     * Waits for the first item, then collects more until the window closes or the batch is full.
+     *
+     * @return The items of the next batch (at least one).
+     * @throws InterruptedException If the committer is being closed.
+     */
+    private List<PendingWork<T>> nextBatch() throws InterruptedException {
+        List<PendingWork<T>> batch = new ArrayList<>();
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingWork<T> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+
+    /**
+     * Writes every item of a batch in one transaction and commits it once.
+     * - Completes the items' futures before the connection is given back, so a failure after the commit
+     *   cannot fail items that were committed.
+     *
+     * @param batch The items to write.
+     * @throws SQLException If the connection cannot be obtained or an item cannot be undone.
+     */
+    private void commitBatch(List<PendingWork<T>> batch) throws SQLException {
+        try (Connection conn = connectionPool.getConnection()) {
+            conn.setAutoCommit(false);
+            List<T> items = new ArrayList<>(batch.size());
+            for (PendingWork<T> pending : batch) {
+                items.add(pending.item);
+            }
+            try {
+                List<String> messages = writer.writeBatch(conn, items);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).message = messages.get(i);
+                }
+            } catch (SQLException e) {
+                System.err.println("Batched write failed, writing items one at a time: " + e.getMessage());
+                conn.rollback();
+                writeEach(conn, batch);
+            }
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                e.printStackTrace();
+                for (PendingWork<T> pending : batch) {
+                    if (!pending.failed) {
+                        pending.message = writer.commitFailed(pending.item, pending.message, e);
+                    }
+                }
+            }
+            for (PendingWork<T> pending : batch) {
+                if (!pending.failed) {
+                    pending.result.complete(pending.message);
+                }
+            }
+        }
+    }
+
+
+    // Writes the items one by one, each under its own savepoint, so a failing item fails alone.
+    private void writeEach(Connection conn, List<PendingWork<T>> batch) throws SQLException {
+        for (PendingWork<T> pending : batch) {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                pending.message = writer.write(conn, pending.item, savepoint);
+            } catch (SQLException e) {
+                conn.rollback(savepoint);
+                pending.result.completeExceptionally(e);
+                pending.failed = true;
+            }
+        }
+    }
+
+
+    private List<PendingWork<T>> drain() {
+        List<PendingWork<T>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        return remaining;
+    }
+
+
+    private static <T> void failAll(List<PendingWork<T>> batch, Exception cause) {
+        for (PendingWork<T> pending : batch) {
+            pending.result.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: IdempotencyCache.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remembers the results of requests by idempotency key, so a retried request gets the original result.
+ * - The first request with a key claims it and runs; retries that arrive meanwhile wait for its result.
+ * - Entries expire after ttlMillis, and the oldest entries are dropped beyond maxEntries.
+ * - Entries are kept in insertion order, so expiry only ever looks at the oldest entries.
+ */
+public class IdempotencyCache {
+
+    private static final class Entry {
+        private final CompletableFuture<String> result;
+        private final long createdAt;
+
+        Entry(CompletableFuture<String> result, long createdAt) {
+            this.result = result;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(); // guarded by this
+
+
+    /**
+     * Creates the cache.
+     *
+     * @param ttlMillis How long a result is remembered.
+     * @param maxEntries The maximum number of remembered keys; size it for the peak request rate times the TTL.
+     */
+    public IdempotencyCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+
+    /**
+     * Claims a key for a new request, or finds the request that already claimed it.
+     *
+     * @param key The idempotency key (scoped by the caller, e.g., per user).
+     * @param result The future the caller will complete if it gets the claim.
+     * @return The earlier request's result if the key is already claimed, or null if the caller now owns it.
+     */
+    public synchronized CompletableFuture<String> claim(String key, CompletableFuture<String> result) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing.result;
+        }
+        entries.put(key, new Entry(result, now));
+        if (entries.size() > maxEntries) {
+            Iterator<Entry> oldest = entries.values().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return null;
+    }
+
+
+    /**
+     * Forgets a claimed key, so that a later request with the same key runs again.
+     *
+     * @param key The idempotency key.
+     * @param result The future registered by the claim; another request's claim is left alone.
+     */
+    public synchronized void release(String key, CompletableFuture<String> result) {
+        Entry existing = entries.get(key);
+        if (existing != null && existing.result == result) {
+            entries.remove(key);
+        }
+    }
+
+
+    // Guarded by this; entries are in insertion order, so stop at the first one still valid.
+    private void expire(long now) {
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        while (oldest.hasNext() && now - oldest.next().getValue().createdAt >= ttlMillis) {
+            oldest.remove();
+        }
+    }
+}
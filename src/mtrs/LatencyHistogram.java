@@ -0,0 +1,120 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: LatencyHistogram.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, used to report latency percentiles.
+ * - Durations are counted in buckets that grow with the value: each power of two is split into
+ *   SUB_BUCKETS equal buckets, so a reported percentile is at most 1/SUB_BUCKETS above the true value.
+ * - Recording is one atomic increment on a fixed array; it never allocates or locks.
+ * - Percentiles are read from the counts as they are at that moment; a recording that happens
+ *   during the read may or may not be included.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS     = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS get one bucket each; every higher power of two gets SUB_BUCKETS.
+    private static final int BUCKETS         = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+
+    /**
+     * Counts one duration.
+     *
+     * @param nanos The duration in nanoseconds (negative values count as 0).
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+
+    /**
+     * Returns the number of durations recorded so far.
+     *
+     * @return The total count.
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+
+    /**
+     * Returns several percentiles from one pass over the counts, so they are consistent with each other.
+     *
+     * @param quantiles The quantiles wanted (e.g., 0.5, 0.99), in increasing order.
+     * @return For each quantile, the upper bound in nanoseconds of the bucket it falls in (0 if nothing was recorded).
+     */
+    public long[] percentiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        int bucket = 0;
+        long seen = snapshot[0];
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (seen < rank && bucket < BUCKETS - 1) {
+                seen += snapshot[++bucket];
+            }
+            values[q] = upperBoundOf(bucket);
+        }
+        return values;
+    }
+
+
+    /**
+     * Returns the longest duration recorded, rounded up to its bucket.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // at least SUB_BUCKET_BITS
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
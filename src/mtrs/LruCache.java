@@ -0,0 +1,195 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: LruCache.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size-bounded read-through cache that evicts the least recently used entries.
+ * - Keys are split over a fixed number of segments, each an access-ordered map with its own lock,
+ *   so threads working on different keys rarely wait for each other. Locks are held only for the
+ *   map operation itself, never while a value is loaded.
+ * - Each segment holds at most its share of maxEntries; adding to a full segment evicts that
+ *   segment's least recently used entry.
+ * - Writers call invalidate() after committing a change; a load that overlaps an invalidation of
+ *   its segment is returned to its caller but not cached, so a stale value is never kept.
+ * - Null values (nothing found) are not cached.
+ * - Counts hits, misses and evictions.
+ * - Uses ReentrantLock rather than synchronized, so virtual threads waiting for a segment do not pin their carrier.
+ *
+ * @param <K> The key type.
+ * @param <V> The cached values; they must not be modified once loaded.
+ */
+public class LruCache<K, V> {
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Loads the value for a key from the database.
+     */
+    public interface Loader<K, V> {
+        V load(K key) throws SQLException;
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private final LongAdder evictions;
+        private long version; // guarded by lock; counts invalidations
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries The maximum number of cached values (at least one per segment).
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public LruCache(int maxEntries) {
+        int capacity = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment<>(capacity, evictions);
+        }
+    }
+
+
+    /**
+     * Returns the cached value for a key, loading and caching it on a miss.
+     *
+     * @param key The key.
+     * @param loader Loads the value on a miss.
+     * @return The value, or null if the loader found none.
+     * @throws SQLException If the value had to be loaded and loading failed (nothing is cached then).
+     */
+    public V get(K key, Loader<K, V> loader) throws SQLException {
+        Segment<K, V> segment = segmentFor(key);
+        long loadedAt;
+        segment.lock.lock();
+        try {
+            V value = segment.get(key);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+            loadedAt = segment.version;
+        } finally {
+            segment.lock.unlock();
+        }
+
+        misses.increment();
+        V value = loader.load(key);
+        if (value != null) {
+            segment.lock.lock();
+            try {
+                if (segment.version == loadedAt) {
+                    segment.put(key, value);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return value;
+    }
+
+
+    /**
+     * Drops the cached value for a key; call after committing a change to the underlying data.
+     *
+     * @param key The key whose value changed.
+     */
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.remove(key);
+            segment.version++;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+
+    /**
+     * Drops every cached value.
+     */
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.clear();
+                segment.version++;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+}
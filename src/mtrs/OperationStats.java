@@ -0,0 +1,89 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: OperationStats.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+
+/**
+ * Latency and error counts of one request type since the server started, as reported by STATS.
+ * - Times are in microseconds. Percentiles come from a bucketed histogram and may be up to 1/8 above the true value.
+ * - Errors are requests that failed or were answered with an error message.
+ * - Database time is the time the request's own thread held pooled connections. Bookings that are
+ *   group committed wait for another thread's transaction, which is not counted.
+ */
+@SuppressWarnings("serial")
+public class OperationStats implements Serializable {
+    private String requestType;
+    private long calls;
+    private long errors;
+    private long totalMicros;
+    private long dbMicros;
+    private long p50Micros;
+    private long p90Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+
+    public OperationStats(String requestType, long calls, long errors, long totalMicros, long dbMicros,
+            long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.requestType = requestType;
+        this.calls = calls;
+        this.errors = errors;
+        this.totalMicros = totalMicros;
+        this.dbMicros = dbMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getRequestType() {
+        return requestType;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+
+    public long getDbMicros() {
+        return dbMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+}
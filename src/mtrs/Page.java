@@ -0,0 +1,54 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: Page.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a long listing.
+ * - nextCursor is opaque: send it back unchanged to get the following page; it is null on the last page.
+ * - Pages are keyed on the listing's sort order rather than an offset, so rows added or removed
+ *   meanwhile never make a page repeat or skip rows.
+ * - version is the show list version the page was read from (see GET_SHOWS_SINCE), or -1 for listings
+ *   that are not versioned.
+ *
+ * @param <T> The listed items (ShowItem or ReservationItem).
+ */
+@SuppressWarnings("serial")
+public class Page<T> implements Serializable {
+    private List<T> items;
+    private String nextCursor;
+    private long version;
+
+    public Page(List<T> items, String nextCursor, long version) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.version = version;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
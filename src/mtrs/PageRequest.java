@@ -0,0 +1,55 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: PageRequest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+
+/**
+ * Asks for one page of a long listing (GET_SHOWS_PAGE, GET_CUSTOMER_RESERVATIONS_PAGE).
+ * - cursor is null for the first page, then the nextCursor of the previous page.
+ * - username selects whose reservations are listed; it is not used for shows. A session token from
+ *   START_SESSION, when set, selects the user instead.
+ */
+@SuppressWarnings("serial")
+public class PageRequest implements Serializable {
+    private String username;
+    private String cursor;
+    private int pageSize;
+    private String sessionToken;
+
+    public PageRequest(String username, String cursor, int pageSize) {
+        this(username, cursor, pageSize, null);
+    }
+
+    public PageRequest(String username, String cursor, int pageSize, String sessionToken) {
+        this.username = username;
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+        this.sessionToken = sessionToken;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getSessionToken() {
+        return sessionToken;
+    }
+}
@@ -0,0 +1,47 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: PushChannel.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.IOException;
+
+/**
+ * Sends frames to one client connection outside the one-response-per-request flow: server pushes,
+ * and the chunks of streamed responses.
+ * - Frames are buffered per connection up to a fixed number, and written in order with the connection's responses.
+ * - offer() never blocks, so one slow client cannot hold up the thread pushing to everyone.
+ * - write() waits for room instead, so a streamed response goes at the client's pace.
+ */
+public interface PushChannel {
+
+    /**
+     * Queues a frame for the client.
+     *
+     * @param frame The frame body (shared between connections; must not be modified).
+     * @return False if the connection is closed or its buffer is full.
+     */
+    boolean offer(byte[] frame);
+
+    /**
+     * Queues a frame that must not be dropped, waiting while the connection's buffer is full.
+     *
+     * @param frame The frame body.
+     * @throws IOException If the connection is closed, or the thread is interrupted while waiting.
+     */
+    void write(byte[] frame) throws IOException;
+
+    boolean isOpen();
+
+    /**
+     * Closes the connection, e.g., after the client fell too far behind.
+     */
+    void close();
+}
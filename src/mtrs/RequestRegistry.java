@@ -0,0 +1,294 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: RequestRegistry.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Maps each request type to the operation that serves it, and runs every request the same way.
+ * - An operation declares its payload type (Void for none), its response type, whether it reads or
+ *   writes data, and the executor pipelined requests of its type run on.
+ * - dispatch() checks the payload type, coalesces identical concurrent reads where the operation
+ *   asks for it, and records per operation a latency histogram, the errors, and the time spent in
+ *   the database. Recording is lock-free, so it adds no contention between requests.
+ * - Request types are the command strings of the legacy protocol; binary opcodes map to them one to one.
+ * - Operations are registered before the server accepts connections and never change afterwards.
+ */
+public class RequestRegistry {
+
+    /**
+     * Whether an operation only reads data or also changes it.
+     */
+    public enum Access { READ, WRITE }
+
+    /**
+     * Serves one request type.
+     */
+    public interface Handler<P> {
+        Object handle(P payload);
+    }
+
+    /**
+     * One registered request type.
+     */
+    public static final class Operation<P> {
+        private final String requestType;
+        private final Class<P> payloadType;
+        private final Class<?> responseType;
+        private final Access access;
+        private final Executor executor;
+        private final boolean coalesced;
+        private final Handler<P> handler;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder dbNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        Operation(String requestType, Class<P> payloadType, Class<?> responseType, Access access,
+                Executor executor, boolean coalesced, Handler<P> handler) {
+            this.requestType = requestType;
+            this.payloadType = payloadType;
+            this.responseType = responseType;
+            this.access = access;
+            this.executor = executor;
+            this.coalesced = coalesced;
+            this.handler = handler;
+        }
+
+        public String getRequestType() {
+            return requestType;
+        }
+
+        public Class<P> getPayloadType() {
+            return payloadType;
+        }
+
+        public Class<?> getResponseType() {
+            return responseType;
+        }
+
+        public Access getAccess() {
+            return access;
+        }
+
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        public boolean hasPayload() {
+            return payloadType != Void.class;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return nanos.sum();
+        }
+
+        public long getDbNanos() {
+            return dbNanos.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+    }
+
+    private final Map<String, Operation<?>> operations = new LinkedHashMap<>();
+    private final Executor readExecutor;
+    private final Executor writeExecutor;
+    private final SingleFlight readFlights;
+    private final LongSupplier dbClock;
+
+
+    /**
+     * Creates an empty registry.
+     *
+     * @param readExecutor Runs pipelined requests of READ operations.
+     * @param writeExecutor Runs pipelined requests of WRITE operations.
+     * @param readFlights Shares one execution between identical concurrent requests of coalesced reads.
+     * @param dbClock Nanoseconds the calling thread has spent in the database so far; read before and after each request.
+     */
+    public RequestRegistry(Executor readExecutor, Executor writeExecutor, SingleFlight readFlights, LongSupplier dbClock) {
+        this.readExecutor = readExecutor;
+        this.writeExecutor = writeExecutor;
+        this.readFlights = readFlights;
+        this.dbClock = dbClock;
+    }
+
+
+    /**
+     * Registers an operation that only reads data; it runs on the read executor.
+     *
+     * @param requestType The command string.
+     * @param payloadType The payload class, or Void.class if the request carries none.
+     * @param responseType The class of successful responses (error messages are Strings).
+     * @param handler Serves the request.
+     */
+    public <P> void read(String requestType, Class<P> payloadType, Class<?> responseType, Handler<P> handler) {
+        register(new Operation<>(requestType, payloadType, responseType, Access.READ, readExecutor, false, handler));
+    }
+
+
+    /**
+     * Registers a read whose concurrent identical requests (equal payloads) share one execution.
+     *
+     * @param requestType The command string.
+     * @param payloadType The payload class (with a value-based equals()), or Void.class.
+     * @param responseType The class of successful responses; they must not be modified once returned.
+     * @param handler Serves the request.
+     */
+    public <P> void coalescedRead(String requestType, Class<P> payloadType, Class<?> responseType, Handler<P> handler) {
+        register(new Operation<>(requestType, payloadType, responseType, Access.READ, readExecutor, true, handler));
+    }
+
+
+    /**
+     * Registers an operation that changes data; it runs on the write executor.
+     *
+     * @param requestType The command string.
+     * @param payloadType The payload class, or Void.class if the request carries none.
+     * @param responseType The class of successful responses (error messages are Strings).
+     * @param handler Serves the request.
+     */
+    public <P> void write(String requestType, Class<P> payloadType, Class<?> responseType, Handler<P> handler) {
+        register(new Operation<>(requestType, payloadType, responseType, Access.WRITE, writeExecutor, false, handler));
+    }
+
+
+    private void register(Operation<?> operation) {
+        if (operations.putIfAbsent(operation.requestType, operation) != null) {
+            throw new IllegalStateException("Request type registered twice: " + operation.requestType);
+        }
+    }
+
+
+    /**
+     * Looks up the operation for a request type.
+     *
+     * @param requestType The command string.
+     * @return The operation, or null if the type is unknown.
+     */
+    public Operation<?> lookup(String requestType) {
+        return requestType == null ? null : operations.get(requestType);
+    }
+
+
+    /**
+     * Checks whether a request type is followed by a payload object on a legacy object stream.
+     *
+     * @param requestType The command string.
+     * @return True if the type is known and declares a payload.
+     */
+    public boolean hasPayload(String requestType) {
+        Operation<?> operation = lookup(requestType);
+        return operation != null && operation.hasPayload();
+    }
+
+
+    /**
+     * Returns the executor a pipelined request should run on.
+     *
+     * @param requestType The command string.
+     * @return The operation's executor, or null if the type is unknown.
+     */
+    public Executor executorFor(String requestType) {
+        Operation<?> operation = lookup(requestType);
+        return operation == null ? null : operation.executor;
+    }
+
+
+    public Collection<Operation<?>> getOperations() {
+        return Collections.unmodifiableCollection(operations.values());
+    }
+
+
+    /**
+     * Summarizes every operation's metrics since the server started.
+     *
+     * @return One entry per operation, in registration order, with times in microseconds.
+     */
+    public List<OperationStats> stats() {
+        List<OperationStats> stats = new ArrayList<>(operations.size());
+        for (Operation<?> operation : operations.values()) {
+            long[] percentiles = operation.latencies.percentiles(0.5, 0.9, 0.99, 0.999);
+            stats.add(new OperationStats(operation.requestType, operation.getCalls(), operation.getErrors(),
+                    operation.getTotalNanos() / 1000, operation.getDbNanos() / 1000,
+                    percentiles[0] / 1000, percentiles[1] / 1000, percentiles[2] / 1000, percentiles[3] / 1000,
+                    operation.latencies.getMax() / 1000));
+        }
+        return stats;
+    }
+
+
+    /**
+     * Runs a request on the calling thread and returns its response.
+     *
+     * @param requestType The command string sent by the client.
+     * @param payload The request payload, or null.
+     * @return The response object, or an error message for unknown types and mismatched payloads.
+     */
+    public Object dispatch(String requestType, Object payload) {
+        Operation<?> operation = lookup(requestType);
+        if (operation == null) {
+            return "Invalid request type.";
+        }
+        return run(operation, payload);
+    }
+
+
+    private <P> Object run(Operation<P> operation, Object payload) {
+        long start = System.nanoTime();
+        long dbStart = dbClock.getAsLong();
+        Object response = null;
+        boolean failed = true;
+        try {
+            if (payload != null && !operation.payloadType.isInstance(payload)) {
+                response = "Error: Invalid payload for " + operation.requestType + ".";
+            } else {
+                P typedPayload = operation.payloadType.cast(payload);
+                response = operation.coalesced
+                        ? readFlights.run(operation.requestType, typedPayload, () -> operation.handler.handle(typedPayload))
+                        : operation.handler.handle(typedPayload);
+            }
+            failed = false;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            operation.calls.increment();
+            operation.nanos.add(elapsed);
+            operation.dbNanos.add(dbClock.getAsLong() - dbStart);
+            operation.latencies.record(elapsed);
+            if (failed || response instanceof String message && message.startsWith("Error")) {
+                operation.errors.increment();
+            }
+        }
+        if (response != null && !(response instanceof String) && !operation.responseType.isInstance(response)) {
+            throw new IllegalStateException(operation.requestType + " returned " + response.getClass().getName());
+        }
+        return response;
+    }
+}
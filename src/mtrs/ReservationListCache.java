@@ -0,0 +1,263 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ReservationListCache.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Per-user lists of reservations, kept in memory so "My Reservations" refreshes do not query the database.
+ * - Keyed by the user's primary key; each list is immutable, newest reservation first, and is
+ *   replaced as a whole when it changes, so readers never lock.
+ * - Bookings and cancellations update a cached list in place after they commit, rather than
+ *   dropping it; users without a cached list are left alone.
+ * - Loads and updates for one user take turns on the user's lock stripe, and updates are applied
+ *   after their commit, so a list never misses a committed change: a load that ran before the
+ *   commit is stored first and then updated, and a load that ran after it already has the change.
+ * - Whether a booking needs to be added is decided on the same stripe, or, when the user is not known
+ *   yet, only while no load is running, so a load that read the table before the commit is never missed.
+ * - A list expires after idleTimeoutMillis without being read. Expired lists are reloaded when next
+ *   read and swept by later loads, so memory is bounded by the number of recently active users.
+ */
+public class ReservationListCache {
+    private static final int USER_LOCK_STRIPES = 256;
+
+    /**
+     * Reads a user's reservations from the database, newest first.
+     */
+    public interface Loader {
+        List<ReservationItem> load(int userPK) throws SQLException;
+    }
+
+    /**
+     * Reads one reservation from the database.
+     */
+    public interface ItemLoader {
+        ReservationItem load() throws SQLException;
+    }
+
+    private static final class Entry {
+        private final List<ReservationItem> items;
+        private volatile long lastUsedAt;
+
+        Entry(List<ReservationItem> items, long lastUsedAt) {
+            this.items = items;
+            this.lastUsedAt = lastUsedAt;
+        }
+    }
+
+    private final long idleTimeoutMillis;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final StripedLocks userLocks = new StripedLocks(USER_LOCK_STRIPES);
+    private final AtomicLong nextSweepAt = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong(); // bumped by invalidateAll
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param idleTimeoutMillis How long a list is kept without being read.
+     */
+    public ReservationListCache(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+
+    /**
+     * Returns a user's reservations, loading them on a miss.
+     * - Sweeps expired lists before a load, at most once per idle timeout.
+     *
+     * @param userPK The user's primary key.
+     * @param loader Reads the user's reservations; called with the user's lock stripe held.
+     * @return The reservations, newest first (unmodifiable).
+     * @throws SQLException If the loader fails; nothing is cached then.
+     */
+    public List<ReservationItem> get(int userPK, Loader loader) throws SQLException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userPK);
+        if (entry != null && now - entry.lastUsedAt < idleTimeoutMillis) {
+            entry.lastUsedAt = now;
+            hits.increment();
+            return entry.items;
+        }
+
+        Lock lock = userLocks.lockFor(userPK);
+        lock.lock();
+        try {
+            // Another request may have loaded the list while this one waited.
+            entry = entries.get(userPK);
+            if (entry != null && now - entry.lastUsedAt < idleTimeoutMillis) {
+                entry.lastUsedAt = now;
+                hits.increment();
+                return entry.items;
+            }
+            misses.increment();
+            sweep(now);
+            long loadedIn = generation.get();
+            List<ReservationItem> items = List.copyOf(loader.load(userPK));
+            if (generation.get() == loadedIn) {
+                entries.put(userPK, new Entry(items, now));
+            }
+            return items;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Adds a committed booking to the user's list, reading it only if the list is cached.
+     * - Checks for the list and reads the booking on the user's lock stripe, so a load of the user's list
+     *   that is running meanwhile is stored first and then updated.
+     *
+     * @param userPK The booking user's primary key.
+     * @param loader Reads the new reservation (null if it is gone); called with the user's lock stripe held.
+     * @throws SQLException If the loader fails; the list is left unchanged then.
+     */
+    public void added(int userPK, ItemLoader loader) throws SQLException {
+        Lock lock = userLocks.lockFor(userPK);
+        lock.lock();
+        try {
+            Entry entry = entries.get(userPK);
+            if (entry == null) {
+                return;
+            }
+            ReservationItem item = loader.load();
+            if (item != null) {
+                entries.put(userPK, new Entry(List.copyOf(withItem(entry.items, item)), entry.lastUsedAt));
+                updates.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Removes a committed cancellation from the user's list, if the list is cached.
+     *
+     * @param userPK The reservation owner's primary key.
+     * @param reservationID The cancelled reservation.
+     */
+    public void removed(int userPK, int reservationID) {
+        update(userPK, items -> {
+            List<ReservationItem> next = new ArrayList<>(items);
+            next.removeIf(existing -> existing.getReservationID() == reservationID);
+            return next;
+        });
+    }
+
+
+    /**
+     * Drops a user's list, e.g., when an update could not be prepared.
+     *
+     * @param userPK The user's primary key.
+     */
+    public void invalidate(int userPK) {
+        Lock lock = userLocks.lockFor(userPK);
+        lock.lock();
+        try {
+            entries.remove(userPK);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Drops every list, e.g., after shows (and with them reservations) were deleted.
+     * - Loads already running when this is called return their result but do not cache it.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+
+    public int size() {
+        return entries.size();
+    }
+
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+
+    private interface Change {
+        List<ReservationItem> apply(List<ReservationItem> items);
+    }
+
+
+    // Replaces the user's list with the changed copy, keeping its last use time.
+    private void update(int userPK, Change change) {
+        Lock lock = userLocks.lockFor(userPK);
+        lock.lock();
+        try {
+            Entry entry = entries.get(userPK);
+            if (entry != null) {
+                entries.put(userPK, new Entry(List.copyOf(change.apply(entry.items)), entry.lastUsedAt));
+                updates.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    // Returns a copy of the list with the reservation placed by its ID, newest first.
+    private static List<ReservationItem> withItem(List<ReservationItem> items, ReservationItem item) {
+        List<ReservationItem> next = new ArrayList<>(items.size() + 1);
+        boolean placed = false;
+        for (ReservationItem existing : items) {
+            if (existing.getReservationID() == item.getReservationID()) {
+                continue; // already loaded with the booking
+            }
+            if (!placed && existing.getReservationID() < item.getReservationID()) {
+                next.add(item);
+                placed = true;
+            }
+            next.add(existing);
+        }
+        if (!placed) {
+            next.add(item);
+        }
+        return next;
+    }
+
+
+    // Removes expired lists, at most once per idle timeout.
+    private void sweep(long now) {
+        long sweepAt = nextSweepAt.get();
+        if (now >= sweepAt && nextSweepAt.compareAndSet(sweepAt, now + idleTimeoutMillis)) {
+            entries.values().removeIf(existing -> now - existing.lastUsedAt >= idleTimeoutMillis);
+        }
+    }
+}
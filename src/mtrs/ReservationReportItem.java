@@ -0,0 +1,58 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ReservationReportItem.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+
+@SuppressWarnings("serial")
+public class ReservationReportItem implements Serializable {
+    private int reservationID;
+    private String username;
+    private String showDetails;
+    private int numTickets;
+    private String reservationTime;
+    private double amountPaid;
+
+    public ReservationReportItem(int reservationID, String username, String showDetails, int numTickets,
+            String reservationTime, double amountPaid) {
+        this.reservationID = reservationID;
+        this.username = username;
+        this.showDetails = showDetails;
+        this.numTickets = numTickets;
+        this.reservationTime = reservationTime;
+        this.amountPaid = amountPaid;
+    }
+
+    public int getReservationID() {
+        return reservationID;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getShowDetails() {
+        return showDetails;
+    }
+
+    public int getNumTickets() {
+        return numTickets;
+    }
+
+    public String getReservationTime() {
+        return reservationTime;
+    }
+
+    public double getAmountPaid() {
+        return amountPaid;
+    }
+}
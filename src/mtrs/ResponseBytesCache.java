@@ -0,0 +1,150 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ResponseBytesCache.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the encoded bytes of catalog responses, so each catalog version is serialized once
+ * rather than once per request.
+ * - Only responses of the configured request types are cached; their handlers must return immutable
+ *   snapshots, with a new object for every new version.
+ * - One entry per request type; it is reused while the handler returns the very same response object.
+ * - Both encodings are kept, each built on first use: the binary wire protocol body and a
+ *   self-contained Java serialization stream.
+ */
+public class ResponseBytesCache {
+    /** Length of the magic number and version that start every object stream. */
+    public static final int STREAM_HEADER_BYTES = 4;
+
+    private static final class Entry {
+        private final Object response;
+        private volatile byte[] binary;
+        private volatile byte[] serialized;
+
+        Entry(Object response) {
+            this.response = response;
+        }
+    }
+
+    private final Set<String> cachedRequests;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder encodings = new LongAdder();
+    private final LongAdder reuses = new LongAdder();
+
+
+    /**
+     * Creates the cache.
+     *
+     * @param cachedRequests The request types whose responses are immutable snapshots.
+     */
+    public ResponseBytesCache(Set<String> cachedRequests) {
+        this.cachedRequests = Set.copyOf(cachedRequests);
+    }
+
+
+    /**
+     * Checks whether responses to a request type are cached.
+     *
+     * @param requestType The command string.
+     * @return True if the type's responses are served from cached bytes.
+     */
+    public boolean isCached(String requestType) {
+        return cachedRequests.contains(requestType);
+    }
+
+
+    /**
+     * Returns the binary wire protocol body for a response.
+     *
+     * @param requestType The command string the response answers.
+     * @param response The response object.
+     * @return The encoded body (shared; must not be modified).
+     * @throws IOException If the response cannot be encoded.
+     */
+    public byte[] binary(String requestType, Object response) throws IOException {
+        if (!isCached(requestType)) {
+            return WireProtocol.encodeResponse(response);
+        }
+        Entry entry = entryFor(requestType, response);
+        byte[] bytes = entry.binary;
+        if (bytes == null) {
+            encodings.increment();
+            bytes = WireProtocol.encodeResponse(response);
+            entry.binary = bytes;
+        } else {
+            reuses.increment();
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Returns a self-contained object stream holding just the response.
+     * The object itself starts at STREAM_HEADER_BYTES; those bytes can be written to an existing
+     * object stream right after it has been reset.
+     *
+     * @param requestType The command string the response answers.
+     * @param response The response object.
+     * @return The serialized stream (shared; must not be modified).
+     * @throws IOException If the response cannot be serialized.
+     */
+    public byte[] serialized(String requestType, Object response) throws IOException {
+        if (!isCached(requestType)) {
+            return serialize(response);
+        }
+        Entry entry = entryFor(requestType, response);
+        byte[] bytes = entry.serialized;
+        if (bytes == null) {
+            encodings.increment();
+            bytes = serialize(response);
+            entry.serialized = bytes;
+        } else {
+            reuses.increment();
+        }
+        return bytes;
+    }
+
+
+    public long getEncodings() {
+        return encodings.sum();
+    }
+
+
+    public long getReuses() {
+        return reuses.sum();
+    }
+
+
+    private Entry entryFor(String requestType, Object response) {
+        Entry entry = entries.get(requestType);
+        if (entry == null || entry.response != response) {
+            entry = new Entry(response);
+            entries.put(requestType, entry);
+        }
+        return entry;
+    }
+
+
+    private static byte[] serialize(Object response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(response);
+        }
+        return bytes.toByteArray();
+    }
+}
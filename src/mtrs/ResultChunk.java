@@ -0,0 +1,48 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ResultChunk.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One chunk of a streamed response (e.g., GET_RESERVATION_REPORT).
+ * - The server sends the rows in chunks as it reads them, so neither side holds the whole result.
+ * - The last chunk is the end marker: it carries the remaining rows (possibly none), and an error
+ *   message if the server had to stop early. Rows sent before an error are still valid.
+ *
+ * @param <T> The streamed rows.
+ */
+@SuppressWarnings("serial")
+public class ResultChunk<T> implements Serializable {
+    private List<T> rows;
+    private boolean end;
+    private String error;
+
+    public ResultChunk(List<T> rows, boolean end, String error) {
+        this.rows = rows;
+        this.end = end;
+        this.error = error;
+    }
+
+    public List<T> getRows() {
+        return rows;
+    }
+
+    public boolean isEnd() {
+        return end;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
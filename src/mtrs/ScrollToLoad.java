@@ -0,0 +1,89 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ScrollToLoad.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.function.BooleanSupplier;
+
+import javax.swing.BoundedRangeModel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads further pages of a paged table as the user scrolls towards its end.
+ * - A page is loaded when less than one screen of rows is left below the visible part.
+ * - Keeps loading while the loaded rows do not yet fill the view, so a short first page
+ *   never leaves the table without a scroll bar to trigger the next one.
+ * - Waits until the table is on screen, so hidden tabs do not load pages nobody sees.
+ * - Loads one page at a time; all calls happen on the Swing event thread.
+ */
+public class ScrollToLoad {
+    private final JScrollPane scrollPane;
+    private final BooleanSupplier hasMore;
+    private final BooleanSupplier loadMore;
+    private boolean loading = false;
+
+
+    private ScrollToLoad(JScrollPane scrollPane, BooleanSupplier hasMore, BooleanSupplier loadMore) {
+        this.scrollPane = scrollPane;
+        this.hasMore = hasMore;
+        this.loadMore = loadMore;
+    }
+
+
+    /**
+     * Starts watching a scroll pane.
+     *
+     * @param scrollPane The scroll pane around the paged table.
+     * @param hasMore Tells whether another page remains to be loaded.
+     * @param loadMore Loads the next page and adds it to the table; returns false if it could not be loaded.
+     * @return The installed loader; call checkSoon() after replacing the table's first page.
+     */
+    public static ScrollToLoad install(JScrollPane scrollPane, BooleanSupplier hasMore, BooleanSupplier loadMore) {
+        ScrollToLoad loader = new ScrollToLoad(scrollPane, hasMore, loadMore);
+        scrollPane.getVerticalScrollBar().getModel().addChangeListener(e -> loader.check());
+        return loader;
+    }
+
+
+    /**
+     * Checks, once the table has been laid out, whether the next page is needed yet.
+     */
+    public void checkSoon() {
+        SwingUtilities.invokeLater(this::check);
+    }
+
+
+    private void check() {
+        if (loading || !hasMore.getAsBoolean()) {
+            return;
+        }
+        BoundedRangeModel range = scrollPane.getVerticalScrollBar().getModel();
+        if (range.getExtent() == 0) {
+            return; // not laid out yet
+        }
+        int below = range.getMaximum() - (range.getValue() + range.getExtent());
+        if (below > range.getExtent()) {
+            return;
+        }
+        boolean loaded;
+        loading = true;
+        try {
+            loaded = loadMore.getAsBoolean();
+        } finally {
+            loading = false;
+        }
+        // After a failure, wait for the next scroll rather than retrying in a loop.
+        if (loaded) {
+            checkSoon();
+        }
+    }
+}
@@ -0,0 +1,269 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SeatInventory.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory seat counters for every show, used to admit or reject bookings before touching the database.
+ * - Loaded from the shows table at startup and kept in step by the server's show and booking handlers.
+ * - Seats are taken with a compare-and-set loop, so concurrent bookings can never take more seats than exist.
+ * - A booking that later fails in the database gives its seats back with release().
+ * - A booking whose commit outcome is unknown keeps its seats and marks the counts stale; they are then
+ *   read again from the database once no booking or cancellation is running.
+ * - Assumes the server is the only writer of shows.availableSeats while it runs.
+ */
+public class SeatInventory {
+
+    /**
+     * Seat counter and booking-relevant details of one show.
+     */
+    public static final class ShowSeats {
+        private final int showPK;
+        private final int moviePK;
+        private final LocalDateTime startsAt;
+        private final int roomNumber;
+        private final double price;
+        private final AtomicInteger availableSeats;
+
+        ShowSeats(int showPK, int moviePK, LocalDateTime startsAt, int roomNumber, double price, int availableSeats) {
+            this.showPK = showPK;
+            this.moviePK = moviePK;
+            this.startsAt = startsAt;
+            this.roomNumber = roomNumber;
+            this.price = price;
+            this.availableSeats = new AtomicInteger(availableSeats);
+        }
+
+        /**
+         * Takes the requested number of seats if that many are still available.
+         *
+         * @param numTickets The number of seats to take (must be positive).
+         * @return True if the seats were taken, false if not enough seats are left.
+         */
+        public boolean tryReserve(int numTickets) {
+            while (true) {
+                int current = availableSeats.get();
+                if (current < numTickets) {
+                    return false;
+                }
+                if (availableSeats.compareAndSet(current, current - numTickets)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Gives seats back, after a failed booking or a cancellation.
+         *
+         * @param numTickets The number of seats to return.
+         */
+        public void release(int numTickets) {
+            availableSeats.addAndGet(numTickets);
+        }
+
+        public int getShowPK() {
+            return showPK;
+        }
+
+        public int getMoviePK() {
+            return moviePK;
+        }
+
+        public LocalDateTime getStartsAt() {
+            return startsAt;
+        }
+
+        public int getRoomNumber() {
+            return roomNumber;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public int getAvailableSeats() {
+            return availableSeats.get();
+        }
+    }
+
+
+    private final ConcurrentHashMap<Integer, ShowSeats> shows = new ConcurrentHashMap<>();
+    // Shared by seat changes in progress, exclusive while the counts are reloaded
+    private final ReentrantReadWriteLock seatChanges = new ReentrantReadWriteLock();
+    private volatile boolean stale = false;
+
+
+    /**
+     * Loads every show and its remaining seats from the database, replacing any earlier contents.
+     *
+     * @param conn An open database connection.
+     * @throws SQLException If the shows cannot be read.
+     */
+    public void load(Connection conn) throws SQLException {
+        String query = "SELECT showPK, moviePK, showdate, showtime, roomnumber, availableseats, price FROM shows";
+        try (PreparedStatement pstmt = conn.prepareStatement(query);
+                ResultSet rs = pstmt.executeQuery()) {
+            shows.clear();
+            while (rs.next()) {
+                LocalDateTime startsAt = LocalDateTime.of(rs.getDate("showdate").toLocalDate(),
+                        rs.getTime("showtime").toLocalTime());
+                put(rs.getInt("showPK"), rs.getInt("moviePK"), startsAt, rs.getInt("roomnumber"),
+                        rs.getDouble("price"), rs.getInt("availableseats"));
+            }
+        }
+    }
+
+
+    /**
+     * Returns the seat counter of a show.
+     *
+     * @param showPK The show's primary key.
+     * @return The show's seats, or null if the show is unknown.
+     */
+    public ShowSeats get(int showPK) {
+        return shows.get(showPK);
+    }
+
+
+    /**
+     * Adds (or replaces) a show, e.g., after it was inserted into the database.
+     *
+     * @param showPK The show's primary key.
+     * @param moviePK The movie shown.
+     * @param startsAt The show date and time.
+     * @param roomNumber The theater room.
+     * @param price The ticket price.
+     * @param availableSeats The number of seats still available.
+     */
+    public void put(int showPK, int moviePK, LocalDateTime startsAt, int roomNumber, double price, int availableSeats) {
+        shows.put(showPK, new ShowSeats(showPK, moviePK, startsAt, roomNumber, price, availableSeats));
+    }
+
+
+    /**
+     * Removes a deleted show.
+     *
+     * @param showPK The show's primary key.
+     */
+    public void remove(int showPK) {
+        shows.remove(showPK);
+    }
+
+
+    /**
+     * Removes every show of a deleted movie.
+     *
+     * @param moviePK The movie's primary key.
+     */
+    public void removeMovie(int moviePK) {
+        shows.values().removeIf(seats -> seats.getMoviePK() == moviePK);
+    }
+
+
+    /**
+     * Gives seats back to a show, if it still exists.
+     *
+     * @param showPK The show's primary key.
+     * @param numTickets The number of seats to return.
+     */
+    public void release(int showPK, int numTickets) {
+        ShowSeats seats = shows.get(showPK);
+        if (seats != null) {
+            seats.release(numTickets);
+        }
+    }
+
+
+    /**
+     * Returns the lock that bookings and cancellations hold (shared) from taking or giving back seats
+     * until their outcome is applied, so a reload never sees a change half done.
+     * - Take it before any show lock or pooled connection.
+     *
+     * @return The shared side of the seat change lock.
+     */
+    public Lock changeLock() {
+        return seatChanges.readLock();
+    }
+
+
+    /**
+     * Marks the seat counts as possibly wrong, e.g., after a commit whose outcome is unknown.
+     */
+    public void markStale() {
+        stale = true;
+    }
+
+
+    public boolean isStale() {
+        return stale;
+    }
+
+
+    /**
+     * Reads the seat counts of the known shows again if they were marked stale.
+     * - Waits for the seat changes in progress and holds new ones back until it is done, so the counts
+     *   match the database; the connection is borrowed only after that wait.
+     * - Updates the counters in place, so callers holding a ShowSeats keep using the live counter.
+     * - Shows added or removed meanwhile are left to put() and remove().
+     *
+     * @param connectionPool The pool to borrow the reload's connection from.
+     * @return The seats gained (or lost) by each show whose count was wrong; empty if nothing was reloaded.
+     * @throws SQLException If the counts cannot be read; they stay marked stale then.
+     */
+    public Map<Integer, Integer> reloadIfStale(ConnectionPool connectionPool) throws SQLException {
+        Map<Integer, Integer> corrections = new HashMap<>();
+        if (!stale) {
+            return corrections;
+        }
+        Lock reloadLock = seatChanges.writeLock();
+        reloadLock.lock();
+        try {
+            if (!stale) {
+                return corrections; // another thread reloaded while this one waited
+            }
+            Map<Integer, Integer> storedSeats = new HashMap<>();
+            String query = "SELECT showPK, availableseats FROM shows";
+            try (Connection conn = connectionPool.getConnection();
+                    PreparedStatement pstmt = conn.prepareStatement(query);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    storedSeats.put(rs.getInt("showPK"), rs.getInt("availableseats"));
+                }
+            }
+            // Apply only a complete read, so a failed one leaves every counter as it was.
+            storedSeats.forEach((showPK, stored) -> {
+                ShowSeats seats = shows.get(showPK);
+                if (seats != null) {
+                    int held = seats.availableSeats.getAndSet(stored);
+                    if (held != stored) {
+                        corrections.put(showPK, stored - held);
+                    }
+                }
+            });
+            stale = false;
+            return corrections;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SeatUpdate.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+
+/**
+ * A show's new seat count, pushed to SUBSCRIBE_SHOWS subscribers after a booking or cancellation commits.
+ */
+@SuppressWarnings("serial")
+public class SeatUpdate implements Serializable {
+    private int showID;
+    private int availableSeats;
+
+    public SeatUpdate(int showID, int availableSeats) {
+        this.showID = showID;
+        this.availableSeats = availableSeats;
+    }
+
+    public int getShowID() {
+        return showID;
+    }
+
+    public int getAvailableSeats() {
+        return availableSeats;
+    }
+}
@@ -0,0 +1,139 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SeatUpdatePublisher.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans seat-count changes out to every SUBSCRIBE_SHOWS subscriber.
+ * - publish() only enqueues, so it can be called while the show catalog's lock is held; changes therefore
+ *   arrive in commit order.
+ * - A dedicated thread takes whatever changes have queued up, keeps the latest count per show, encodes them
+ *   once as a single push frame, and offers that frame to every subscriber.
+ * - After each frame it waits intervalMillis, so a burst of bookings reaches subscribers as a few
+ *   frames rather than one per booking.
+ * - A subscriber whose buffer is full is dropped and its connection closed; when it reconnects it
+ *   subscribes again and reloads its lists.
+ */
+public class SeatUpdatePublisher implements Runnable {
+    private final long intervalMillis;
+    private final LinkedBlockingQueue<SeatUpdate> updates = new LinkedBlockingQueue<>();
+    private final Set<PushChannel> subscribers = ConcurrentHashMap.newKeySet();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder subscribersDropped = new LongAdder();
+
+
+    /**
+     * Creates the publisher.
+     *
+     * @param intervalMillis The minimum time between two push frames.
+     */
+    public SeatUpdatePublisher(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+
+    /**
+     * Starts the publisher thread.
+     */
+    public void start() {
+        Thread t = new Thread(this, "seat-update-publisher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+
+    /**
+     * Registers a connection for seat updates; registering it again has no effect.
+     *
+     * @param channel The subscriber's connection.
+     */
+    public void subscribe(PushChannel channel) {
+        subscribers.add(channel);
+    }
+
+
+    /**
+     * Queues a show's new seat count for all subscribers.
+     *
+     * @param showID The show's primary key.
+     * @param availableSeats The seats left after the committed change.
+     */
+    public void publish(int showID, int availableSeats) {
+        updates.add(new SeatUpdate(showID, availableSeats));
+    }
+
+
+    @Override
+    public void run() {
+        List<SeatUpdate> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(updates.take());
+                updates.drainTo(batch);
+                Map<Integer, SeatUpdate> latest = new LinkedHashMap<>();
+                for (SeatUpdate update : batch) {
+                    latest.put(update.getShowID(), update);
+                }
+                batch.clear();
+                if (!subscribers.isEmpty()) {
+                    fanOut(WireProtocol.withCorrelationId(WireProtocol.PUSH_CORRELATION_ID,
+                            WireProtocol.encodeResponse(new ArrayList<>(latest.values()))));
+                }
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Error encoding seat updates: " + e.getMessage());
+            }
+        }
+    }
+
+
+    private void fanOut(byte[] frame) {
+        for (PushChannel channel : subscribers) {
+            if (channel.offer(frame)) {
+                framesSent.increment();
+            } else {
+                subscribers.remove(channel);
+                if (channel.isOpen()) {
+                    subscribersDropped.increment();
+                    System.out.println("Dropping slow seat-update subscriber");
+                    channel.close();
+                }
+            }
+        }
+    }
+
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+
+    public long getSubscribersDropped() {
+        return subscribersDropped.sum();
+    }
+}
@@ -0,0 +1,518 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SelectorServer.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking front end for the reservation server.
+ * - A single acceptor hands new sockets to a few selector (I/O) threads, round robin.
+ * - I/O threads only read and write bytes; idle connections cost a few small objects and no thread.
+ * - Requests are length-prefixed frames: a 4-byte big-endian body length followed by the body.
+ * - Complete frames are handed to a worker pool, which decodes them and runs the JDBC handlers.
+ * - Responses are queued back to the owning I/O thread and written with gathering writes.
+ * - Frames from one connection are processed one at a time, so responses keep request order,
+ *   unless the connection's handler allows pipelining; then up to maxConcurrentFrames() run at once.
+ * - A connection stops being read while MAX_QUEUED_FRAMES of its frames wait behind those being handled,
+ *   or pushBufferFrames replies wait to be written, so a client that sends without reading replies
+ *   cannot make the server buffer without bound (as a blocking front end stops reading when its write blocks).
+ * - Handlers may also push frames to their connection; pushes are refused while too many frames
+ *   are still waiting to be written.
+ * - Handlers may route a frame to an executor of their own instead of the shared workers.
+ */
+public class SelectorServer {
+
+    /**
+     * Turns one request frame body into one response frame body.
+     * A new handler is created for every connection, so it may keep per-connection state.
+     */
+    public interface FrameHandler {
+        byte[] handleFrame(byte[] frame) throws Exception;
+
+        /**
+         * How many frames from this connection may be handled at the same time.
+         * - 1 (the default) keeps responses in request order.
+         * - Larger values require responses that identify their request (e.g., by correlation ID),
+         *   and a handler that is safe to call from several worker threads.
+         * Consulted for every received frame, so it may change after a protocol handshake.
+         */
+        default int maxConcurrentFrames() {
+            return 1;
+        }
+
+        /**
+         * The executor that should handle a frame, e.g., a separate pool for requests that write data.
+         *
+         * @param frame The received frame body.
+         * @return The executor, or null (the default) for the shared workers.
+         */
+        default Executor executorFor(byte[] frame) {
+            return null;
+        }
+
+        /**
+         * Called once, before the first frame, with the channel for pushing frames to this connection.
+         */
+        default void opened(PushChannel channel) {
+        }
+    }
+
+    private static final int MAX_FRAME_BYTES   = 1 << 20;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_GATHER_BUFFERS = 64;
+    private static final int MAX_QUEUED_FRAMES  = 8;
+
+    private final ServerSocketChannel serverChannel;
+    private final IoLoop[] ioLoops;
+    private final ExecutorService workers;
+    private final Semaphore connectionPermits;
+    private final Supplier<FrameHandler> handlerFactory;
+    private final byte[] busyReply;
+    private final int pushBufferFrames;
+
+
+    /**
+     * Creates the selector front end.
+     *
+     * @param serverChannel A bound server channel; it is used in blocking mode by the acceptor.
+     * @param ioThreads The number of selector threads sharing the connections.
+     * @param workers The pool that decodes frames and runs request handlers.
+     * @param connectionPermits Limits the number of concurrently open connections.
+     * @param handlerFactory Creates the frame handler for each new connection.
+     * @param busyReply The frame body sent to connections refused because the server is full.
+     * @param pushBufferFrames How many frames may wait to be written before pushes to a connection are refused.
+     * @throws IOException If a selector cannot be opened.
+     */
+    public SelectorServer(ServerSocketChannel serverChannel, int ioThreads, ExecutorService workers,
+            Semaphore connectionPermits, Supplier<FrameHandler> handlerFactory, byte[] busyReply,
+            int pushBufferFrames) throws IOException {
+        this.serverChannel = serverChannel;
+        this.workers = workers;
+        this.connectionPermits = connectionPermits;
+        this.handlerFactory = handlerFactory;
+        this.busyReply = busyReply;
+        this.pushBufferFrames = pushBufferFrames;
+        this.ioLoops = new IoLoop[Math.max(1, ioThreads)];
+        for (int i = 0; i < ioLoops.length; i++) {
+            ioLoops[i] = new IoLoop();
+        }
+    }
+
+
+    /**
+     * Starts the I/O threads and runs the accept loop on the calling thread.
+     * - Refuses connections beyond the permit limit with the busy reply.
+     * - Registers every accepted socket with the next I/O thread.
+     */
+    public void run() {
+        for (int i = 0; i < ioLoops.length; i++) {
+            Thread t = new Thread(ioLoops[i], "selector-io-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        int next = 0;
+        while (true) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (!connectionPermits.tryAcquire()) {
+                    rejectBusyClient(channel);
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                ioLoops[next].register(channel);
+                next = (next + 1) % ioLoops.length;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    /**
+     * Writes the busy reply frame to a refused connection and closes it.
+     *
+     * @param channel The refused channel, still in blocking mode.
+     */
+    private void rejectBusyClient(SocketChannel channel) {
+        try (SocketChannel rejected = channel) {
+            ByteBuffer header = ByteBuffer.allocate(4).putInt(0, busyReply.length);
+            rejected.write(new ByteBuffer[] { header, ByteBuffer.wrap(busyReply) });
+        } catch (IOException e) {
+            System.err.println("Error rejecting client: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * One selector thread and the connections registered with it.
+     */
+    private class IoLoop implements Runnable {
+        private final Selector selector;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+        private final Queue<Connection> pendingResumes = new ConcurrentLinkedQueue<>();
+
+        IoLoop() throws IOException {
+            selector = Selector.open();
+        }
+
+        void register(SocketChannel channel) {
+            pendingRegistrations.add(channel);
+            selector.wakeup();
+        }
+
+        void requestWrite(Connection connection) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+
+        void requestResume(Connection connection) {
+            pendingResumes.add(connection);
+            selector.wakeup();
+        }
+
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registerPending();
+                    flushPending();
+                    resumePending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isValid() && key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pendingRegistrations.poll()) != null) {
+                Connection connection = new Connection(this, channel);
+                try {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                } catch (ClosedChannelException e) {
+                    connection.close();
+                }
+            }
+        }
+
+        private void flushPending() {
+            Connection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                connection.flush();
+            }
+        }
+
+        private void resumePending() {
+            Connection connection;
+            while ((connection = pendingResumes.poll()) != null) {
+                connection.checkReading();
+            }
+        }
+
+        private void read(Connection connection) {
+            try {
+                while (!connection.readPaused) {
+                    readBuffer.clear();
+                    int count = connection.channel.read(readBuffer);
+                    if (count < 0) {
+                        connection.close();
+                        return;
+                    }
+                    if (count == 0) {
+                        return;
+                    }
+                    readBuffer.flip();
+                    connection.consume(readBuffer);
+                    if (count < READ_BUFFER_BYTES) {
+                        return;
+                    }
+                }
+            } catch (IOException | CancelledKeyException e) {
+                connection.close();
+            }
+        }
+    }
+
+
+    /**
+     * State for a single client connection.
+     * - Reassembles frames from whatever byte chunks arrive; only a partially received frame is buffered.
+     * - Queues complete frames so that at most maxConcurrentFrames() are being handled at a time,
+     *   and stops reading while too many frames are queued or too many replies are unwritten.
+     * - Holds the outbound buffers until the I/O thread has written them.
+     */
+    private class Connection implements PushChannel {
+        private final IoLoop loop;
+        private final SocketChannel channel;
+        private final FrameHandler handler;
+        private SelectionKey key;
+
+        // Inbound frame assembly (I/O thread only).
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private byte[] body;
+        private int bodyPosition;
+
+        // Request sequencing (guarded by this).
+        private final Queue<byte[]> queuedFrames = new ArrayDeque<>();
+        private int inFlight;
+
+        // Interest set (changed by the I/O thread only).
+        private volatile boolean readPaused;
+        private boolean writeWaiting;
+
+        // Outbound buffers (guarded by outbound).
+        private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        Connection(IoLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+            this.handler = handlerFactory.get();
+            handler.opened(this);
+        }
+
+        void consume(ByteBuffer in) {
+            while (in.hasRemaining()) {
+                if (body == null) {
+                    while (header.hasRemaining() && in.hasRemaining()) {
+                        header.put(in.get());
+                    }
+                    if (header.hasRemaining()) {
+                        return;
+                    }
+                    int length = header.getInt(0);
+                    header.clear();
+                    if (length < 0 || length > MAX_FRAME_BYTES) {
+                        System.err.println("Closing connection: invalid frame length " + length);
+                        close();
+                        return;
+                    }
+                    body = new byte[length];
+                    bodyPosition = 0;
+                }
+                int count = Math.min(in.remaining(), body.length - bodyPosition);
+                in.get(body, bodyPosition, count);
+                bodyPosition += count;
+                if (bodyPosition == body.length) {
+                    byte[] frame = body;
+                    body = null;
+                    frameReceived(frame);
+                    checkReading();
+                }
+            }
+        }
+
+        private synchronized void frameReceived(byte[] frame) {
+            queuedFrames.add(frame);
+            submitReadyFrames();
+        }
+
+        // I/O thread only; pauses reading while the connection is backlogged, and resumes it once it is not.
+        void checkReading() {
+            boolean backlogged;
+            synchronized (this) {
+                backlogged = queuedFrames.size() >= MAX_QUEUED_FRAMES;
+            }
+            synchronized (outbound) {
+                // Two buffers (length and body) per frame.
+                backlogged |= outbound.size() / 2 >= pushBufferFrames;
+            }
+            if (backlogged != readPaused) {
+                readPaused = backlogged;
+                updateInterest();
+            }
+        }
+
+        // I/O thread only.
+        private void updateInterest() {
+            try {
+                key.interestOps((readPaused ? 0 : SelectionKey.OP_READ) | (writeWaiting ? SelectionKey.OP_WRITE : 0));
+            } catch (CancelledKeyException e) {
+                close();
+            }
+        }
+
+        // Guarded by this; submitting only enqueues work, so it is safe to hold the lock.
+        private void submitReadyFrames() {
+            while (inFlight < handler.maxConcurrentFrames() && !queuedFrames.isEmpty()) {
+                inFlight++;
+                submit(queuedFrames.poll());
+            }
+        }
+
+        private void submit(byte[] frame) {
+            Executor executor = handler.executorFor(frame);
+            try {
+                (executor != null ? executor : workers).execute(() -> process(frame));
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void process(byte[] frame) {
+            try {
+                byte[] response = handler.handleFrame(frame);
+                if (response != null) {
+                    send(response);
+                }
+            } catch (Exception e) {
+                System.err.println("Closing connection after bad request: " + e);
+                close();
+                return;
+            }
+
+            // The limit may have grown (e.g., after a handshake), so fill every free slot.
+            synchronized (this) {
+                inFlight--;
+                submitReadyFrames();
+                if (readPaused) {
+                    loop.requestResume(this);
+                }
+            }
+        }
+
+        void send(byte[] response) {
+            if (closed.get()) {
+                return;
+            }
+            synchronized (outbound) {
+                outbound.add(ByteBuffer.allocate(4).putInt(0, response.length));
+                outbound.add(ByteBuffer.wrap(response));
+            }
+            loop.requestWrite(this);
+        }
+
+        @Override
+        public boolean offer(byte[] frame) {
+            if (closed.get()) {
+                return false;
+            }
+            synchronized (outbound) {
+                // Two buffers (length and body) per frame.
+                if (outbound.size() / 2 >= pushBufferFrames) {
+                    return false;
+                }
+                outbound.add(ByteBuffer.allocate(4).putInt(0, frame.length));
+                outbound.add(ByteBuffer.wrap(frame));
+            }
+            loop.requestWrite(this);
+            return true;
+        }
+
+        @Override
+        public void write(byte[] frame) throws IOException {
+            synchronized (outbound) {
+                // Woken by flush() as buffers drain, and by close().
+                while (!closed.get() && outbound.size() / 2 >= pushBufferFrames) {
+                    try {
+                        outbound.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting to write.");
+                    }
+                }
+                if (closed.get()) {
+                    throw new IOException("Connection closed.");
+                }
+                outbound.add(ByteBuffer.allocate(4).putInt(0, frame.length));
+                outbound.add(ByteBuffer.wrap(frame));
+            }
+            loop.requestWrite(this);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed.get();
+        }
+
+        void flush() {
+            if (closed.get()) {
+                return;
+            }
+            try {
+                boolean full = false;
+                synchronized (outbound) {
+                    while (!outbound.isEmpty() && !full) {
+                        ByteBuffer[] buffers = outbound.stream().limit(MAX_GATHER_BUFFERS).toArray(ByteBuffer[]::new);
+                        channel.write(buffers);
+                        while (!outbound.isEmpty() && !outbound.peek().hasRemaining()) {
+                            outbound.poll();
+                        }
+                        outbound.notifyAll();
+                        // If the socket buffer is full, wait until the selector reports it writable.
+                        full = buffers[buffers.length - 1].hasRemaining();
+                    }
+                }
+                writeWaiting = full;
+                updateInterest();
+                checkReading();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (key != null) {
+                key.cancel();
+            }
+            synchronized (outbound) {
+                outbound.notifyAll();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already gone.
+            }
+            connectionPermits.release();
+        }
+    }
+}
@@ -0,0 +1,636 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ServerConnection.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A long-lived client connection to the reservation server, shared by every request a client makes.
+ * - Connects lazily, negotiates the binary wire protocol, and keeps the socket open between requests.
+ * - Requests are pipelined: several may be in flight at once, and a reader thread matches each
+ *   response to its request by correlation ID (protocol version 2), or by order with older servers.
+ * - Reconnects on the next request after a failure; read-only requests and keyed bookings are retried once right away.
+ * - Sends a PING when the connection has been idle, so dead connections are noticed and replaced early.
+ * - Can hold one subscription (e.g., SUBSCRIBE_SHOWS): pushed frames go to its listener, and the
+ *   subscription is renewed on a new connection whenever the old one is lost.
+ * - Streamed responses (e.g., GET_RESERVATION_REPORT) arrive as several chunks; they only time out
+ *   when no chunk arrives for the read timeout.
+ */
+public class ServerConnection implements AutoCloseable {
+    private static final int CONNECT_TIMEOUT_MILLIS   = 3_000;
+    private static final int READ_TIMEOUT_MILLIS      = 15_000;
+    private static final long HEARTBEAT_PERIOD_MILLIS = 30_000;
+    private static final long RESUBSCRIBE_DELAY_MILLIS = 2_000;
+
+    // Requests that only read data and can safely be sent again after a failure.
+    private static final Set<String> RETRYABLE_REQUESTS = Set.of(
+            "GET_MOVIES", "GET_SHOWS", "GET_AVAILABLE_SHOWS", "GET_CUSTOMER_RESERVATIONS", "GET_USER_INFO", "PING",
+            "GET_SHOWS_SINCE", "GET_SHOWS_PAGE", "GET_CUSTOMER_RESERVATIONS_PAGE", "STATS", "GET_SESSION_USER_INFO",
+            "GET_SESSION_RESERVATIONS");
+
+    private final String hostname;
+    private final int port;
+    private final ScheduledExecutorService heartbeat;
+    private final AtomicInteger nextCorrelationId = new AtomicInteger();
+    private volatile String subscription; // request type to renew on every new connection
+    private volatile PushListener pushListener;
+
+    private Link link; // guarded by this
+
+
+    /**
+     * The consumer of a streamed response, and when it last received a chunk.
+     */
+    private static final class ChunkStream {
+        private final Consumer<ResultChunk<?>> consumer;
+        private volatile long lastChunkAt = System.currentTimeMillis();
+
+        ChunkStream(Consumer<ResultChunk<?>> consumer) {
+            this.consumer = consumer;
+        }
+    }
+
+
+    /**
+     * Receives a subscription's pushed frames on the connection's reader thread.
+     */
+    public interface PushListener {
+        /**
+         * Called when the server has accepted the subscription.
+         *
+         * @param renewed True if this replaces a subscription lost with an earlier connection;
+         *                pushes may have been missed meanwhile.
+         */
+        void subscribed(boolean renewed);
+
+        void pushed(Object message);
+    }
+
+
+    /**
+     * Creates a connection to the given server; the socket is opened on first use.
+     *
+     * @param hostname The server hostname.
+     * @param port The server port number.
+     */
+    public ServerConnection(String hostname, int port) {
+        this.hostname = hostname;
+        this.port = port;
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "server-connection-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, HEARTBEAT_PERIOD_MILLIS,
+                HEARTBEAT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Sends a request and waits for its response.
+     * - Opens (or reopens) the connection if needed.
+     * - On a communication failure the connection is dropped; read-only requests, and bookings that carry
+     *   an idempotency key, are retried once.
+     *
+     * @param requestType The command string (e.g., "GET_SHOWS").
+     * @param payload The request payload, or null for requests that carry none.
+     * @return The decoded response (a String, UserProfile, List, or null).
+     * @throws IOException If the server cannot be reached or the exchange fails.
+     */
+    public Object request(String requestType, Object payload) throws IOException {
+        boolean reused = isConnected();
+        try {
+            return await(send(requestType, payload));
+        } catch (IOException e) {
+            // A reused connection may simply have gone stale; try a fresh one for safe requests.
+            if (reused && isRetryable(requestType, payload)) {
+                return await(send(requestType, payload));
+            }
+            throw e;
+        }
+    }
+
+
+    /**
+     * Checks whether a request can safely be sent again after a failure.
+     *
+     * @param requestType The command string.
+     * @param payload The request payload.
+     * @return True for read-only requests and for bookings the server can recognize as repeats.
+     */
+    private static boolean isRetryable(String requestType, Object payload) {
+        return RETRYABLE_REQUESTS.contains(requestType)
+                || (payload instanceof BookingRequest booking && booking.getIdempotencyKey() != null);
+    }
+
+
+    /**
+     * Sends a request without waiting for its response.
+     * - Any number of requests may be outstanding on the shared connection at the same time.
+     * - The returned future completes with the decoded response, or fails with an IOException
+     *   if the server cannot be reached, the connection breaks, or no response arrives in time.
+     *
+     * @param requestType The command string (e.g., "GET_SHOWS").
+     * @param payload The request payload, or null for requests that carry none.
+     * @return A future for the response; use {@link #await(CompletableFuture)} to wait for it.
+     */
+    public CompletableFuture<Object> send(String requestType, Object payload) {
+        try {
+            byte[] body = WireProtocol.encodeRequest(requestType, payload);
+            return connectedLink().send(body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+
+    /**
+     * Sends a request whose response is streamed in chunks, and waits for the last chunk.
+     * - Each chunk, the last one included, is passed to the consumer as it arrives, on the
+     *   connection's reader thread; the consumer should hand the rows off quickly.
+     * - Not retried after a failure, since some chunks may already have been consumed.
+     * - Requires protocol version 2.
+     *
+     * @param requestType The command string (e.g., "GET_RESERVATION_REPORT").
+     * @param payload The request payload, or null for requests that carry none.
+     * @param chunks Receives the chunks in order.
+     * @return The last chunk, or the server's reply if it did not stream (e.g., an error message).
+     * @throws IOException If the server cannot be reached, the connection breaks, or a chunk is late.
+     */
+    public Object stream(String requestType, Object payload, Consumer<ResultChunk<?>> chunks) throws IOException {
+        Link current = connectedLink();
+        if (!current.pipelined) {
+            throw new ProtocolException("Streamed responses require protocol version 2.");
+        }
+        return await(current.send(WireProtocol.encodeRequest(requestType, payload), chunks));
+    }
+
+
+    /**
+     * Subscribes to pushed frames, replacing any earlier subscription.
+     * - Returns right away; the listener hears when the server has accepted the subscription.
+     * - Requires protocol version 2; older servers refuse the subscription and it is not renewed.
+     *
+     * @param requestType The subscription command (e.g., "SUBSCRIBE_SHOWS").
+     * @param listener Receives the pushed messages.
+     */
+    public void subscribe(String requestType, PushListener listener) {
+        subscription = requestType;
+        pushListener = listener;
+        renewSubscription(false);
+    }
+
+
+    /**
+     * Sends the subscription request on the current (or a new) connection.
+     * - Tries again after a delay while the server cannot be reached.
+     *
+     * @param renewed Whether an earlier subscription was lost.
+     */
+    private void renewSubscription(boolean renewed) {
+        String requestType = subscription;
+        PushListener listener = pushListener;
+        if (requestType == null) {
+            return;
+        }
+        Link current;
+        try {
+            current = connectedLink();
+            if (!current.pipelined) {
+                return;
+            }
+        } catch (IOException e) {
+            scheduleRenewal();
+            return;
+        }
+        try {
+            current.send(WireProtocol.encodeRequest(requestType, null)).whenComplete((response, error) -> {
+                if (error != null) {
+                    scheduleRenewal();
+                } else if (!String.valueOf(response).startsWith("Error")) {
+                    if (current.markSubscribed()) {
+                        listener.subscribed(renewed);
+                    } else {
+                        // The connection failed before it was marked, so it did not schedule a renewal.
+                        scheduleRenewal();
+                    }
+                }
+            });
+        } catch (IOException e) {
+            current.fail(e);
+            scheduleRenewal();
+        }
+    }
+
+
+    private void scheduleRenewal() {
+        try {
+            heartbeat.schedule(() -> renewSubscription(true), RESUBSCRIBE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // The connection was closed.
+        }
+    }
+
+
+    /**
+     * Waits for the response to a request sent with {@link #send(String, Object)}.
+     *
+     * @param response The future returned by send.
+     * @return The decoded response (a String, UserProfile, List, or null).
+     * @throws IOException If the request failed or timed out.
+     */
+    public static Object await(CompletableFuture<Object> response) throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the server.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof TimeoutException) {
+                throw new SocketTimeoutException("No response from server within " + READ_TIMEOUT_MILLIS + " ms.");
+            }
+            throw new IOException(cause);
+        }
+    }
+
+
+    /**
+     * Closes the connection, ends any subscription, and stops the heartbeat.
+     */
+    @Override
+    public synchronized void close() {
+        subscription = null;
+        heartbeat.shutdownNow();
+        if (link != null) {
+            link.fail(new IOException("Connection closed."));
+        }
+    }
+
+
+    private synchronized boolean isConnected() {
+        return link != null;
+    }
+
+
+    /**
+     * Returns the open connection, opening it and performing the protocol handshake if needed.
+     *
+     * @return The current connection.
+     * @throws IOException If the server is unreachable, busy, or does not speak the protocol.
+     */
+    private synchronized Link connectedLink() throws IOException {
+        if (link != null) {
+            return link;
+        }
+        Socket newSocket = new Socket();
+        try {
+            newSocket.connect(new InetSocketAddress(hostname, port), CONNECT_TIMEOUT_MILLIS);
+            newSocket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            newSocket.setTcpNoDelay(true);
+            InputStream newInput = new BufferedInputStream(newSocket.getInputStream());
+            OutputStream newOutput = new BufferedOutputStream(newSocket.getOutputStream());
+
+            WireProtocol.writeFrame(newOutput, WireProtocol.encodeHello(WireProtocol.VERSION));
+            byte[] hello = readHandshakeFrame(newInput);
+            int version = WireProtocol.decodeHello(hello);
+            if (version < 1) {
+                throw new IOException(describeRejection(hello));
+            }
+
+            // The reader thread waits indefinitely; per-request timeouts apply instead.
+            newSocket.setSoTimeout(0);
+            link = new Link(newSocket, newInput, newOutput, version >= WireProtocol.FIRST_PIPELINED_VERSION);
+            link.start();
+            return link;
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Forgets a connection that has failed, so the next request opens a new one.
+     *
+     * @param failed The connection that failed.
+     */
+    private synchronized void linkFailed(Link failed) {
+        if (link == failed) {
+            link = null;
+        }
+    }
+
+
+    /**
+     * Reads the server's hello frame.
+     * A server at capacity answers every new connection with a legacy object-stream message instead;
+     * that message is turned into an IOException so callers can show it.
+     *
+     * @param in The socket input stream.
+     * @return The hello frame body.
+     * @throws IOException If the server is busy or the frame cannot be read.
+     */
+    private static byte[] readHandshakeFrame(InputStream in) throws IOException {
+        byte[] prefix = new byte[4];
+        new DataInputStream(in).readFully(prefix);
+        if ((prefix[0] & 0xFF) == WireProtocol.LEGACY_STREAM_FIRST_BYTE) {
+            try (ObjectInputStream legacy = new ObjectInputStream(
+                    new SequenceInputStream(new ByteArrayInputStream(prefix), in))) {
+                throw new IOException(String.valueOf(legacy.readObject()));
+            } catch (ClassNotFoundException e) {
+                throw new ProtocolException("Unexpected reply from server.");
+            }
+        }
+        return WireProtocol.readFrame(new SequenceInputStream(new ByteArrayInputStream(prefix), in));
+    }
+
+
+    /**
+     * Explains a handshake reply that was not a hello.
+     * The selector front end refuses connections with a serialized "server busy" frame.
+     *
+     * @param frame The frame received instead of a hello.
+     * @return The message to report.
+     */
+    private static String describeRejection(byte[] frame) {
+        if (frame.length > 0 && (frame[0] & 0xFF) == WireProtocol.LEGACY_STREAM_FIRST_BYTE) {
+            try (ObjectInputStream legacy = new ObjectInputStream(new ByteArrayInputStream(frame))) {
+                return String.valueOf(legacy.readObject());
+            } catch (IOException | ClassNotFoundException e) {
+                // Fall through to the generic message.
+            }
+        }
+        return "Server did not accept the wire protocol.";
+    }
+
+
+    private void sendHeartbeat() {
+        Link current;
+        synchronized (this) {
+            current = link;
+        }
+        if (current == null || System.currentTimeMillis() - current.lastUsedAt < HEARTBEAT_PERIOD_MILLIS) {
+            return;
+        }
+        try {
+            current.send(WireProtocol.encodeRequest("PING", null)).whenComplete((response, error) -> {
+                if (error != null) {
+                    current.fail(new IOException("Heartbeat failed.", error));
+                }
+            });
+        } catch (IOException e) {
+            current.fail(e);
+        }
+    }
+
+
+    /**
+     * One open socket, its outstanding requests, and the thread that reads its responses.
+     * - Requests are written under the output lock, so frames from different threads never interleave.
+     * - Pending requests are kept in send order; without correlation IDs the oldest one gets the next response.
+     */
+    private class Link implements Runnable {
+        private final Socket socket;
+        private final InputStream input;
+        private final OutputStream output;
+        private final boolean pipelined;
+        private final Map<Integer, CompletableFuture<Object>> pending = new LinkedHashMap<>(); // guarded by pending
+        private final Map<Integer, ChunkStream> streams = new HashMap<>(); // guarded by pending
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private boolean failed = false; // guarded by pending
+        private boolean subscribed = false; // guarded by pending
+
+        Link(Socket socket, InputStream input, OutputStream output, boolean pipelined) {
+            this.socket = socket;
+            this.input = input;
+            this.output = output;
+            this.pipelined = pipelined;
+        }
+
+        void start() {
+            Thread reader = new Thread(this, "server-connection-reader");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        CompletableFuture<Object> send(byte[] body) {
+            return send(body, null);
+        }
+
+        /**
+         * Sends a request; with a chunk consumer, its response may be streamed.
+         *
+         * @param body The encoded request.
+         * @param chunks Receives the chunks of a streamed response, or null for a single response.
+         * @return A future for the response (the last chunk, for a streamed response).
+         */
+        CompletableFuture<Object> send(byte[] body, Consumer<ResultChunk<?>> chunks) {
+            int correlationId = nextCorrelationId.updateAndGet(id -> id == Integer.MAX_VALUE ? 1 : id + 1);
+            CompletableFuture<Object> response = new CompletableFuture<>();
+            try {
+                synchronized (output) {
+                    synchronized (pending) {
+                        if (failed) {
+                            throw new IOException("Connection to server was lost.");
+                        }
+                        pending.put(correlationId, response);
+                        if (chunks != null) {
+                            streams.put(correlationId, new ChunkStream(chunks));
+                        }
+                    }
+                    WireProtocol.writeFrame(output, pipelined ? WireProtocol.withCorrelationId(correlationId, body) : body);
+                }
+            } catch (IOException e) {
+                fail(e);
+                return CompletableFuture.failedFuture(e);
+            }
+            lastUsedAt = System.currentTimeMillis();
+
+            if (chunks != null) {
+                watchStream(correlationId, response);
+                return response;
+            }
+            response.orTimeout(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).whenComplete((result, error) -> {
+                if (error instanceof TimeoutException) {
+                    if (pipelined) {
+                        // A late response is simply dropped.
+                        synchronized (pending) {
+                            pending.remove(correlationId);
+                        }
+                    } else {
+                        // Responses are matched by order, so a missing one makes the rest unreliable.
+                        fail(new SocketTimeoutException("No response from server."));
+                    }
+                }
+            });
+            return response;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    byte[] frame = WireProtocol.readFrame(input);
+                    Object response;
+                    CompletableFuture<Object> waiting;
+                    if (pipelined) {
+                        int correlationId = WireProtocol.correlationIdOf(frame);
+                        response = WireProtocol.decodeResponse(frame, WireProtocol.CORRELATION_ID_BYTES);
+                        if (correlationId == WireProtocol.PUSH_CORRELATION_ID) {
+                            PushListener listener = pushListener;
+                            if (listener != null) {
+                                listener.pushed(response);
+                            }
+                            continue;
+                        }
+                        ChunkStream stream;
+                        synchronized (pending) {
+                            stream = streams.get(correlationId);
+                            if (response instanceof ResultChunk<?> chunk && !chunk.isEnd()) {
+                                waiting = null;
+                            } else {
+                                waiting = pending.remove(correlationId);
+                                streams.remove(correlationId);
+                            }
+                        }
+                        if (stream != null && response instanceof ResultChunk<?> chunk) {
+                            stream.lastChunkAt = System.currentTimeMillis();
+                            stream.consumer.accept(chunk);
+                        }
+                    } else {
+                        response = WireProtocol.decodeResponse(frame);
+                        synchronized (pending) {
+                            Iterator<CompletableFuture<Object>> oldest = pending.values().iterator();
+                            waiting = oldest.hasNext() ? oldest.next() : null;
+                            if (waiting != null) {
+                                oldest.remove();
+                            }
+                        }
+                    }
+                    lastUsedAt = System.currentTimeMillis();
+                    if (waiting != null) {
+                        waiting.complete(response);
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        /**
+         * Fails a streamed request once no chunk has arrived for the read timeout.
+         * - Checks again after the time left, for as long as the stream is open.
+         */
+        private void watchStream(int correlationId, CompletableFuture<Object> response) {
+            ChunkStream stream;
+            synchronized (pending) {
+                stream = streams.get(correlationId);
+            }
+            if (stream == null || response.isDone()) {
+                return;
+            }
+            long idle = System.currentTimeMillis() - stream.lastChunkAt;
+            if (idle >= READ_TIMEOUT_MILLIS) {
+                synchronized (pending) {
+                    pending.remove(correlationId);
+                    streams.remove(correlationId);
+                }
+                response.completeExceptionally(new TimeoutException());
+                return;
+            }
+            try {
+                heartbeat.schedule(() -> watchStream(correlationId, response),
+                        READ_TIMEOUT_MILLIS - idle, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The connection was closed, which fails the request.
+            }
+        }
+
+        /**
+         * Records that the server has accepted the subscription on this connection.
+         *
+         * @return False if the connection has already failed.
+         */
+        boolean markSubscribed() {
+            synchronized (pending) {
+                subscribed = !failed;
+                return subscribed;
+            }
+        }
+
+        /**
+         * Closes the socket and fails every outstanding request.
+         * - A subscription held by this connection is renewed on a new one.
+         *
+         * @param cause The reason reported to the waiting callers.
+         */
+        void fail(IOException cause) {
+            List<CompletableFuture<Object>> abandoned;
+            boolean renew;
+            synchronized (pending) {
+                if (failed) {
+                    return;
+                }
+                failed = true;
+                renew = subscribed;
+                abandoned = new ArrayList<>(pending.values());
+                pending.clear();
+                streams.clear();
+            }
+            linkFailed(this);
+            if (renew) {
+                scheduleRenewal();
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Connection is being discarded anyway.
+            }
+            for (CompletableFuture<Object> waiting : abandoned) {
+                waiting.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ServerStats.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The server's metrics at one moment, as returned by STATS.
+ * - One OperationStats per registered request type, in registration order.
+ * - Counters holds the server-wide counts and gauges (caches, coalescing, seat-update pushes,
+ *   database pool), by name, in a fixed order.
+ */
+@SuppressWarnings("serial")
+public class ServerStats implements Serializable {
+    private long uptimeMillis;
+    private List<OperationStats> operations;
+    private Map<String, Long> counters;
+
+    public ServerStats(long uptimeMillis, List<OperationStats> operations, Map<String, Long> counters) {
+        this.uptimeMillis = uptimeMillis;
+        this.operations = operations;
+        this.counters = counters;
+    }
+
+    public long getUptimeMillis() {
+        return uptimeMillis;
+    }
+
+    public List<OperationStats> getOperations() {
+        return operations;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+}
@@ -0,0 +1,51 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SessionInfo.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+
+/**
+ * Answer to a successful START_SESSION login.
+ * - The token stands for the user in later requests (bookings, reservation pages) until the
+ *   session expires after a period without use.
+ * - message is the same greeting LOGIN_USER returns.
+ */
+@SuppressWarnings("serial")
+public class SessionInfo implements Serializable {
+    private String token;
+    private String username;
+    private String role;
+    private String message;
+
+    public SessionInfo(String token, String username, String role, String message) {
+        this.token = token;
+        this.username = username;
+        this.role = role;
+        this.message = message;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,133 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SessionTable.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory table of logged-in users, keyed by session token.
+ * - A login opens a session and hands its token to the client, which sends it with later requests;
+ *   the server then knows the user's primary key, role and name without asking the database.
+ * - Tokens are 32 random bytes from SecureRandom, so they cannot be guessed.
+ * - A session expires after idleTimeoutMillis without use. Expired sessions are refused when next
+ *   used, and swept from the table by later logins, so the table holds only recently active users.
+ * - Lookups are lock-free; sessions are lost when the server restarts, and clients then log in again.
+ */
+public class SessionTable {
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * A logged-in user, as found by the login query.
+     */
+    public static final class Session {
+        private final int userPK;
+        private final String username;
+        private final String role;
+        private final String firstName;
+        private final String lastName;
+        private volatile long lastUsedAt;
+
+        public Session(int userPK, String username, String role, String firstName, String lastName) {
+            this.userPK = userPK;
+            this.username = username;
+            this.role = role;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        public int getUserPK() {
+            return userPK;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        public String getLastName() {
+            return lastName;
+        }
+    }
+
+    private final long idleTimeoutMillis;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+
+    /**
+     * Creates an empty table.
+     *
+     * @param idleTimeoutMillis How long a session stays valid without being used.
+     */
+    public SessionTable(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+
+    /**
+     * Opens a session for a user who has just logged in.
+     * - Sweeps expired sessions first, at most once per idle timeout.
+     *
+     * @param session The user's identity.
+     * @return The new session token.
+     */
+    public String open(Session session) {
+        long now = System.currentTimeMillis();
+        long sweepAt = nextSweepAt.get();
+        if (now >= sweepAt && nextSweepAt.compareAndSet(sweepAt, now + idleTimeoutMillis)) {
+            sessions.values().removeIf(existing -> now - existing.lastUsedAt >= idleTimeoutMillis);
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        session.lastUsedAt = now;
+        sessions.put(token, session);
+        return token;
+    }
+
+
+    /**
+     * Finds the session behind a token and marks it as used.
+     *
+     * @param token The token sent by the client.
+     * @return The session, or null if the token is unknown or its session has expired.
+     */
+    public Session resolve(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - session.lastUsedAt >= idleTimeoutMillis) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsedAt = now;
+        return session;
+    }
+
+
+    public int size() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,461 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ShowCatalog.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.lang.invoke.VarHandle;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Versioned snapshot of all shows, used to answer show listings from memory.
+ * - The show list (which shows exist, sorted by show ID) is an immutable array, copied only when
+ *   shows are added or removed.
+ * - Seat counts live in each show's entry and are changed in place, so a booking or cancellation
+ *   costs the same however many shows there are.
+ * - Every change gets a higher version number. Readers take a Snapshot, which copies the show list and
+ *   the seat counts of exactly one version and builds its listings (all shows, and the shows that still
+ *   have seats) from them; the latest Snapshot is shared by all readers until the next change.
+ * - Snapshots are taken without the lock: writers make the write stamp odd while they change anything,
+ *   and a reader that saw the stamp change (or odd) while copying tries again, falling back to the lock.
+ * - A ShowItem is only replaced when its show's seat count changed since it was made.
+ * - A fixed-size ring buffer records which show each change touched, so a client that already has an
+ *   older version can be sent just the differences.
+ * - Versions start from the server's start time (in microseconds), so a version from an earlier
+ *   server run is never taken for a current one.
+ * - Writers take turns on a lock; a seat change holds it for a binary search and a few field writes.
+ */
+public class ShowCatalog {
+
+    /**
+     * Told about every seat-count change, in commit order; called while the catalog's lock is held,
+     * so it must not block.
+     */
+    public interface SeatListener {
+        void seatsChanged(int showID, int availableSeats);
+    }
+
+    /**
+     * The shows as of one version, sorted by show ID; never changes once taken.
+     * - Its ShowItems carry the seat counts copied when it was built, so later seat changes do not show through.
+     */
+    public final class Snapshot {
+        private final long version;
+        private final Entry[] entries;
+        private final List<ShowItem> allShows;
+        private final List<ShowItem> availableShows;
+
+        Snapshot(long version, Entry[] entries) {
+            this.version = version;
+            this.entries = entries;
+            List<ShowItem> all = new ArrayList<>(entries.length);
+            List<ShowItem> available = new ArrayList<>(entries.length);
+            for (Entry entry : entries) {
+                ShowItem show = entry.item(entry.availableSeats);
+                all.add(show);
+                if (show.getAvailableSeats() > 0) {
+                    available.add(show);
+                }
+            }
+            this.allShows = List.copyOf(all);
+            this.availableShows = List.copyOf(available);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<ShowItem> getAllShows() {
+            return allShows;
+        }
+
+        public List<ShowItem> getAvailableShows() {
+            return availableShows;
+        }
+
+        /**
+         * Computes what changed since an earlier version.
+         * - Reads the change log without the catalog's lock; it only takes the lock if writers keep
+         *   overwriting the part being read.
+         * - The changed shows are taken from this snapshot, so they carry its version's seat counts.
+         * - Falls back to a full resync when the version is older than the change log (or unknown).
+         *
+         * @param since The version the client has.
+         * @return The shows added, changed and removed since then, or the full list.
+         */
+        public ShowDelta deltaSince(long since) {
+            int[] touched = since <= version ? touchedBetween(since, version) : null;
+            if (touched == null) {
+                return new ShowDelta(version, true, allShows, List.of());
+            }
+            // The touched shows' state in this snapshot tells whether they were changed or removed.
+            List<ShowItem> changed = new ArrayList<>();
+            List<Integer> removed = new ArrayList<>();
+            for (int showID : Arrays.stream(touched).sorted().distinct().toArray()) {
+                int index = indexOf(entries, showID);
+                if (index >= 0) {
+                    changed.add(allShows.get(index));
+                } else {
+                    removed.add(showID);
+                }
+            }
+            return new ShowDelta(version, false, changed, removed);
+        }
+
+        /**
+         * Returns the shows that follow a show ID, in show ID order.
+         * - The show ID does not need to exist any more; listing resumes at the next higher one.
+         *
+         * @param afterShowID The last show ID of the previous page (0 for the first page).
+         * @param limit The maximum number of shows returned.
+         * @return Up to limit shows.
+         */
+        public List<ShowItem> showsAfter(int afterShowID, int limit) {
+            int index = indexOf(entries, afterShowID);
+            int from = index >= 0 ? index + 1 : -(index + 1);
+            int to = (int) Math.min(entries.length, (long) from + limit);
+            return List.copyOf(allShows.subList(from, to));
+        }
+    }
+
+    private static final class Entry {
+        private final int moviePK;
+        private final ShowItem show; // listing details; its seat count is the one the show was added with
+        private volatile int availableSeats; // written under the catalog's lock, while the write stamp is odd
+        private volatile ShowItem latest; // the last ShowItem made for this entry, reused while seats are unchanged
+
+        Entry(int moviePK, ShowItem show) {
+            this.moviePK = moviePK;
+            this.show = show;
+            this.availableSeats = show.getAvailableSeats();
+            this.latest = show;
+        }
+
+        // Returns the show with the given seat count.
+        ShowItem item(int seats) {
+            ShowItem item = latest;
+            if (item.getAvailableSeats() != seats) {
+                item = new ShowItem(show.getShowID(), show.getMovieTitle(), show.getShowDate(), show.getShowTime(),
+                        show.getRoomNumber(), seats, show.getPrice());
+                latest = item;
+            }
+            return item;
+        }
+    }
+
+    private static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 4;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final SeatListener seatListener;
+
+    // Change log: a ring buffer of (version, show ID) pairs, written under the lock and read without it.
+    // Changes before logStart are unknown.
+    private static final int[] OVERWRITTEN = new int[0];
+    private final long[] changeVersions;
+    private final int[] changeShowIDs;
+    private volatile long changesLogged; // published after the slots it covers were written
+    private volatile long logStart;
+
+    // Odd while a writer is changing the entries, seats, change log or version; see snapshot().
+    private volatile long writeStamp;
+    private volatile long version = System.currentTimeMillis() * 1000;
+    private volatile Entry[] entries = new Entry[0];
+    private volatile Snapshot latest;
+
+
+    /**
+     * Creates an empty catalog.
+     *
+     * @param changeLogSize How many show changes are kept for delta replies; older clients get a full resync.
+     * @param seatListener Told about every change made by adjustSeats.
+     */
+    public ShowCatalog(int changeLogSize, SeatListener seatListener) {
+        this.changeVersions = new long[Math.max(1, changeLogSize)];
+        this.changeShowIDs = new int[changeVersions.length];
+        this.seatListener = seatListener;
+        this.logStart = version;
+    }
+
+
+    /**
+     * Returns the current snapshot; callers may keep using it while newer versions are published.
+     * - The snapshot is built by the first reader after a change and shared until the next one.
+     * - Built without the lock when no writer ran meanwhile; after a few collisions with writers, under the lock.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+            long stamp = writeStamp;
+            if ((stamp & 1) == 0) {
+                Snapshot snapshot = latest;
+                long currentVersion = version;
+                if (snapshot == null || snapshot.version != currentVersion) {
+                    snapshot = new Snapshot(currentVersion, entries);
+                }
+                // All fields read above are volatile, so an unchanged stamp means no write overlapped them.
+                if (writeStamp == stamp) {
+                    latest = snapshot;
+                    return snapshot;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        lock.lock();
+        try {
+            Snapshot snapshot = latest;
+            if (snapshot == null || snapshot.version != version) {
+                snapshot = new Snapshot(version, entries);
+                latest = snapshot;
+            }
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Replaces the contents with every show in the database.
+     * - Clears the change log, so every client resyncs.
+     *
+     * @param conn An open database connection.
+     * @throws SQLException If the shows cannot be read.
+     */
+    public void load(Connection conn) throws SQLException {
+        String query = "SELECT s.showPK, s.moviePK, m.title, s.showDate, s.showTime, s.roomNumber, s.availableSeats, s.price " +
+                "FROM shows s JOIN movie m ON s.moviePK = m.moviePK ORDER BY s.showPK";
+        List<Entry> loaded = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(query);
+                ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                loaded.add(new Entry(rs.getInt("moviePK"), new ShowItem(rs.getInt("showPK"), rs.getString("title"),
+                        rs.getDate("showDate"), rs.getTime("showTime"), rs.getInt("roomNumber"),
+                        rs.getInt("availableSeats"), rs.getDouble("price"))));
+            }
+        }
+        beginWrite();
+        try {
+            entries = loaded.toArray(new Entry[0]);
+            logStart = version + 1;
+            version = logStart;
+        } finally {
+            endWrite();
+        }
+    }
+
+
+    /**
+     * Adds (or replaces) a show.
+     *
+     * @param moviePK The movie shown.
+     * @param show The show's listing.
+     */
+    public void put(int moviePK, ShowItem show) {
+        beginWrite();
+        try {
+            Entry[] current = entries;
+            int index = indexOf(current, show.getShowID());
+            Entry[] next;
+            if (index >= 0) {
+                next = current.clone();
+                next[index] = new Entry(moviePK, show);
+            } else {
+                int insertAt = -(index + 1);
+                next = new Entry[current.length + 1];
+                System.arraycopy(current, 0, next, 0, insertAt);
+                next[insertAt] = new Entry(moviePK, show);
+                System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+            }
+            entries = next;
+            publish(show.getShowID());
+        } finally {
+            endWrite();
+        }
+    }
+
+
+    /**
+     * Removes a deleted show.
+     *
+     * @param showID The show's primary key.
+     */
+    public void remove(int showID) {
+        beginWrite();
+        try {
+            Entry[] current = entries;
+            int index = indexOf(current, showID);
+            if (index < 0) {
+                return;
+            }
+            Entry[] next = new Entry[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            entries = next;
+            publish(showID);
+        } finally {
+            endWrite();
+        }
+    }
+
+
+    /**
+     * Removes every show of a deleted movie.
+     *
+     * @param moviePK The movie's primary key.
+     */
+    public void removeMovie(int moviePK) {
+        beginWrite();
+        try {
+            Entry[] current = entries;
+            Entry[] next = Arrays.stream(current).filter(entry -> entry.moviePK != moviePK).toArray(Entry[]::new);
+            if (next.length != current.length) {
+                entries = next;
+                publish(Arrays.stream(current).filter(entry -> entry.moviePK == moviePK)
+                        .mapToInt(entry -> entry.show.getShowID()).toArray());
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+
+    /**
+     * Changes a show's available seats after a committed booking or cancellation, and tells the seat listener.
+     * - Changes only the show's own entry; the show list is not copied.
+     *
+     * @param showID The show's primary key.
+     * @param delta The change in available seats (negative for bookings).
+     */
+    public void adjustSeats(int showID, int delta) {
+        beginWrite();
+        try {
+            Entry[] current = entries;
+            int index = indexOf(current, showID);
+            if (index < 0) {
+                return;
+            }
+            Entry entry = current[index];
+            int availableSeats = entry.availableSeats + delta;
+            entry.availableSeats = availableSeats;
+            publish(showID);
+            seatListener.seatsChanged(showID, availableSeats);
+        } finally {
+            endWrite();
+        }
+    }
+
+
+    // Takes the writers' lock and makes the write stamp odd, so snapshots being built meanwhile are retried.
+    private void beginWrite() {
+        lock.lock();
+        writeStamp++;
+    }
+
+
+    // Makes the write stamp even again and releases the writers' lock.
+    private void endWrite() {
+        writeStamp++;
+        lock.unlock();
+    }
+
+
+    // Guarded by lock; logs the touched shows under the next version, overwriting the oldest changes when full,
+    // then publishes that version.
+    private void publish(int... changedShowIDs) {
+        long next = version + 1;
+        long logged = changesLogged;
+        for (int showID : changedShowIDs) {
+            int slot = (int) (logged++ % changeVersions.length);
+            changeVersions[slot] = next;
+            changeShowIDs[slot] = showID;
+        }
+        changesLogged = logged;
+        version = next;
+    }
+
+
+    // Returns the shows touched by versions after since, up to and including until, or null if the log
+    // no longer covers them all. Reads the log without the lock unless writers keep overwriting it meanwhile.
+    private int[] touchedBetween(long since, long until) {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+            int[] touched = scanLog(since, until);
+            if (touched != OVERWRITTEN) {
+                return touched;
+            }
+            Thread.onSpinWait();
+        }
+        lock.lock();
+        try {
+            return scanLog(since, until);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    // One pass over the change log, newest first; returns OVERWRITTEN if a writer reused a slot it read.
+    private int[] scanLog(long since, long until) {
+        long logged = changesLogged; // the slots below it were written before it was published
+        if (since < logStart) {
+            return null;
+        }
+        long first = Math.max(0, logged - changeVersions.length);
+        int[] touched = new int[(int) (logged - first)];
+        int count = 0;
+        long lowest = first;
+        boolean complete = first == 0;
+        for (long i = logged - 1; i >= first; i--) {
+            int slot = (int) (i % changeVersions.length);
+            long changeVersion = changeVersions[slot];
+            if (changeVersion <= since) {
+                lowest = i;
+                complete = true;
+                break;
+            }
+            if (changeVersion <= until) {
+                touched[count++] = changeShowIDs[slot];
+            }
+        }
+        // The slot reads above must not move below this check.
+        VarHandle.acquireFence();
+        if (changesLogged - changeVersions.length > lowest) {
+            return OVERWRITTEN;
+        }
+        // Reaching the oldest kept change without passing since means earlier changes were dropped
+        // (that version itself may be incomplete).
+        return complete ? Arrays.copyOf(touched, count) : null;
+    }
+
+
+    private static int indexOf(Entry[] entries, int showID) {
+        int low = 0;
+        int high = entries.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midID = entries[mid].show.getShowID();
+            if (midID < showID) {
+                low = mid + 1;
+            } else if (midID > showID) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,56 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ShowDelta.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The changes to the show list since a version the client already has (reply to GET_SHOWS_SINCE).
+ * - changedShows holds every show added or changed since then, in show ID order; removedShowIDs the
+ *   shows deleted since then.
+ * - A full resync replaces the client's list: changedShows is then the complete list and removedShowIDs is empty.
+ * - The client sends the version back with its next GET_SHOWS_SINCE request.
+ */
+@SuppressWarnings("serial")
+public class ShowDelta implements Serializable {
+    /** Version to send before the client has any show list; always answered with a full resync. */
+    public static final long NO_VERSION = -1;
+
+    private long version;
+    private boolean fullResync;
+    private List<ShowItem> changedShows;
+    private List<Integer> removedShowIDs;
+
+    public ShowDelta(long version, boolean fullResync, List<ShowItem> changedShows, List<Integer> removedShowIDs) {
+        this.version = version;
+        this.fullResync = fullResync;
+        this.changedShows = changedShows;
+        this.removedShowIDs = removedShowIDs;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFullResync() {
+        return fullResync;
+    }
+
+    public List<ShowItem> getChangedShows() {
+        return changedShows;
+    }
+
+    public List<Integer> getRemovedShowIDs() {
+        return removedShowIDs;
+    }
+}
@@ -0,0 +1,219 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ShowTableSync.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Keeps a client's show table in step with the server by applying ShowDelta replies in place.
+ * - Rows are kept in show ID order, the order the server lists shows in.
+ * - A changed show only updates the cells that differ, so the table keeps its selection and scroll position.
+ * - Remembers the version of the last delta, to be sent with the next GET_SHOWS_SINCE request.
+ * - Pushed seat updates can be applied in between; the next delta simply includes those shows again.
+ * - The table may also be filled page by page (GET_SHOWS_PAGE). Until the last page is loaded, deltas
+ *   only touch shows up to the last one loaded; later shows arrive, current, with their pages.
+ * - Must be used on the Swing event thread.
+ */
+public class ShowTableSync {
+
+    /**
+     * Turns a show into the cells of its table row.
+     */
+    public interface RowFormat {
+        Object[] toRow(ShowItem show);
+    }
+
+    private final DefaultTableModel tableModel;
+    private final RowFormat rowFormat;
+    private final List<ShowItem> rowShows = new ArrayList<>(); // show of each table row
+    private long version = ShowDelta.NO_VERSION;
+    private String nextCursor; // null once every page is loaded
+    private int loadedThroughID = Integer.MAX_VALUE; // highest show ID covered by the loaded pages
+
+
+    /**
+     * Creates the sync for an empty table.
+     *
+     * @param tableModel The table's model; its columns must match rowFormat.
+     * @param rowFormat Produces the cells of a show's row.
+     */
+    public ShowTableSync(DefaultTableModel tableModel, RowFormat rowFormat) {
+        this.tableModel = tableModel;
+        this.rowFormat = rowFormat;
+    }
+
+
+    /**
+     * Returns the version to request changes since.
+     *
+     * @return The version of the last applied delta, or ShowDelta.NO_VERSION.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+
+    /**
+     * Returns the cursor of the next page to load.
+     *
+     * @return The cursor from the last applied page, or null if there are no more pages.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+
+    public boolean hasMorePages() {
+        return nextCursor != null;
+    }
+
+
+    /**
+     * Replaces the table's contents with the first page of shows.
+     *
+     * @param page The server's reply to GET_SHOWS_PAGE without a cursor.
+     */
+    public void applyFirstPage(Page<ShowItem> page) {
+        tableModel.setRowCount(0);
+        rowShows.clear();
+        version = page.getVersion();
+        appendPage(page);
+    }
+
+
+    /**
+     * Appends the next page of shows to the table.
+     * - The page may come from a newer version than the rows already loaded; the table keeps the
+     *   older version, so the next delta covers every row.
+     *
+     * @param page The server's reply to GET_SHOWS_PAGE with the cursor from getNextCursor().
+     */
+    public void applyNextPage(Page<ShowItem> page) {
+        version = Math.min(version, page.getVersion());
+        appendPage(page);
+    }
+
+
+    /**
+     * Applies a delta to the table.
+     *
+     * @param delta The server's reply to GET_SHOWS_SINCE.
+     */
+    public void apply(ShowDelta delta) {
+        if (delta.isFullResync()) {
+            tableModel.setRowCount(0);
+            rowShows.clear();
+        }
+        for (int showID : delta.getRemovedShowIDs()) {
+            int row = rowOf(showID);
+            if (row >= 0) {
+                tableModel.removeRow(row);
+                rowShows.remove(row);
+            }
+        }
+        for (ShowItem show : delta.getChangedShows()) {
+            if (show.getShowID() > loadedThroughID) {
+                continue;
+            }
+            int row = rowOf(show.getShowID());
+            if (row >= 0) {
+                updateRow(row, show);
+            } else {
+                insertRow(-(row + 1), show);
+            }
+        }
+        version = delta.getVersion();
+    }
+
+
+    /**
+     * Applies a pushed seat count to the show's row, if the table lists the show.
+     *
+     * @param update The show's new seat count.
+     */
+    public void apply(SeatUpdate update) {
+        int row = rowOf(update.getShowID());
+        if (row >= 0) {
+            updateRow(row, withAvailableSeats(rowShows.get(row), update.getAvailableSeats()));
+        }
+    }
+
+
+    /**
+     * Copies a show with a different seat count.
+     *
+     * @param show The show.
+     * @param availableSeats The new seat count.
+     * @return The updated copy.
+     */
+    public static ShowItem withAvailableSeats(ShowItem show, int availableSeats) {
+        return new ShowItem(show.getShowID(), show.getMovieTitle(), show.getShowDate(), show.getShowTime(),
+                show.getRoomNumber(), availableSeats, show.getPrice());
+    }
+
+
+    private void appendPage(Page<ShowItem> page) {
+        for (ShowItem show : page.getItems()) {
+            int row = rowOf(show.getShowID());
+            if (row >= 0) {
+                updateRow(row, show);
+            } else {
+                insertRow(-(row + 1), show);
+            }
+        }
+        nextCursor = page.getNextCursor();
+        List<ShowItem> items = page.getItems();
+        loadedThroughID = nextCursor == null || items.isEmpty()
+                ? Integer.MAX_VALUE : items.get(items.size() - 1).getShowID();
+    }
+
+
+    private void insertRow(int row, ShowItem show) {
+        tableModel.insertRow(row, rowFormat.toRow(show));
+        rowShows.add(row, show);
+    }
+
+
+    // Writes only the cells that differ.
+    private void updateRow(int row, ShowItem show) {
+        Object[] cells = rowFormat.toRow(show);
+        for (int column = 0; column < cells.length; column++) {
+            if (!Objects.equals(tableModel.getValueAt(row, column), cells[column])) {
+                tableModel.setValueAt(cells[column], row, column);
+            }
+        }
+        rowShows.set(row, show);
+    }
+
+
+    // Binary search by show ID; returns -(insertion point + 1) if the show has no row.
+    private int rowOf(int showID) {
+        int low = 0;
+        int high = rowShows.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midID = rowShows.get(mid).getShowID();
+            if (midID < showID) {
+                low = mid + 1;
+            } else if (midID > showID) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
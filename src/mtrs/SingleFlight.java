@@ -0,0 +1,93 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SingleFlight.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical read requests, so they share one execution.
+ * - Requests are identical when both the endpoint and its argument are equal.
+ * - The first request runs the call; requests that arrive while it is running wait for it and get the
+ *   same result object, which therefore must not be modified afterwards.
+ * - Nothing is cached: once the call returns, the next request runs it again.
+ * - Counts, per endpoint, how many requests ran the call and how many were coalesced into another one.
+ */
+public class SingleFlight {
+
+    private static final class Counters {
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+
+    /**
+     * Runs a call, or joins the identical call that is already running.
+     *
+     * @param endpoint The request type (e.g., "GET_MOVIES").
+     * @param argument The request's argument, or null; compared with equals().
+     * @param call Produces the response.
+     * @return The response, possibly shared with other requests.
+     */
+    public Object run(String endpoint, Object argument, Supplier<?> call) {
+        List<Object> key = Arrays.asList(endpoint, argument);
+        Counters endpointCounters = counters.computeIfAbsent(endpoint, _ -> new Counters());
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            endpointCounters.coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        endpointCounters.executed.increment();
+        try {
+            Object response = call.get();
+            flight.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+
+    public Set<String> getEndpoints() {
+        return Set.copyOf(counters.keySet());
+    }
+
+
+    public long getExecuted(String endpoint) {
+        Counters endpointCounters = counters.get(endpoint);
+        return endpointCounters == null ? 0 : endpointCounters.executed.sum();
+    }
+
+
+    public long getCoalesced(String endpoint) {
+        Counters endpointCounters = counters.get(endpoint);
+        return endpointCounters == null ? 0 : endpointCounters.coalesced.sum();
+    }
+}
@@ -0,0 +1,154 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SnapshotCache.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache for one immutable value that rarely changes, such as the movie catalog.
+ * - Readers get the cached snapshot without any locking or database access.
+ * - Writers call invalidate() after committing a change; the next reader loads a fresh snapshot.
+ * - Every snapshot is tagged with the version it was loaded at, so a load that overlaps an
+ *   invalidation is never served as current.
+ * - Concurrent misses for the same version share one load; a miss after an invalidation starts a new one.
+ * - Counts hits, misses (loads) and coalesced misses.
+ *
+ * @param <T> The cached value; it must not be modified once loaded.
+ */
+public class SnapshotCache<T> {
+
+    /**
+     * Loads the value from the database.
+     */
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private static final class Snapshot<T> {
+        private final long version;
+        private final T value;
+
+        Snapshot(long version, T value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private static final class Load<T> {
+        private final long version;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Load(long version) {
+            this.version = version;
+        }
+    }
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<T> current;
+    private final AtomicReference<Load<T>> loading = new AtomicReference<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+
+    /**
+     * Returns the cached value, loading it first if there is no current snapshot.
+     * - A miss while a load of the current version is running waits for that load instead of starting another.
+     *
+     * @param loader Loads the value on a miss.
+     * @return The current value.
+     * @throws SQLException If the value had to be loaded and loading failed (nothing is cached then).
+     */
+    public T get(Loader<T> loader) throws SQLException {
+        while (true) {
+            long loadAt = version.get();
+            Snapshot<T> snapshot = current;
+            if (snapshot != null && snapshot.version == loadAt) {
+                hits.increment();
+                return snapshot.value;
+            }
+            Load<T> running = loading.get();
+            if (running != null && running.version == loadAt) {
+                coalesced.increment();
+                return join(running);
+            }
+            Load<T> load = new Load<>(loadAt);
+            if (loading.compareAndSet(running, load)) {
+                misses.increment();
+                return load(loader, load);
+            }
+        }
+    }
+
+
+    // Runs the loader for a load this thread registered, and hands the outcome to the misses waiting on it.
+    private T load(Loader<T> loader, Load<T> load) throws SQLException {
+        try {
+            T value = loader.load();
+            // If an invalidation happened meanwhile, the snapshot is already out of date and the next read reloads.
+            current = new Snapshot<>(load.version, value);
+            load.result.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException | Error e) {
+            load.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.compareAndSet(load, null);
+        }
+    }
+
+
+    // Waits for another thread's load; its failure is rethrown as is.
+    private T join(Load<T> load) throws SQLException {
+        try {
+            return load.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException cause) {
+                throw cause;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+
+    /**
+     * Marks the cached value as out of date; call after committing a change to the underlying data.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+
+    public long getVersion() {
+        return version.get();
+    }
+
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,55 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: StripedLocks.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed table of locks shared by integer keys (lock striping).
+ * - The same key always maps to the same lock, so work on one key is serialized.
+ * - Different keys usually map to different locks and proceed in parallel; now and then two keys share a stripe.
+ * - Memory stays constant however many keys exist, and locks never need to be created or removed.
+ * - Uses ReentrantLock rather than synchronized, so virtual threads waiting for a stripe do not pin their carrier.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+
+    /**
+     * Creates the lock table.
+     *
+     * @param stripes The number of locks; rounded up to a power of two.
+     */
+    public StripedLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+
+    /**
+     * Returns the lock guarding the given key.
+     *
+     * @param key The key, e.g., a show's primary key.
+     * @return The lock for the key's stripe.
+     */
+    public Lock lockFor(int key) {
+        // Spread consecutive keys (auto-increment IDs) over the whole table.
+        int hash = key * 0x9E3779B9;
+        return locks[(hash ^ (hash >>> 16)) & mask];
+    }
+}
@@ -13,8 +13,25 @@ package mtrs; // mtrs: movie ticket reservation system
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.ServerSocketChannel;
 import java.sql.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.swing.JOptionPane;
 
@@ -31,24 +48,144 @@ public class TicketReservationServer {
     private static final String DBSQL_USER_NAME = "TBD";
     private static final String DBSQL_PASSWORD  = "TBD";
 
+    // Database connection pool sizing
+    private static final int DB_POOL_MIN_SIZE          = Integer.getInteger("mtrs.dbPoolMin", 4);
+    private static final int DB_POOL_MAX_SIZE          = Integer.getInteger("mtrs.dbPoolMax", 32);
+    private static final long DB_ACQUIRE_TIMEOUT_MILLIS = Long.getLong("mtrs.dbAcquireTimeoutMs", 5_000);
+    private static final long DB_LEAK_THRESHOLD_MILLIS  = Long.getLong("mtrs.dbLeakThresholdMs", 30_000);
+    private static final long DB_LEAK_RECLAIM_MILLIS    = Long.getLong("mtrs.dbLeakReclaimMs", 300_000);
+    private static final boolean DB_LEAK_TRACE          = Boolean.getBoolean("mtrs.dbLeakTrace");
+
+    // Client execution mode ("virtual" or "platform") and admission limit
+    private static final String CLIENT_THREAD_MODE = System.getProperty("mtrs.clientThreads", "virtual");
+    private static final int MAX_ACTIVE_CLIENTS    = Integer.getInteger("mtrs.maxClients", 2000);
+    private static final String SERVER_BUSY_MESSAGE = "Error: Server is busy. Please try again shortly.";
+
+    // Legacy object streams are reset after this many responses, which bounds the objects each stream keeps
+    private static final int OBJECT_STREAM_RESET_INTERVAL = Math.max(1, Integer.getInteger("mtrs.objectStreamResetInterval", 1));
+
+    // Front end ("blocking" thread-per-connection or "nio" selector) and its thread counts
+    private static final String SERVER_MODE        = System.getProperty("mtrs.serverMode", "blocking");
+    private static final int NIO_IO_THREADS        = Integer.getInteger("mtrs.nioIoThreads", 2);
+    private static final int WORKER_THREADS        = Integer.getInteger("mtrs.workerThreads", 32);
+    private static final int WRITE_WORKER_THREADS  = Integer.getInteger("mtrs.writeWorkerThreads", 8);
+    private static final int MAX_PIPELINED_REQUESTS = Integer.getInteger("mtrs.maxPipelinedRequests", 16);
+    private static final int PUSH_BUFFER_FRAMES    = Integer.getInteger("mtrs.pushBufferFrames", 64);
+    private static final long SEAT_UPDATE_INTERVAL_MILLIS = Long.getLong("mtrs.seatUpdateIntervalMs", 100);
+
+    // Requests that are only served over binary protocol version 2, which can carry pushed frames
+    private static final String SUBSCRIBE_SHOWS = "SUBSCRIBE_SHOWS";
+
+    // Requests whose responses are streamed in chunks (binary protocol version 2 and legacy object streams)
+    private static final Set<String> STREAMED_REQUESTS = Set.of("GET_RESERVATION_REPORT");
+
+    // Streamed reports: rows fetched from the database per round trip, and sent to the client per chunk
+    private static final int REPORT_FETCH_SIZE = Integer.getInteger("mtrs.reportFetchSize", 500);
+
+    // Requests answered from immutable catalog snapshots; their encoded responses are reused
+    private static final Set<String> CATALOG_REQUESTS = Set.of("GET_MOVIES", "GET_SHOWS", "GET_AVAILABLE_SHOWS");
+
     // Constants
     private static final int SHOW_GAP_THRESHOLD_MINUTES = 180;
+    private static final int SHOW_LOCK_STRIPES = 1024;
+    private static final String BOOKING_SUCCESS_MESSAGE = "Booking and payment processed successfully!";
+    private static final String BOOKED_RESERVATION_ID = BOOKING_SUCCESS_MESSAGE + " Reservation ID: ";
+    private static final String BOOKING_UNCONFIRMED_MESSAGE = "Error: The booking could not be confirmed. " +
+            "Please check your reservations before booking again.";
+    private static final String CANCELLATION_SUCCESS_MESSAGE = "Reservation cancelled successfully.";
+    private static final String DUPLICATE_TIME_MESSAGE = "Error: You already have a reservation at the same time for this theater.";
+
+    // Optional group commit: bookings are collected for a few milliseconds and committed together
+    private static final boolean GROUP_COMMIT            = Boolean.getBoolean("mtrs.groupCommit");
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = Long.getLong("mtrs.groupCommitWindowMs", 5);
+    private static final int GROUP_COMMIT_MAX_BATCH      = Integer.getInteger("mtrs.groupCommitMaxBatch", 64);
+
+    // Duplicate BOOK_TICKET suppression: results are remembered for the window, sized for the peak booking rate
+    private static final long IDEMPOTENCY_WINDOW_MILLIS = Long.getLong("mtrs.idempotencyWindowMs", 600_000);
+    private static final int PEAK_BOOKINGS_PER_SECOND   = Integer.getInteger("mtrs.peakBookingsPerSec", 100);
+
+    // Show list changes kept for GET_SHOWS_SINCE; clients further behind get the full list
+    private static final int SHOW_CHANGE_LOG_SIZE = Integer.getInteger("mtrs.showChangeLogSize", 1024);
+
+    // User profiles kept in memory for GET_SESSION_USER_INFO; the least recently used are evicted beyond this
+    private static final int USER_PROFILE_CACHE_SIZE = Integer.getInteger("mtrs.userProfileCacheSize", 10_000);
+
+    // Sessions opened by START_SESSION expire after this long without use
+    private static final long SESSION_IDLE_TIMEOUT_MILLIS = Long.getLong("mtrs.sessionIdleTimeoutMs", 1_800_000);
+
+    // Session users' reservation lists are kept in memory until they go this long without being read
+    private static final long RESERVATION_CACHE_IDLE_MILLIS = Long.getLong("mtrs.reservationCacheIdleMs", 600_000);
+    private static final String SESSION_EXPIRED_MESSAGE = "Error: Your session has expired. Please log in again.";
+    private static final String SESSION_REQUIRED_MESSAGE = "Error: Please log in; this request needs a session.";
+
+    // Largest page served by GET_SHOWS_PAGE and GET_CUSTOMER_RESERVATIONS_PAGE; larger requests are cut down
+    private static final int MAX_PAGE_SIZE = Integer.getInteger("mtrs.maxPageSize", 200);
+    private static final String INVALID_CURSOR_MESSAGE = "Error: Invalid page cursor.";
+
+    // A customer's reservations with their show details; callers append the WHERE clause
+    private static final String RESERVATION_QUERY = "SELECT r.reservationpk, r.userpk, " +
+            "CONCAT(m.title, ' on ', s.showdate, ' at ', SUBSTRING(s.showtime,1,5), ' in Room ', s.roomnumber, ' (Price: $', s.price, ')') AS showDetails, " +
+            "r.numberoftickets, r.reservationtime " +
+            "FROM reservation r " +
+            "JOIN shows s ON r.showpk = s.showpk " +
+            "JOIN movie m ON s.moviepk = m.moviepk ";
+    private static final String RESERVATION_BY_ID = "WHERE r.reservationpk = ?";
+
+    // The statements of a booking; a reservation is skipped if the user already has one at the same date and time
+    private static final String TAKE_SEATS_UPDATE = "UPDATE shows SET availableSeats = availableSeats - ? " +
+            "WHERE showPK = ? AND availableSeats >= ? AND TIMESTAMP(showdate, showtime) > NOW()";
+    private static final String GIVE_SEATS_BACK_UPDATE = "UPDATE shows SET availableSeats = availableSeats + ? WHERE showPK = ?";
+    private static final String RESERVATION_INSERT = "INSERT INTO reservation (userpk, showpk, numberoftickets, reservationtime) " +
+            "SELECT ?, ?, ?, NOW() FROM DUAL " +
+            "WHERE NOT EXISTS (" +
+            "SELECT 1 FROM reservation r INNER JOIN shows s ON r.showpk = s.showPK " +
+            "WHERE r.userpk = ? AND s.showdate = ? AND s.showtime = ?)";
+    private static final String PAYMENT_INSERT = "INSERT INTO payment (reservationpk, amount, creditcardnumber) VALUES (?, ?, ?)";
+
+    /**
+     * Sends one chunk of a streamed response to the client, at the client's pace.
+     */
+    private interface ChunkWriter {
+        void write(ResultChunk<?> chunk) throws IOException;
+    }
 
     private ServerSocket serverSocket;
-    private Connection conn = null;
-    private Statement stmt = null;
+    private ServerSocketChannel serverChannel;
+    private final Semaphore clientPermits = new Semaphore(MAX_ACTIVE_CLIENTS);
+    private final ExecutorService requestWorkers = Executors.newFixedThreadPool(WORKER_THREADS);
+    private final ExecutorService writeWorkers = Executors.newFixedThreadPool(WRITE_WORKER_THREADS);
+    private ConnectionPool connectionPool;
+    private final SeatInventory seatInventory = new SeatInventory();
+    private GroupCommitter<PendingBooking> bookingCommitter; // null unless group commit is enabled
+    private final StripedLocks showLocks = new StripedLocks(SHOW_LOCK_STRIPES);
+    private final SnapshotCache<List<MovieItem>> movieCatalog = new SnapshotCache<>();
+    private final SeatUpdatePublisher seatUpdates = new SeatUpdatePublisher(SEAT_UPDATE_INTERVAL_MILLIS);
+    private final ShowCatalog showCatalog = new ShowCatalog(SHOW_CHANGE_LOG_SIZE, seatUpdates::publish);
+    private final ResponseBytesCache catalogResponses = new ResponseBytesCache(CATALOG_REQUESTS);
+    private final SingleFlight readFlights = new SingleFlight();
+    private final IdempotencyCache bookingResults = new IdempotencyCache(IDEMPOTENCY_WINDOW_MILLIS,
+            (int) Math.min(Integer.MAX_VALUE, PEAK_BOOKINGS_PER_SECOND * IDEMPOTENCY_WINDOW_MILLIS / 1000));
+    private final SessionTable sessions = new SessionTable(SESSION_IDLE_TIMEOUT_MILLIS);
+    // Profiles are keyed by userPK, so every spelling of a username that the database matches finds the
+    // same entry. Call userProfiles.invalidate(userPK) after committing any change to a user's profile.
+    private final LruCache<Integer, UserProfile> userProfiles = new LruCache<>(USER_PROFILE_CACHE_SIZE);
+    private final ReservationListCache reservationLists = new ReservationListCache(RESERVATION_CACHE_IDLE_MILLIS);
+    private final RequestRegistry requests = new RequestRegistry(requestWorkers, writeWorkers, readFlights,
+            () -> connectionPool == null ? 0 : connectionPool.getThreadHeldNanos());
+    private final long startedAtMillis = System.currentTimeMillis();
 
 
     /**
      * Initializes the Ticket Reservation Server.
      * - Ensures only one instance runs by checking if the port is already in use.
      * - Establishes a server socket to listen for client connections.
-     * - Loads the MySQL JDBC driver and sets up a database connection.
+     * - Loads the MySQL JDBC driver and opens the database connection pool.
      * - Handles errors gracefully, including server port conflicts and database connection failures.
      * 
      * @param port The port number on which the server listens for client connections.
      */
     public TicketReservationServer(int port) {
+        registerRequests();
         try {
             // Check if the port is already in use before attempting to bind the server socket
             if (isPortOccupied(port)) {
@@ -58,9 +195,14 @@ public class TicketReservationServer {
                 return; // Prevent duplicate startup
             }
 
-            // Create the server socket and listen on all interfaces
-            serverSocket = new ServerSocket(port, 50, InetAddress.getByName("0.0.0.0"));
-            System.out.println("Server is listening on port " + port);
+            // Create the server socket (or selector channel) and listen on all interfaces
+            if (isSelectorMode()) {
+                serverChannel = ServerSocketChannel.open();
+                serverChannel.bind(new InetSocketAddress(InetAddress.getByName("0.0.0.0"), port), 1024);
+            } else {
+                serverSocket = new ServerSocket(port, 50, InetAddress.getByName("0.0.0.0"));
+            }
+            System.out.println("Server is listening on port " + port + " (" + SERVER_MODE + " mode)");
 
             // Load the MySQL JDBC driver
             Class.forName("com.mysql.jdbc.Driver");
@@ -73,14 +215,22 @@ public class TicketReservationServer {
                     + "&allowPublicKeyRetrieval=true"
                     + "&user="     + DBSQL_USER_NAME
                     + "&password=" + DBSQL_PASSWORD;
-            conn = DriverManager.getConnection(url);
+            connectionPool = new ConnectionPool(url, DB_POOL_MIN_SIZE, DB_POOL_MAX_SIZE,
+                    DB_ACQUIRE_TIMEOUT_MILLIS, DB_LEAK_THRESHOLD_MILLIS, DB_LEAK_RECLAIM_MILLIS, DB_LEAK_TRACE);
+            System.out.println("Database connection pool ready (" + DB_POOL_MIN_SIZE + "-" + DB_POOL_MAX_SIZE + " connections)");
+
+            // Load the in-memory seat counters used to admit bookings, and the show listings
+            try (Connection conn = connectionPool.getConnection()) {
+                seatInventory.load(conn);
+                showCatalog.load(conn);
+            }
+            System.out.println("Seat inventory and show catalog loaded");
 
-            // Create a statement object for executing SQL commands
-            try {
-                stmt = conn.createStatement();
-                System.out.println("Database connection successful! Statement object: " + stmt);
-            } catch (SQLException e) {
-                System.err.println("Error creating Statement object: " + e.getMessage());
+            if (GROUP_COMMIT) {
+                bookingCommitter = new GroupCommitter<>(connectionPool, GROUP_COMMIT_WINDOW_MILLIS,
+                        GROUP_COMMIT_MAX_BATCH, new BookingWriter());
+                System.out.println("Group commit enabled (" + GROUP_COMMIT_WINDOW_MILLIS + " ms window, up to "
+                        + GROUP_COMMIT_MAX_BATCH + " bookings per transaction)");
             }
         } catch (BindException e) {
             System.err.println("Error: Server is already running on this port.");
@@ -119,18 +269,39 @@ public class TicketReservationServer {
     /**
      * Starts the server to continuously listen for client connections.
      * - Accepts incoming client connections through the server socket.
-     * - Each connected client is handled in a separate thread for concurrent processing.
+     * - Each connected client is handled on its own virtual thread (or a pooled platform thread
+     *   when "mtrs.clientThreads" is set to "platform").
+     * - Caps the number of concurrently connected clients; connections beyond the cap receive
+     *   an immediate "server busy" reply and are closed.
      * - Runs indefinitely to serve multiple client requests.
      *
      * Note: If an IOException occurs during client acceptance, it is logged.
      */
     public void start() {
+        seatUpdates.start();
+        if (isSelectorMode()) {
+            startSelectorServer();
+            return;
+        }
+
+        ExecutorService clientExecutor = createClientExecutor();
+        System.out.println("Serving clients on " + CLIENT_THREAD_MODE + " threads (max " + MAX_ACTIVE_CLIENTS + " connections)");
         while (true) {
             try {
                 Socket socket = serverSocket.accept();
+
+                // Refuse the connection right away if we are already at capacity.
+                if (!clientPermits.tryAcquire()) {
+                    rejectBusyClient(socket);
+                    continue;
+                }
                 System.out.println("Client connected: " + socket.getInetAddress());
-                // For each incoming connection, handle client in a new thread.
-                new Thread(new ClientHandler(socket)).start();
+                try {
+                    clientExecutor.execute(new ClientHandler(socket));
+                } catch (RejectedExecutionException e) {
+                    clientPermits.release();
+                    socket.close();
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -138,6 +309,106 @@ public class TicketReservationServer {
     }
 
 
+    /**
+     * Creates the executor that runs one ClientHandler per connected socket.
+     * - "virtual" (default): one virtual thread per client, so idle sessions cost no platform stack.
+     * - "platform": a cached pool of platform threads, reused between connections.
+     *
+     * @return The executor used to run client handlers.
+     */
+    private ExecutorService createClientExecutor() {
+        if ("platform".equalsIgnoreCase(CLIENT_THREAD_MODE)) {
+            return Executors.newCachedThreadPool();
+        }
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+
+    /**
+     * Checks whether the server runs the non-blocking selector front end.
+     *
+     * @return True if "mtrs.serverMode" is set to "nio".
+     */
+    private static boolean isSelectorMode() {
+        return "nio".equalsIgnoreCase(SERVER_MODE);
+    }
+
+
+    /**
+     * Runs the selector front end instead of one thread per connection.
+     * - A few I/O threads own all sockets; request frames are handled on a fixed worker pool.
+     * - Uses the same connection cap and "server busy" reply as the blocking front end.
+     */
+    private void startSelectorServer() {
+        try {
+            SelectorServer selectorServer = new SelectorServer(serverChannel, NIO_IO_THREADS, requestWorkers,
+                    clientPermits, FramedConnectionHandler::new, serializeFrame(SERVER_BUSY_MESSAGE), PUSH_BUFFER_FRAMES);
+            System.out.println("Serving clients with " + NIO_IO_THREADS + " I/O threads and "
+                    + WORKER_THREADS + " workers (max " + MAX_ACTIVE_CLIENTS + " connections)");
+            selectorServer.run();
+        } catch (IOException e) {
+            System.err.println("Error starting selector server: " + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Handles one serialized-object request frame.
+     * - The frame holds a self-contained object stream: the request type, then its payload if it has one.
+     * - The response is returned as a self-contained object stream as well; catalog responses
+     *   are serialized once per catalog version.
+     *
+     * @param frame The request frame body.
+     * @return The response frame body.
+     * @throws IOException If the frame cannot be decoded or the response cannot be encoded.
+     * @throws ClassNotFoundException If the frame contains an unknown class.
+     */
+    private byte[] handleSerializedFrame(byte[] frame) throws IOException, ClassNotFoundException {
+        String requestType;
+        Object payload;
+        try (ObjectInputStream inputFromClient = new ObjectInputStream(new ByteArrayInputStream(frame))) {
+            requestType = (String) inputFromClient.readObject();
+            payload = requests.hasPayload(requestType) ? inputFromClient.readObject() : null;
+        }
+        return catalogResponses.serialized(requestType, requests.dispatch(requestType, payload));
+    }
+
+
+    /**
+     * Serializes a single response object into a self-contained frame body.
+     *
+     * @param response The object to serialize.
+     * @return The serialized bytes.
+     * @throws IOException If the object cannot be serialized.
+     */
+    private static byte[] serializeFrame(Object response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputToClient = new ObjectOutputStream(bytes)) {
+            outputToClient.writeObject(response);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Sends a "server busy" reply to a client that arrived while the server was at capacity.
+     * - Uses the same object stream format as regular responses so clients display the message.
+     * - Closes the socket immediately afterwards.
+     *
+     * @param socket The socket of the rejected client.
+     */
+    private void rejectBusyClient(Socket socket) {
+        System.out.println("Server busy, rejecting client: " + socket.getInetAddress());
+        try (Socket rejected = socket;
+                ObjectOutputStream outputToClient = new ObjectOutputStream(rejected.getOutputStream())) {
+            outputToClient.writeObject(SERVER_BUSY_MESSAGE);
+            outputToClient.flush();
+        } catch (IOException e) {
+            System.err.println("Error rejecting client: " + e.getMessage());
+        }
+    }
+
+
     /**
      * Handles user login authentication.
      * - Checks the database for a matching username and password.
@@ -149,30 +420,52 @@ public class TicketReservationServer {
      * @return A success or error message based on authentication results.
      */
     private String handleLoginUser(LoginRequest loginRequest) {
-        try {
-            String query = "SELECT role, firstName, lastName FROM registereduser WHERE username = ? AND password = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
+        Object user = authenticate(loginRequest);
+        return user instanceof SessionTable.Session session ? greetingFor(session) : (String) user;
+    }
+
+
+    /**
+     * Logs a user in and opens a session for them.
+     * - Authenticates exactly like LOGIN_USER.
+     * - The returned token identifies the user in later requests, which then need no user lookup.
+     *
+     * @param loginRequest The login request containing username, password, and role.
+     * @return A SessionInfo with the token and greeting, or an error message.
+     */
+    private Object handleStartSession(LoginRequest loginRequest) {
+        Object user = authenticate(loginRequest);
+        if (!(user instanceof SessionTable.Session session)) {
+            return user;
+        }
+        String token = sessions.open(session);
+        return new SessionInfo(token, session.getUsername(), session.getRole(), greetingFor(session));
+    }
+
+
+    /**
+     * Checks a login against the database.
+     *
+     * @param loginRequest The login request containing username, password, and role.
+     * @return The user's session (not yet opened), or an error message for failed logins or role mismatches.
+     */
+    private Object authenticate(LoginRequest loginRequest) {
+        String query = "SELECT userPK, role, firstName, lastName FROM registereduser WHERE username = ? AND password = ?";
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, loginRequest.getUsername());
             pstmt.setString(2, loginRequest.getPassword());
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return "Invalid username or password.";
+                }
                 String storedRole = rs.getString("role");
-                String firstName = rs.getString("firstname");
-                String lastName = rs.getString("lastname");
-
                 // Compare the role provided in the login request with the stored role.
-                if (storedRole.equalsIgnoreCase(loginRequest.getRole())) {
-                    if ("admin".equalsIgnoreCase(storedRole)) {
-                        return "Admin login successful!";
-                    } else {
-                        return "Login successful, welcome " + firstName + " " + lastName + ".";
-                    }
-                } else {
+                if (!storedRole.equalsIgnoreCase(loginRequest.getRole())) {
                     return "Error: Role mismatch.";
                 }
-            } else {
-                return "Invalid username or password.";
+                return new SessionTable.Session(rs.getInt("userPK"), loginRequest.getUsername(), storedRole,
+                        rs.getString("firstname"), rs.getString("lastname"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -181,6 +474,14 @@ public class TicketReservationServer {
     }
 
 
+    private static String greetingFor(SessionTable.Session session) {
+        if ("admin".equalsIgnoreCase(session.getRole())) {
+            return "Admin login successful!";
+        }
+        return "Login successful, welcome " + session.getFirstName() + " " + session.getLastName() + ".";
+    }
+
+
     /**
      * Adds a new movie to the database.
      * - Checks if a movie with the same title already exists to prevent duplicates.
@@ -191,7 +492,7 @@ public class TicketReservationServer {
      * @return A message indicating success or failure of the operation.
      */
     private String handleAddMovie(Movie movie) {
-        try {
+        try (Connection conn = connectionPool.getConnection()) {
             // First, check if a movie with the same title already exists.
             String checkSQL = "SELECT COUNT(*) FROM movie WHERE title = ?";
             PreparedStatement checkStmt = conn.prepareStatement(checkSQL);
@@ -211,6 +512,7 @@ public class TicketReservationServer {
             pstmt.setString(3, movie.getInfo());
             pstmt.executeUpdate();
             pstmt.close();
+            movieCatalog.invalidate();
 
             return "Movie added successfully!";
         } catch (SQLException ex) {
@@ -220,18 +522,38 @@ public class TicketReservationServer {
     }
 
 
+    /**
+     * Returns the movie catalog.
+     * - Served from an immutable in-memory snapshot; the database is only read after the catalog
+     *   changed (a movie was added or deleted) or on the first request.
+     * - Concurrent requests that miss share one load, so a cache hit never waits on other requests.
+     * - Handles SQL exceptions to ensure robustness; a failed load is not cached.
+     *
+     * @return An unmodifiable list of MovieItem objects representing available movies.
+     */
+    private List<MovieItem> handleGetMovies() {
+        try {
+            return movieCatalog.get(this::loadMovies);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+
     /**
      * Retrieves a list of movies from the database.
      * - Executes a query to fetch movie details, including ID, title, rating, and description.
-     * - Populates and returns a list of MovieItem objects.
-     * - Handles SQL exceptions to ensure robustness.
+     * - Populates and returns an unmodifiable list of MovieItem objects.
      *
      * @return A list of MovieItem objects representing available movies.
+     * @throws SQLException If the movies cannot be read.
      */
-    private List<MovieItem> handleGetMovies() {
+    private List<MovieItem> loadMovies() throws SQLException {
         List<MovieItem> movies = new ArrayList<>();
         String query = "SELECT moviePK, title, rating, info FROM movie";
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query);
                 ResultSet rs = pstmt.executeQuery()) {
             while (rs.next()) {
                 int movieId = rs.getInt("moviePK");
@@ -240,43 +562,37 @@ public class TicketReservationServer {
                 String description = rs.getString("info");
                 movies.add(new MovieItem(movieId, title, rating, description));
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
         }
-        return movies;
+        System.out.println("Movie catalog loaded: " + movies.size() + " movies (version " + movieCatalog.getVersion()
+                + ", " + movieCatalog.getHits() + " hits, " + movieCatalog.getMisses() + " misses)");
+        return List.copyOf(movies);
     }
 
 
     /**
-     * Retrieves a list of available shows from the database.
-     * - Joins the "shows" table with the "movie" table to fetch show details.
-     * - Extracts key information such as show ID, movie title, date, time, room, available seats, and price.
-     * - Returns a list of ShowItem objects representing scheduled shows.
-     * - Handles SQL exceptions to ensure robustness.
+     * Looks up a movie's title in the cached catalog.
      *
-     * @return A list of ShowItem objects containing details of available shows.
+     * @param moviePK The movie's primary key.
+     * @return The title, or an empty string if the movie is not in the catalog.
      */
-    private List<ShowItem> handleGetShows() {
-        List<ShowItem> shows = new ArrayList<>();
-        String query = "SELECT s.showPK, m.title, s.showDate, s.showTime, s.roomNumber, s.availableSeats, s.price " +
-                "FROM shows s " +
-                "JOIN movie m ON s.moviePK = m.moviePK";
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
-                ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                int showId = rs.getInt("showPK");
-                String movieTitle = rs.getString("title");
-                Date showDate = rs.getDate("showDate");
-                Time showTime = rs.getTime("showTime");
-                int roomNumber = rs.getInt("roomNumber");
-                int availableSeats = rs.getInt("availableSeats");
-                double price = rs.getDouble("price");
-                shows.add(new ShowItem(showId, movieTitle, showDate, showTime, roomNumber, availableSeats, price));
+    private String movieTitleOf(int moviePK) {
+        for (MovieItem movie : handleGetMovies()) {
+            if (movie.getMovieID() == moviePK) {
+                return movie.getMovieName();
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
         }
-        return shows;
+        return "";
+    }
+
+
+    /**
+     * Returns every scheduled show.
+     * - Served from the current show snapshot; no database access.
+     *
+     * @return An unmodifiable list of ShowItem objects, ordered by show ID.
+     */
+    private List<ShowItem> handleGetShows() {
+        return showCatalog.snapshot().getAllShows();
     }
 
 
@@ -290,7 +606,7 @@ public class TicketReservationServer {
      * @return A message indicating the success or failure of the operation.
      */
     private String handleAddShow(Show show) {
-        try {
+        try (Connection conn = connectionPool.getConnection()) {
             // Validate scheduling: check if there's an existing show in the same room and on the same date
             String checkSQL = "SELECT showtime FROM shows WHERE roomnumber = ? AND showdate = ?";
             PreparedStatement checkStmt = conn.prepareStatement(checkSQL);
@@ -321,7 +637,7 @@ public class TicketReservationServer {
             // Prepare an SQL statement for inserting a new show record.
             String insertSQL = "INSERT INTO shows (moviepk, showdate, showtime, roomnumber, availableseats, price) " +
                     "VALUES (?, ?, ?, ?, ?, ?)";
-            PreparedStatement pstmt = conn.prepareStatement(insertSQL);
+            PreparedStatement pstmt = conn.prepareStatement(insertSQL, Statement.RETURN_GENERATED_KEYS);
             pstmt.setInt(1, show.getMoviePK());
             pstmt.setDate(2, show.getShowDate());
             pstmt.setTime(3, show.getShowTime());
@@ -332,6 +648,19 @@ public class TicketReservationServer {
             // Execute the update.
             pstmt.executeUpdate();
 
+            // Make the new show bookable and list it.
+            ResultSet keys = pstmt.getGeneratedKeys();
+            if (keys.next()) {
+                int showID = keys.getInt(1);
+                seatInventory.put(showID, show.getMoviePK(),
+                        LocalDateTime.of(show.getShowDate().toLocalDate(), show.getShowTime().toLocalTime()),
+                        show.getRoomNumber(), show.getPrice(), show.getAvailableSeats());
+                showCatalog.put(show.getMoviePK(), new ShowItem(showID, movieTitleOf(show.getMoviePK()),
+                        show.getShowDate(), show.getShowTime(), show.getRoomNumber(), show.getAvailableSeats(),
+                        show.getPrice()));
+            }
+            keys.close();
+
             return "Show added successfully!";
         } catch (SQLException ex) {
             ex.printStackTrace();
@@ -350,13 +679,15 @@ public class TicketReservationServer {
      * @return A message indicating success or failure of the deletion.
      */
     private String handleDeleteMovie(int movieID) {
-        try {
+        try (Connection conn = connectionPool.getConnection()) {
             // Delete all associated shows first
             String deleteShowsSQL = "DELETE FROM shows WHERE moviePK = ?";
             PreparedStatement deleteShowsStmt = conn.prepareStatement(deleteShowsSQL);
             deleteShowsStmt.setInt(1, movieID);
             deleteShowsStmt.executeUpdate();
             deleteShowsStmt.close();
+            seatInventory.removeMovie(movieID);
+            showCatalog.removeMovie(movieID);
 
             // Delete the movie itself
             String deleteMovieSQL = "DELETE FROM movie WHERE moviePK = ?";
@@ -364,6 +695,8 @@ public class TicketReservationServer {
             deleteMovieStmt.setInt(1, movieID);
             int affectedRows = deleteMovieStmt.executeUpdate();
             deleteMovieStmt.close();
+            movieCatalog.invalidate();
+            reservationLists.invalidateAll(); // cached reservations may name the deleted shows
 
             return (affectedRows > 0) ? "Movie and all associated shows deleted successfully!"
                     : "Error: Movie not found.";
@@ -384,12 +717,15 @@ public class TicketReservationServer {
      * @return A message indicating success or failure of the deletion.
      */
     private String handleDeleteShow(int showID) {
-        try {
+        try (Connection conn = connectionPool.getConnection()) {
             String deleteSQL = "DELETE FROM shows WHERE showPK = ?";
             PreparedStatement pstmt = conn.prepareStatement(deleteSQL);
             pstmt.setInt(1, showID);
             int affectedRows = pstmt.executeUpdate();
             pstmt.close();
+            seatInventory.remove(showID);
+            showCatalog.remove(showID);
+            reservationLists.invalidateAll(); // cached reservations may name the deleted show
 
             return (affectedRows > 0) ? "Show deleted successfully!" : "Error: Show not found.";
         } catch (SQLException ex) {
@@ -400,223 +736,579 @@ public class TicketReservationServer {
 
 
     /**
-     * Retrieves a list of available shows from the database.
+     * Returns the shows that can still be booked.
      * - Filters shows to include only those with available seats.
-     * - Joins the "shows" table with the "movie" table to fetch show and movie details.
-     * - Returns a list of ShowItem objects representing shows that can still be booked.
-     * - Handles SQL exceptions to ensure robustness.
+     * - Served from the current show snapshot, where the filtered list is computed once per version.
      *
-     * @return A list of ShowItem objects containing details of available shows.
+     * @return An unmodifiable list of ShowItem objects, ordered by show ID.
      */
     private List<ShowItem> handleGetAvailableShows() {
-        List<ShowItem> shows = new ArrayList<>();
-        String query = "SELECT s.showPK, s.availableSeats, s.price, m.title, s.showDate, s.showTime, s.roomNumber " +
-                "FROM shows s JOIN movie m ON s.moviePK = m.moviePK " +
-                "WHERE s.availableSeats > 0";
-        try (PreparedStatement pstmt = conn.prepareStatement(query);
-                ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                int showId = rs.getInt("showPK");
-                String movieTitle = rs.getString("title");
-                Date showDate = rs.getDate("showDate");
-                Time showTime = rs.getTime("showTime");
-                int roomNumber = rs.getInt("roomNumber");
-                int availableSeats = rs.getInt("availableSeats");
-                double price = rs.getDouble("price");
-                shows.add(new ShowItem(showId, movieTitle, showDate, showTime, roomNumber, availableSeats, price));
+        return showCatalog.snapshot().getAvailableShows();
+    }
+
+
+    /**
+     * Returns the changes to the show list since a version the client already has.
+     * - Lists only the shows added, changed or removed since then; typically a few seat counts.
+     * - Sends the full list instead when the version is too old for the change log, or unknown
+     *   (e.g., ShowDelta.NO_VERSION, or a version from before a server restart).
+     *
+     * @param version The version from the client's last ShowDelta.
+     * @return The changes, tagged with the current version.
+     */
+    private ShowDelta handleGetShowsSince(long version) {
+        return showCatalog.snapshot().deltaSince(version);
+    }
+
+
+    /**
+     * Returns one page of the show list, in show ID order.
+     * - Keyset pagination: the cursor holds the last show ID sent, and the page starts at the next
+     *   higher one, so shows added or removed between pages never shift the remaining pages.
+     * - Served from the current show snapshot. The page carries the snapshot's version, so the client
+     *   can keep the loaded pages current with GET_SHOWS_SINCE.
+     *
+     * @param request The cursor (null for the first page) and page size.
+     * @return A Page of ShowItem objects, or an error message if the cursor is not valid.
+     */
+    private Object handleGetShowsPage(PageRequest request) {
+        int afterShowID = 0;
+        if (request.getCursor() != null) {
+            afterShowID = decodeCursor("shows", request.getCursor());
+            if (afterShowID < 0) {
+                return INVALID_CURSOR_MESSAGE;
             }
-        } catch (SQLException ex) {
-            ex.printStackTrace();
         }
-        return shows;
+        int pageSize = pageSize(request);
+        ShowCatalog.Snapshot snapshot = showCatalog.snapshot();
+        // One extra show tells whether another page follows.
+        List<ShowItem> shows = snapshot.showsAfter(afterShowID, pageSize + 1);
+        String nextCursor = null;
+        if (shows.size() > pageSize) {
+            shows = shows.subList(0, pageSize);
+            nextCursor = encodeCursor("shows", shows.get(pageSize - 1).getShowID());
+        }
+        return new Page<>(List.copyOf(shows), nextCursor, snapshot.getVersion());
     }
 
 
     /**
      * Handles ticket booking for a movie show.
-     * - Validates that the show exists and has available seats.
-     * - Ensures that the booking is made before the show time.
-     * - Prevents users from reserving multiple shows that overlap in time.
-     * - Deducts seats, records reservations, and processes payment.
-     * - Uses transactions to maintain data integrity and rollbacks on failure.
+     * - A request carrying an idempotency key that was already used by the same user is not run again:
+     *   it gets the original result (waiting for it if the original is still running).
+     * - Only successful bookings are remembered; after a refusal or error the same key may be tried again,
+     *   since nothing was written.
+     * - Books for the user of the request's session token; requests without a token are refused, since
+     *   the username they carry is only the client's claim.
      *
-     * @param bookingReq The BookingRequest containing show ID, number of tickets, username, and payment details.
+     * @param bookingReq The BookingRequest containing show ID, number of tickets, session token,
+     *                   payment details, and optionally an idempotency key.
      * @return A message indicating success or failure of the booking and payment process.
      */
     private String handleBookTicket(BookingRequest bookingReq) {
-        int showID = bookingReq.getShowID();
-        int numTickets = bookingReq.getNumTickets();
-        String username = bookingReq.getUsername();
-        String cardNumber = bookingReq.getCreditCardNumber();
+        if (bookingReq.getSessionToken() == null) {
+            return SESSION_REQUIRED_MESSAGE;
+        }
+        SessionTable.Session session = sessions.resolve(bookingReq.getSessionToken());
+        if (session == null) {
+            return SESSION_EXPIRED_MESSAGE;
+        }
+        if (bookingReq.getIdempotencyKey() == null) {
+            return reserveAndBook(bookingReq, session);
+        }
 
+        String key = session.getUsername() + "\n" + bookingReq.getIdempotencyKey();
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> original = bookingResults.claim(key, result);
+        if (original != null) {
+            return original.join();
+        }
+
+        String message = null;
         try {
-            // Begin transaction.
-            conn.setAutoCommit(false);
+            message = reserveAndBook(bookingReq, session);
+            return message;
+        } finally {
+            if (message == null || !message.startsWith(BOOKING_SUCCESS_MESSAGE)) {
+                bookingResults.release(key, result);
+            }
+            result.complete(message != null ? message : "Error processing booking.");
+        }
+    }
 
-            // Check available seats and get show details (date/time and room number).
-            String checkSQL = "SELECT availableSeats, showdate, showtime, roomnumber FROM shows WHERE showPK = ?";
-            PreparedStatement checkStmt = conn.prepareStatement(checkSQL);
-            checkStmt.setInt(1, showID);
-            ResultSet rs = checkStmt.executeQuery();
 
-            java.sql.Date showDateSQL = null;
-            java.sql.Time showTimeSQL = null;
-            int availableSeats = 0;
-            if (rs.next()) {
-                availableSeats = rs.getInt("availableSeats");
-                showDateSQL = rs.getDate("showdate");
-                showTimeSQL = rs.getTime("showtime");
-                // Combine SQL Date and Time into a LocalDateTime.
-                LocalDate showDate = showDateSQL.toLocalDate();
-                LocalTime showTime = showTimeSQL.toLocalTime();
-                LocalDateTime showDateTime = LocalDateTime.of(showDate, showTime);
-
-                // Ensure that the current local time is before the show time.
-                if (LocalDateTime.now().isAfter(showDateTime)) {
-                    rs.close();
-                    checkStmt.close();
-                    conn.rollback();
-                    return "Error: Cannot book ticket; the show time has already passed.";
-                }
+    /**
+     * Takes the seats for a booking and records it.
+     * - Rejects invalid ticket counts and credit card numbers up front.
+     * - Checks the show time and takes the seats from the in-memory seat inventory, so sold-out
+     *   and over-sized requests are turned away without a database round trip.
+     * - Only bookings that got their seats are written to the database; if that fails, the seats are given back.
+     * - If the commit failed, the booking may have been written anyway: it keeps its seats, and the seat
+     *   counts are read again from the database once no other booking or cancellation is running.
+     * - A committed booking is added to the user's cached reservation list.
+     *
+     * @param bookingReq The BookingRequest containing show ID, number of tickets, and payment details.
+     * @param session The booking user's session.
+     * @return A message indicating success or failure of the booking and payment process.
+     */
+    private String reserveAndBook(BookingRequest bookingReq, SessionTable.Session session) {
+        int numTickets = bookingReq.getNumTickets();
+        String cardNumber = bookingReq.getCreditCardNumber();
 
-                // Ensure that there are enough available seats.
-                if (availableSeats < numTickets) {
-                    rs.close();
-                    checkStmt.close();
-                    conn.rollback();
-                    return "Error: Only " + availableSeats + " seats are available for this show.";
-                }
-            } else {
-                conn.rollback();
-                return "Error: Show not found.";
+        if (numTickets <= 0) {
+            return "Error: Number of tickets must be at least 1.";
+        }
+        // Validate credit card number (must be exactly 5 digits).
+        if (cardNumber == null || !cardNumber.matches("\\d{5}")) {
+            return "Error: Invalid credit card number. Must be exactly 5 digits.";
+        }
+
+        SeatInventory.ShowSeats seats = seatInventory.get(bookingReq.getShowID());
+        if (seats == null) {
+            return "Error: Show not found.";
+        }
+        if (LocalDateTime.now().isAfter(seats.getStartsAt())) {
+            return "Error: Cannot book ticket; the show time has already passed.";
+        }
+        Lock seatChange = seatInventory.changeLock();
+        seatChange.lock();
+        try {
+            if (!seats.tryReserve(numTickets)) {
+                return "Error: Only " + seats.getAvailableSeats() + " seats are available for this show.";
             }
-            rs.close();
-            checkStmt.close();
 
-            // Get userPK based on the provided username.
-            int userPK = 0;
-            String userSQL = "SELECT userPK FROM registereduser WHERE username = ?";
-            PreparedStatement userStmt = conn.prepareStatement(userSQL);
-            userStmt.setString(1, username);
-            ResultSet userRS = userStmt.executeQuery();
-            if (userRS.next()) {
-                userPK = userRS.getInt("userPK");
-            } else {
-                userRS.close();
-                userStmt.close();
-                conn.rollback();
-                return "Error: User not found.";
-            }
-            userRS.close();
-            userStmt.close();
-
-            // Check if the user already has a reservation at the same time in the same room.
-            String conflictSQL =
-                    "SELECT COUNT(*) AS cnt " +
-                            "FROM reservation r INNER JOIN shows s ON r.showpk = s.showPK " +
-                            "WHERE r.userpk = ? AND s.showdate = ? AND s.showtime = ?";
-            PreparedStatement conflictStmt = conn.prepareStatement(conflictSQL);
-            conflictStmt.setInt(1, userPK);
-            conflictStmt.setDate(2, showDateSQL);
-            conflictStmt.setTime(3, showTimeSQL);
-            ResultSet conflictRS = conflictStmt.executeQuery();
-            if (conflictRS.next()) {
-                int count = conflictRS.getInt("cnt");
-                if (count > 0) {
-                    conflictRS.close();
-                    conflictStmt.close();
-                    conn.rollback();
-                    return "Error: You already have a reservation at the same time for this theater.";
+            boolean seatsTaken = false;
+            try {
+                String result = bookTicketInDatabase(bookingReq, session, seats);
+                boolean booked = result.startsWith(BOOKING_SUCCESS_MESSAGE);
+                seatsTaken = booked || result.equals(BOOKING_UNCONFIRMED_MESSAGE);
+                if (booked) {
+                    rememberBooking(session, result);
+                }
+                return result;
+            } finally {
+                if (seatsTaken) {
+                    showCatalog.adjustSeats(seats.getShowPK(), -numTickets);
+                } else {
+                    seats.release(numTickets);
                 }
             }
-            conflictRS.close();
-            conflictStmt.close();
+        } finally {
+            seatChange.unlock();
+            reloadSeatsIfStale();
+        }
+    }
 
-            // Deduct seats from the shows table.
-            String updateSQL = "UPDATE shows SET availableSeats = availableSeats - ? WHERE showPK = ?";
-            PreparedStatement updateStmt = conn.prepareStatement(updateSQL);
-            updateStmt.setInt(1, numTickets);
-            updateStmt.setInt(2, showID);
-            int rowsUpdated = updateStmt.executeUpdate();
-            updateStmt.close();
-            if (rowsUpdated <= 0) {
-                conn.rollback();
-                return "Error: Ticket booking failed during seat update.";
-            }
 
-            // Insert reservation record.
-            String insertResSQL = "INSERT INTO reservation (userpk, showpk, numberoftickets, reservationtime) VALUES (?, ?, ?, NOW())";
-            PreparedStatement resStmt = conn.prepareStatement(insertResSQL, Statement.RETURN_GENERATED_KEYS);
-            resStmt.setInt(1, userPK);
-            resStmt.setInt(2, showID);
-            resStmt.setInt(3, numTickets);
-            int resRows = resStmt.executeUpdate();
-            if (resRows <= 0) {
-                resStmt.close();
-                conn.rollback();
-                return "Error: Reservation failed.";
-            }
-            ResultSet resKeys = resStmt.getGeneratedKeys();
-            int reservationID = 0;
-            if (resKeys.next()) {
-                reservationID = resKeys.getInt(1);
-            }
-            resKeys.close();
-            resStmt.close();
+    /**
+     * Marks the seat counts stale after a booking's commit failed, since the database may have committed it.
+     *
+     * @param message The message the booking was written with.
+     * @return The message for the client.
+     */
+    private String bookingCommitFailed(String message) {
+        if (!message.startsWith(BOOKING_SUCCESS_MESSAGE)) {
+            return message; // a refused booking had already undone its changes
+        }
+        seatInventory.markStale();
+        return BOOKING_UNCONFIRMED_MESSAGE;
+    }
 
-            // Validate credit card number (must be exactly 5 digits).
-            if (cardNumber == null || !cardNumber.matches("\\d{5}")) {
-                conn.rollback();
-                return "Error: Invalid credit card number. Must be exactly 5 digits.";
-            }
 
-            // Retrieve ticket price from the shows table.
-            String priceSQL = "SELECT price FROM shows WHERE showPK = ?";
-            PreparedStatement priceStmt = conn.prepareStatement(priceSQL);
-            priceStmt.setInt(1, showID);
-            ResultSet priceRS = priceStmt.executeQuery();
-            double ticketPrice = 0.0;
-            if (priceRS.next()){
-                ticketPrice = priceRS.getDouble("price");
+    // Reads the seat counts again if they were marked stale, and moves the show catalog by the same amounts.
+    private void reloadSeatsIfStale() {
+        try {
+            seatInventory.reloadIfStale(connectionPool).forEach(showCatalog::adjustSeats);
+        } catch (SQLException ex) {
+            ex.printStackTrace(); // still marked stale, so the next seat change tries again
+        }
+    }
+
+
+    /**
+     * Adds a committed booking to the user's cached reservation list.
+     * - Reads the new reservation back by its primary key, so its details are formatted by the same
+     *   query as a full load; skipped when the user has no cached list. The check and the read
+     *   run on the user's lock stripe, so a load of the user's list running meanwhile is updated too.
+     * - If the row cannot be read, the user's list is dropped rather than left without the booking.
+     *
+     * @param session The booking user's session.
+     * @param result The booking's success message, which ends with the reservation ID.
+     */
+    private void rememberBooking(SessionTable.Session session, String result) {
+        int reservationID = Integer.parseInt(result.substring(BOOKED_RESERVATION_ID.length()));
+        try {
+            reservationLists.added(session.getUserPK(), () -> readReservation(reservationID));
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            reservationLists.invalidate(session.getUserPK());
+        }
+    }
+
+
+    // Reads one reservation by its primary key, or returns null if it is gone.
+    private ReservationItem readReservation(int reservationID) throws SQLException {
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(RESERVATION_QUERY + RESERVATION_BY_ID)) {
+            pstmt.setInt(1, reservationID);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? toReservationItem(rs) : null;
             }
-            priceRS.close();
-            priceStmt.close();
-            double totalAmount = ticketPrice * numTickets;
+        }
+    }
 
-            // Insert payment record.
-            String insertPaySQL = "INSERT INTO payment (reservationpk, amount, creditcardnumber) VALUES (?, ?, ?)";
-            PreparedStatement payStmt = conn.prepareStatement(insertPaySQL);
-            payStmt.setInt(1, reservationID);
-            payStmt.setDouble(2, totalAmount);
-            payStmt.setString(3, cardNumber);
-            int payRows = payStmt.executeUpdate();
-            payStmt.close();
-            if (payRows <= 0) {
-                conn.rollback();
-                return "Error: Payment processing failed.";
+
+    /**
+     * Records a booking whose seats have already been taken from the seat inventory.
+     * - With group commit enabled, the booking is queued and written and committed together with other
+     *   bookings; the committer writes one batch at a time, so no show lock is needed.
+     * - Otherwise it runs in its own transaction on a pooled connection, holding the show's lock,
+     *   so bookings for different shows run in parallel while those for one show take turns.
+     *
+     * @param bookingReq The BookingRequest containing show ID, number of tickets, and payment details.
+     * @param session The booking user's session.
+     * @param seats The show's seat inventory entry (start time and price).
+     * @return A message indicating success or failure of the booking and payment process.
+     */
+    private String bookTicketInDatabase(BookingRequest bookingReq, SessionTable.Session session,
+            SeatInventory.ShowSeats seats) {
+        if (bookingCommitter != null) {
+            try {
+                return bookingCommitter.submit(new PendingBooking(bookingReq, session, seats)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "Error processing booking: interrupted.";
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                return "Error processing booking: " + e.getCause().getMessage();
             }
+        }
 
-            // If everything is successful, commit the transaction.
-            conn.commit();
-            return "Booking and payment processed successfully! Reservation ID: " + reservationID;
-        } catch (SQLException ex) {
+        // Take the show's lock before borrowing a connection, so waiting bookings do not tie up the pool.
+        Lock showLock = showLocks.lockFor(seats.getShowPK());
+        showLock.lock();
+        try (Connection conn = connectionPool.getConnection()) {
+            // Begin transaction on this request's own connection. Anything left uncommitted
+            // is rolled back when the connection is returned to the pool.
+            conn.setAutoCommit(false);
+            String result = writeBooking(conn, bookingReq, session, seats, null);
+            // Commit whatever the booking kept (nothing, if it was refused).
             try {
-                conn.rollback();
-            } catch (SQLException e) {
-                e.printStackTrace();
+                conn.commit();
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+                return bookingCommitFailed(result);
             }
+            return result;
+        } catch (SQLException ex) {
             ex.printStackTrace();
             return "Error processing booking: " + ex.getMessage();
-        }
-        finally {
-            try { conn.setAutoCommit(true); } catch (SQLException e) { e.printStackTrace(); }
+        } finally {
+            showLock.unlock();
         }
     }
 
 
     /**
-     * Handles user sign-up and account creation.
-     * - Checks if the username already exists to prevent duplicates.
+     * Writes one booking inside an open transaction.
+     * - Takes the seats with one guarded UPDATE that only succeeds if the show still exists,
+     *   has not started, and has enough seats left.
+     * - Inserts the reservation with a single INSERT ... SELECT that skips the row if the user already has
+     *   a reservation at the same date and time.
+     * - Inserts the payment using the ticket price held by the seat inventory.
+     * - Runs extra queries only on the failure paths, to explain why the booking was refused.
+     * - A refused booking undoes its own changes; the caller commits the transaction.
+     *
+     * @param conn A connection with auto-commit off.
+     * @param bookingReq The BookingRequest containing show ID, number of tickets, and payment details.
+     * @param session The booking user's session.
+     * @param seats The show's seat inventory entry (start time and price).
+     * @param undoTo The savepoint to roll back to if the booking is refused, or null to roll back the transaction.
+     * @return A message indicating success or failure of the booking and payment process.
+     * @throws SQLException If a statement fails.
+     */
+    private String writeBooking(Connection conn, BookingRequest bookingReq, SessionTable.Session session,
+            SeatInventory.ShowSeats seats, Savepoint undoTo) throws SQLException {
+        int showID = bookingReq.getShowID();
+        int numTickets = bookingReq.getNumTickets();
+        String cardNumber = bookingReq.getCreditCardNumber();
+        Date showDate = Date.valueOf(seats.getStartsAt().toLocalDate());
+        Time showTime = Time.valueOf(seats.getStartsAt().toLocalTime());
+
+        try (PreparedStatement updateStmt = conn.prepareStatement(TAKE_SEATS_UPDATE);
+                PreparedStatement resStmt = conn.prepareStatement(RESERVATION_INSERT, Statement.RETURN_GENERATED_KEYS);
+                PreparedStatement payStmt = conn.prepareStatement(PAYMENT_INSERT)) {
+            // Deduct seats, but only from a future show that still has enough of them.
+            updateStmt.setInt(1, numTickets);
+            updateStmt.setInt(2, showID);
+            updateStmt.setInt(3, numTickets);
+            if (updateStmt.executeUpdate() <= 0) {
+                undo(conn, undoTo);
+                return describeSeatUpdateFailure(conn, showID);
+            }
+
+            // Insert the reservation unless the user is already booked at that time.
+            resStmt.setInt(1, session.getUserPK());
+            resStmt.setInt(2, showID);
+            resStmt.setInt(3, numTickets);
+            resStmt.setInt(4, session.getUserPK());
+            resStmt.setDate(5, showDate);
+            resStmt.setTime(6, showTime);
+            if (resStmt.executeUpdate() <= 0) {
+                undo(conn, undoTo);
+                // A session's user is known to exist, so only the time clash can have stopped the insert.
+                return DUPLICATE_TIME_MESSAGE;
+            }
+            int reservationID = 0;
+            try (ResultSet resKeys = resStmt.getGeneratedKeys()) {
+                if (resKeys.next()) {
+                    reservationID = resKeys.getInt(1);
+                }
+            }
+
+            // Insert payment record.
+            payStmt.setInt(1, reservationID);
+            payStmt.setDouble(2, seats.getPrice() * numTickets);
+            payStmt.setString(3, cardNumber);
+            if (payStmt.executeUpdate() <= 0) {
+                undo(conn, undoTo);
+                return "Error: Payment processing failed.";
+            }
+            return BOOKED_RESERVATION_ID + reservationID;
+        }
+    }
+
+
+    /**
+     * Writes a batch of bookings inside an open transaction, sending each kind of statement once for the batch.
+     * - Takes the seats with one batch of guarded UPDATEs, then inserts the reservations that got their seats
+     *   with one batch of INSERT ... SELECTs, then their payments with one batch of INSERTs. Bookings in one batch see each other's rows, so seat and time checks still hold.
+     * - A booking refused by the reservation insert gives its seats back with one more batch of UPDATEs.
+     * - Runs extra queries only on the failure paths, to explain why a booking was refused.
+     * - Throws if the driver does not report a row count for every statement, so the group committer
+     *   rolls back and writes the bookings one at a time instead.
+     *
+     * @param conn A connection with auto-commit off.
+     * @param bookings The bookings, in arrival order.
+     * @return One message per booking, in the same order.
+     * @throws SQLException If a statement fails.
+     */
+    private List<String> writeBookings(Connection conn, List<PendingBooking> bookings) throws SQLException {
+        int count = bookings.size();
+        String[] messages = new String[count];
+        int[] reservationIDs = new int[count];
+
+        // Take the seats; a guarded UPDATE that matches no row refuses its booking.
+        try (PreparedStatement updateStmt = conn.prepareStatement(TAKE_SEATS_UPDATE)) {
+            for (PendingBooking booking : bookings) {
+                updateStmt.setInt(1, booking.request.getNumTickets());
+                updateStmt.setInt(2, booking.request.getShowID());
+                updateStmt.setInt(3, booking.request.getNumTickets());
+                updateStmt.addBatch();
+            }
+            int[] updated = requireRowCounts(updateStmt.executeBatch(), count);
+            for (int i = 0; i < count; i++) {
+                if (updated[i] <= 0) {
+                    messages[i] = describeSeatUpdateFailure(conn, bookings.get(i).request.getShowID());
+                }
+            }
+        }
+
+        // Insert the reservations of the bookings that got their seats.
+        List<Integer> seated = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (messages[i] == null) {
+                seated.add(i);
+            }
+        }
+        insertReservations(conn, bookings, seated, reservationIDs);
+
+        // Give back the seats of bookings whose reservation was refused, and insert the others' payments.
+        List<Integer> refused = new ArrayList<>();
+        List<Integer> booked = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (messages[i] == null) {
+                (reservationIDs[i] > 0 ? booked : refused).add(i);
+            }
+        }
+        if (!refused.isEmpty()) {
+            try (PreparedStatement giveBackStmt = conn.prepareStatement(GIVE_SEATS_BACK_UPDATE)) {
+                for (int i : refused) {
+                    giveBackStmt.setInt(1, bookings.get(i).request.getNumTickets());
+                    giveBackStmt.setInt(2, bookings.get(i).request.getShowID());
+                    giveBackStmt.addBatch();
+                }
+                requireRowCounts(giveBackStmt.executeBatch(), refused.size());
+            }
+            for (int i : refused) {
+                // A session's user is known to exist, so only the time clash can have stopped the insert.
+                messages[i] = DUPLICATE_TIME_MESSAGE;
+            }
+        }
+        if (!booked.isEmpty()) {
+            try (PreparedStatement payStmt = conn.prepareStatement(PAYMENT_INSERT)) {
+                for (int i : booked) {
+                    PendingBooking booking = bookings.get(i);
+                    payStmt.setInt(1, reservationIDs[i]);
+                    payStmt.setDouble(2, booking.seats.getPrice() * booking.request.getNumTickets());
+                    payStmt.setString(3, booking.request.getCreditCardNumber());
+                    payStmt.addBatch();
+                }
+                // Drivers that rewrite batched INSERTs into one statement report SUCCESS_NO_INFO.
+                for (int paid : payStmt.executeBatch()) {
+                    if (paid == 0 || paid == Statement.EXECUTE_FAILED) {
+                        throw new SQLException("Payment processing failed in batch.");
+                    }
+                }
+            }
+            for (int i : booked) {
+                messages[i] = BOOKED_RESERVATION_ID + reservationIDs[i];
+            }
+        }
+        return Arrays.asList(messages);
+    }
+
+
+    /**
+     * Inserts one batch of reservations and records the new reservation IDs.
+     *
+     * @param conn A connection with auto-commit off.
+     * @param bookings All bookings of the batch.
+     * @param indexes The bookings to insert.
+     * @param reservationIDs Receives the new reservation ID of each inserted booking (0 if it was skipped).
+     * @throws SQLException If a statement fails, or the generated keys do not match the inserted rows.
+     */
+    private static void insertReservations(Connection conn, List<PendingBooking> bookings,
+            List<Integer> indexes, int[] reservationIDs) throws SQLException {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement resStmt = conn.prepareStatement(RESERVATION_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i : indexes) {
+                PendingBooking booking = bookings.get(i);
+                Date showDate = Date.valueOf(booking.seats.getStartsAt().toLocalDate());
+                Time showTime = Time.valueOf(booking.seats.getStartsAt().toLocalTime());
+                resStmt.setInt(1, booking.session.getUserPK());
+                resStmt.setInt(2, booking.request.getShowID());
+                resStmt.setInt(3, booking.request.getNumTickets());
+                resStmt.setInt(4, booking.session.getUserPK());
+                resStmt.setDate(5, showDate);
+                resStmt.setTime(6, showTime);
+                resStmt.addBatch();
+            }
+            int[] inserted = requireRowCounts(resStmt.executeBatch(), indexes.size());
+            // Keys come back in statement order, one per inserted row.
+            try (ResultSet keys = resStmt.getGeneratedKeys()) {
+                for (int j = 0; j < inserted.length; j++) {
+                    if (inserted[j] > 0) {
+                        if (!keys.next()) {
+                            throw new SQLException("Missing generated key for batched reservation.");
+                        }
+                        reservationIDs[indexes.get(j)] = keys.getInt(1);
+                    }
+                }
+            }
+        }
+    }
+
+
+    // Returns the row counts of a batch, or throws if the driver did not report one for every statement.
+    private static int[] requireRowCounts(int[] counts, int expected) throws SQLException {
+        if (counts.length != expected) {
+            throw new SQLException("Batch returned " + counts.length + " row counts for " + expected + " statements.");
+        }
+        for (int count : counts) {
+            if (count < 0) {
+                throw new SQLException("Batch row counts are not available from this driver.");
+            }
+        }
+        return counts;
+    }
+
+
+    /**
+     * A booking queued for group commit, with the session and seat inventory entry it was admitted with.
+     */
+    private static final class PendingBooking {
+        private final BookingRequest request;
+        private final SessionTable.Session session;
+        private final SeatInventory.ShowSeats seats;
+
+        PendingBooking(BookingRequest request, SessionTable.Session session, SeatInventory.ShowSeats seats) {
+            this.request = request;
+            this.session = session;
+            this.seats = seats;
+        }
+    }
+
+
+    /**
+     * Writes group-committed bookings: batched, or one at a time after a failed batch.
+     */
+    private class BookingWriter implements GroupCommitter.Writer<PendingBooking> {
+        @Override
+        public List<String> writeBatch(Connection conn, List<PendingBooking> items) throws SQLException {
+            return writeBookings(conn, items);
+        }
+
+        @Override
+        public String write(Connection conn, PendingBooking item, Savepoint savepoint) throws SQLException {
+            return writeBooking(conn, item.request, item.session, item.seats, savepoint);
+        }
+
+        @Override
+        public String commitFailed(PendingBooking item, String message, SQLException cause) {
+            return bookingCommitFailed(message);
+        }
+    }
+
+
+    /**
+     * Rolls back to a savepoint, or the whole transaction if there is none.
+     *
+     * @param conn The connection whose changes are undone.
+     * @param savepoint The savepoint to roll back to, or null.
+     * @throws SQLException If the rollback fails.
+     */
+    private static void undo(Connection conn, Savepoint savepoint) throws SQLException {
+        if (savepoint != null) {
+            conn.rollback(savepoint);
+        } else {
+            conn.rollback();
+        }
+    }
+
+
+    /**
+     * Explains why the guarded seat UPDATE of a booking matched no row.
+     *
+     * @param conn The booking's connection (its transaction already rolled back).
+     * @param showID The show being booked.
+     * @return The error message for the client.
+     * @throws SQLException If the show cannot be read.
+     */
+    private String describeSeatUpdateFailure(Connection conn, int showID) throws SQLException {
+        String checkSQL = "SELECT availableSeats, showdate, showtime FROM shows WHERE showPK = ?";
+        try (PreparedStatement checkStmt = conn.prepareStatement(checkSQL)) {
+            checkStmt.setInt(1, showID);
+            try (ResultSet rs = checkStmt.executeQuery()) {
+                if (!rs.next()) {
+                    return "Error: Show not found.";
+                }
+                LocalDateTime showDateTime = LocalDateTime.of(rs.getDate("showdate").toLocalDate(),
+                        rs.getTime("showtime").toLocalTime());
+                if (LocalDateTime.now().isAfter(showDateTime)) {
+                    return "Error: Cannot book ticket; the show time has already passed.";
+                }
+                return "Error: Only " + rs.getInt("availableSeats") + " seats are available for this show.";
+            }
+        }
+    }
+
+
+    /**
+     * Handles user sign-up and account creation.
+     * - Checks if the username already exists to prevent duplicates.
      * - Inserts the new user into the database with predefined role "customer".
      * - Returns a success message if the registration succeeds, otherwise an error.
      *
@@ -624,7 +1316,7 @@ public class TicketReservationServer {
      * @return A message indicating success or failure of the registration process.
      */
     private String handleSignUpUser(SignUpRequest signUpReq) {
-        try {
+        try (Connection conn = connectionPool.getConnection()) {
             // Check for duplicate username.
             String checkSQL = "SELECT COUNT(*) FROM registereduser WHERE username = ?";
             PreparedStatement checkStmt = conn.prepareStatement(checkSQL);
@@ -663,189 +1355,382 @@ public class TicketReservationServer {
 
 
     /**
-     * Retrieves all reservations made by a specific customer.
-     * - Joins reservation, show, movie, and user tables to gather relevant details.
-     * - Formats reservation details to include the movie title, date, time, room, and price.
-     * - Returns a list of ReservationItem objects representing the user's bookings.
-     * - Handles SQL exceptions to ensure robustness.
+     * Retrieves all reservations of the session's user, newest first.
+     * - The user is taken from the session, not from the request, so a client can only read its own reservations.
+     * - Served from the user's cached reservation list, like reservation pages requested with a session token.
+     *
+     * @param sessionToken The token returned by START_SESSION.
+     * @return A list of ReservationItem objects, or an error message if the session is unknown or expired.
+     */
+    private Object handleGetSessionReservations(String sessionToken) {
+        SessionTable.Session session = sessionToken == null ? null : sessions.resolve(sessionToken);
+        if (session == null) {
+            return SESSION_EXPIRED_MESSAGE;
+        }
+        try {
+            return reservationLists.get(session.getUserPK(), this::loadReservations);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return "Error: Could not load reservations.";
+        }
+    }
+
+
+    /**
+     * Retrieves one page of the session user's reservations, newest first.
+     * - Keyset pagination on the reservation's primary key: the cursor holds the last key sent and
+     *   the page resumes below it.
+     * - Pages are cut from the user's cached reservation list, which is loaded once and then kept up to
+     *   date by bookings and cancellations.
+     * - Takes one extra item to tell whether another page follows.
+     * - Requests without a session token are refused, since the username they carry is only the client's claim.
+     *
+     * @param request The session token, the cursor (null for the first page) and page size.
+     * @return A Page of ReservationItem objects, or an error message.
+     */
+    private Object handleGetCustomerReservationsPage(PageRequest request) {
+        if (request.getSessionToken() == null) {
+            return SESSION_REQUIRED_MESSAGE;
+        }
+        SessionTable.Session session = sessions.resolve(request.getSessionToken());
+        if (session == null) {
+            return SESSION_EXPIRED_MESSAGE;
+        }
+        int beforeReservationID = Integer.MAX_VALUE;
+        if (request.getCursor() != null) {
+            beforeReservationID = decodeCursor("reservations", request.getCursor());
+            if (beforeReservationID < 0) {
+                return INVALID_CURSOR_MESSAGE;
+            }
+        }
+        int pageSize = pageSize(request);
+        List<ReservationItem> reservations = new ArrayList<>();
+        try {
+            for (ReservationItem item : reservationLists.get(session.getUserPK(), this::loadReservations)) {
+                if (reservations.size() > pageSize) {
+                    break;
+                }
+                if (item.getReservationID() < beforeReservationID) {
+                    reservations.add(item);
+                }
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return "Error: Could not load reservations.";
+        }
+        return toReservationPage(reservations, pageSize);
+    }
+
+
+    /**
+     * Reads all of a user's reservations, newest first (reservation list cache misses).
      *
-     * @param username The username of the customer whose reservations are being retrieved.
-     * @return A list of ReservationItem objects containing details of the customer's reservations.
+     * @param userPK The user's primary key.
+     * @return The user's reservations.
+     * @throws SQLException If the reservations cannot be read.
      */
-    private List<ReservationItem> handleGetCustomerReservations(String username) {
+    private List<ReservationItem> loadReservations(int userPK) throws SQLException {
+        String query = RESERVATION_QUERY + "WHERE r.userpk = ? ORDER BY r.reservationpk DESC";
         List<ReservationItem> reservations = new ArrayList<>();
-        String query = "SELECT r.reservationpk, " +
-                "CONCAT(m.title, ' on ', s.showdate, ' at ', SUBSTRING(s.showtime,1,5), ' in Room ', s.roomnumber, ' (Price: $', s.price, ')') AS showDetails, " +
-                "r.numberoftickets, r.reservationtime " +
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, userPK);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    reservations.add(toReservationItem(rs));
+                }
+            }
+        }
+        return reservations;
+    }
+
+
+    // Turns up to pageSize + 1 reservations into a page, with a cursor if the extra one shows more follow.
+    private static Page<ReservationItem> toReservationPage(List<ReservationItem> reservations, int pageSize) {
+        String nextCursor = null;
+        if (reservations.size() > pageSize) {
+            reservations = new ArrayList<>(reservations.subList(0, pageSize));
+            nextCursor = encodeCursor("reservations", reservations.get(pageSize - 1).getReservationID());
+        }
+        return new Page<>(reservations, nextCursor, ShowDelta.NO_VERSION);
+    }
+
+
+    /**
+     * Streams every reservation, with its customer and payment, to an administrator.
+     * - Rows are read with a JDBC fetch size of REPORT_FETCH_SIZE and sent in chunks of that many
+     *   as they are read, so memory use does not grow with the size of the tables and the first
+     *   rows reach the client right away. (With MySQL Connector/J, add useCursorFetch=true to the
+     *   database URL so the driver honors the fetch size instead of reading the whole result.)
+     * - The database connection is held until the last chunk is sent.
+     * - If reading fails part way, the end marker carries an error message after the rows already sent.
+     *
+     * @param out Sends each full chunk.
+     * @return The end marker, with the remaining rows.
+     * @throws IOException If the client connection fails; the query is then abandoned.
+     */
+    private ResultChunk<ReservationReportItem> streamReservationReport(ChunkWriter out) throws IOException {
+        String query = "SELECT r.reservationpk, ru.username, " +
+                "CONCAT(m.title, ' on ', s.showdate, ' at ', SUBSTRING(s.showtime,1,5), ' in Room ', s.roomnumber) AS showDetails, " +
+                "r.numberoftickets, r.reservationtime, p.amount " +
                 "FROM reservation r " +
                 "JOIN shows s ON r.showpk = s.showpk " +
                 "JOIN movie m ON s.moviepk = m.moviepk " +
                 "JOIN registereduser ru ON r.userpk = ru.userpk " +
-                "WHERE ru.username = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(query)) {
-            pstmt.setString(1, username);
+                "LEFT JOIN payment p ON p.reservationpk = r.reservationpk " +
+                "ORDER BY r.reservationpk";
+        List<ReservationReportItem> rows = new ArrayList<>(REPORT_FETCH_SIZE);
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setFetchSize(REPORT_FETCH_SIZE);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
-                    int reservationID = rs.getInt("reservationpk");
-                    String showDetails = rs.getString("showDetails");
-                    int numberOfTickets = rs.getInt("numberoftickets");
-                    Timestamp reservationTime = rs.getTimestamp("reservationtime");
-                    // Create a ReservationItem object. Adjust the constructor as needed.
-                    reservations.add(new ReservationItem(reservationID, showDetails, numberOfTickets, reservationTime.toString()));
+                    rows.add(new ReservationReportItem(rs.getInt("reservationpk"), rs.getString("username"),
+                            rs.getString("showDetails"), rs.getInt("numberoftickets"),
+                            rs.getTimestamp("reservationtime").toString(), rs.getDouble("amount")));
+                    if (rows.size() == REPORT_FETCH_SIZE) {
+                        out.write(new ResultChunk<>(rows, false, null));
+                        rows = new ArrayList<>(REPORT_FETCH_SIZE);
+                    }
                 }
             }
         } catch (SQLException ex) {
             ex.printStackTrace();
+            return new ResultChunk<>(rows, true, "Error: Report stopped early: " + ex.getMessage());
+        }
+        return new ResultChunk<>(rows, true, null);
+    }
+
+
+    /**
+     * Runs a request whose response is streamed.
+     *
+     * @param requestType One of STREAMED_REQUESTS.
+     * @param out Sends each chunk but the last.
+     * @return The last chunk (the end marker).
+     * @throws IOException If the client connection fails.
+     */
+    private ResultChunk<?> streamDispatch(String requestType, ChunkWriter out) throws IOException {
+        switch (requestType) {
+        case "GET_RESERVATION_REPORT":
+            return streamReservationReport(out);
+        default:
+            throw new IllegalArgumentException("Not a streamed request: " + requestType);
+        }
+    }
+
+
+    private static ReservationItem toReservationItem(ResultSet rs) throws SQLException {
+        int reservationID = rs.getInt("reservationpk");
+        String showDetails = rs.getString("showDetails");
+        int numberOfTickets = rs.getInt("numberoftickets");
+        Timestamp reservationTime = rs.getTimestamp("reservationtime");
+        return new ReservationItem(reservationID, showDetails, numberOfTickets, reservationTime.toString());
+    }
+
+
+    // Clamps a requested page size to 1..MAX_PAGE_SIZE.
+    private static int pageSize(PageRequest request) {
+        return Math.max(1, Math.min(request.getPageSize(), MAX_PAGE_SIZE));
+    }
+
+
+    // Cursors are opaque to clients: the listing name and the last key sent, Base64-encoded.
+    private static String encodeCursor(String listing, int lastKey) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((listing + ":" + lastKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    // Returns the key held by a cursor of the given listing, or -1 if the cursor is malformed or belongs to another listing.
+    private static int decodeCursor(String listing, String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(listing + ":")) {
+                return -1;
+            }
+            int key = Integer.parseInt(decoded.substring(listing.length() + 1));
+            return key >= 0 ? key : -1;
+        } catch (IllegalArgumentException ex) {
+            return -1;
         }
-        return reservations;
     }
 
 
     /**
      * Handles the cancellation of a reservation.
-     * - Validates that the reservation exists and retrieves associated show details.
-     * - Ensures cancellation occurs at least one hour before the show time.
-     * - Updates seat availability, removes payment records, and deletes the reservation.
+     * - Validates that the reservation exists and finds the show it belongs to, on a connection that is
+     *   given back right away.
+     * - Then takes the seat change lock and the show's lock, and only then borrows the connection for the
+     *   cancellation itself, the same order as bookings, so a cancellation never holds a connection while it
+     *   waits for a lock.
+     * - If the commit fails, the seat counts are marked stale and read again from the database.
+     * - Holds the show's lock for the rest of the cancellation, so it never interleaves with
+     *   bookings or other cancellations for the same show.
+     * - Removes the reservation from its owner's cached list after the connection is given back, since
+     *   list loads borrow a connection while holding the user's lock stripe.
      * - Uses transactions to maintain data integrity and rollbacks on failure.
      *
      * @param reservationID The unique identifier of the reservation to be canceled.
      * @return A message indicating success or failure of the cancellation process.
      */
     private String handleCancelReservation(int reservationID) {
-        try {
-            // Begin a transaction.
-            conn.setAutoCommit(false);
-
-            // Retrieve the reservation details.
-            String getResSQL = "SELECT numberoftickets, showpk FROM reservation WHERE reservationpk = ?";
-            int numTickets = 0;
-            int showPK = 0;
-            try (PreparedStatement resStmt = conn.prepareStatement(getResSQL)) {
-                resStmt.setInt(1, reservationID);
-                try (ResultSet rsRes = resStmt.executeQuery()) {
-                    if (rsRes.next()) {
-                        numTickets = rsRes.getInt("numberoftickets");
-                        showPK = rsRes.getInt("showpk");
-                    } else {
-                        conn.rollback();
-                        return "Error: Reservation not found.";
-                    }
+        // Retrieve the reservation details.
+        String getResSQL = "SELECT numberoftickets, showpk, userpk FROM reservation WHERE reservationpk = ?";
+        int numTickets = 0;
+        int showPK = 0;
+        int userPK = 0;
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement resStmt = conn.prepareStatement(getResSQL)) {
+            resStmt.setInt(1, reservationID);
+            try (ResultSet rsRes = resStmt.executeQuery()) {
+                if (!rsRes.next()) {
+                    return "Error: Reservation not found.";
                 }
+                numTickets = rsRes.getInt("numberoftickets");
+                showPK = rsRes.getInt("showpk");
+                userPK = rsRes.getInt("userpk");
             }
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return "Error cancelling reservation: " + ex.getMessage();
+        }
 
-            // Retrieve the show's date, time, and available seats.
-            String getShowSQL = "SELECT showdate, showtime, availableseats FROM shows WHERE showPK = ?";
-            LocalDate showDate = null;
-            LocalTime showTime = null;
-            try (PreparedStatement showStmt = conn.prepareStatement(getShowSQL)) {
-                showStmt.setInt(1, showPK);
-                try (ResultSet rsShow = showStmt.executeQuery()) {
-                    if (rsShow.next()) {
-                        showDate = rsShow.getDate("showdate").toLocalDate();
-                        showTime = rsShow.getTime("showtime").toLocalTime();
-                    } else {
-                        conn.rollback();
-                        return "Error: Show not found for this reservation.";
-                    }
-                }
-            }
+        // Serialize with bookings and other cancellations for the same show. Take the lock before
+        // borrowing a connection, so waiting cancellations do not tie up the pool.
+        String result;
+        Lock seatChange = seatInventory.changeLock();
+        seatChange.lock();
+        Lock showLock = showLocks.lockFor(showPK);
+        showLock.lock();
+        try (Connection conn = connectionPool.getConnection()) {
+            // Begin a transaction on this request's own connection. Anything left uncommitted
+            // is rolled back when the connection is returned to the pool.
+            conn.setAutoCommit(false);
+            result = cancelReservationLocked(conn, reservationID, showPK, numTickets);
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+            return "Error cancelling reservation: " + ex.getMessage();
+        } finally {
+            showLock.unlock();
+            seatChange.unlock();
+            reloadSeatsIfStale();
+        }
+        if (result.equals(CANCELLATION_SUCCESS_MESSAGE)) {
+            reservationLists.removed(userPK, reservationID);
+        }
+        return result;
+    }
 
-            // Check cancellation cutoff.
-            LocalDateTime showStart = LocalDateTime.of(showDate, showTime);
-            LocalDateTime cancellationDeadline = showStart.minusHours(1);
-            LocalDateTime now = LocalDateTime.now();
 
-            if (now.isAfter(showStart)) {
-                // The show has already started (or passed).
-                conn.rollback();
-                return "Error: Cannot cancel reservations for past shows.";
-            } else if (!now.isBefore(cancellationDeadline)) {
-                // We are within 1 hour of the show time.
-                conn.rollback();
-                return "Error: Cancellation is only allowed at least 1 hour before the show time.";
-            }
-
-            // Update the available seats: add back the canceled tickets.
-            String updateSeatsSQL = "UPDATE shows SET availableseats = availableseats + ? WHERE showPK = ?";
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSeatsSQL)) {
-                updateStmt.setInt(1, numTickets);
-                updateStmt.setInt(2, showPK);
-                int updated = updateStmt.executeUpdate();
-                if (updated <= 0) {
+    /**
+     * Finishes a cancellation while the show's lock is held.
+     * - Ensures cancellation occurs at least one hour before the show time.
+     * - Updates seat availability, removes payment records, and deletes the reservation.
+     * - Commits and gives the seats back to the seat inventory only if the reservation was deleted.
+     * - A reservation cancelled by someone else since it was looked up deletes no row, so everything is rolled back.
+     *
+     * @param conn The cancellation's connection, with auto-commit off.
+     * @param reservationID The reservation being canceled.
+     * @param showPK The show the reservation belongs to.
+     * @param numTickets The number of tickets in the reservation.
+     * @return A message indicating success or failure of the cancellation process.
+     * @throws SQLException If a statement fails.
+     */
+    private String cancelReservationLocked(Connection conn, int reservationID, int showPK, int numTickets)
+            throws SQLException {
+        // Retrieve the show's date, time, and available seats.
+        String getShowSQL = "SELECT showdate, showtime, availableseats FROM shows WHERE showPK = ?";
+        LocalDate showDate = null;
+        LocalTime showTime = null;
+        try (PreparedStatement showStmt = conn.prepareStatement(getShowSQL)) {
+            showStmt.setInt(1, showPK);
+            try (ResultSet rsShow = showStmt.executeQuery()) {
+                if (rsShow.next()) {
+                    showDate = rsShow.getDate("showdate").toLocalDate();
+                    showTime = rsShow.getTime("showtime").toLocalTime();
+                } else {
                     conn.rollback();
-                    return "Error: Could not update available seats.";
+                    return "Error: Show not found for this reservation.";
                 }
             }
+        }
 
-            // Delete any associated payment record.
-            String deletePaymentSQL = "DELETE FROM payment WHERE reservationpk = ?";
-            try (PreparedStatement payStmt = conn.prepareStatement(deletePaymentSQL)) {
-                payStmt.setInt(1, reservationID);
-                payStmt.executeUpdate();
-            }
-
-            // Delete the reservation record.
-            String deleteReservationSQL = "DELETE FROM reservation WHERE reservationpk = ?";
-            int affectedRows = 0;
-            try (PreparedStatement cancelStmt = conn.prepareStatement(deleteReservationSQL)) {
-                cancelStmt.setInt(1, reservationID);
-                affectedRows = cancelStmt.executeUpdate();
-            }
+        // Check cancellation cutoff.
+        LocalDateTime showStart = LocalDateTime.of(showDate, showTime);
+        LocalDateTime cancellationDeadline = showStart.minusHours(1);
+        LocalDateTime now = LocalDateTime.now();
+
+        if (now.isAfter(showStart)) {
+            // The show has already started (or passed).
+            conn.rollback();
+            return "Error: Cannot cancel reservations for past shows.";
+        } else if (!now.isBefore(cancellationDeadline)) {
+            // We are within 1 hour of the show time.
+            conn.rollback();
+            return "Error: Cancellation is only allowed at least 1 hour before the show time.";
+        }
 
-            if (affectedRows > 0) {
-                conn.commit();
-                return "Reservation cancelled successfully.";
-            } else {
-                conn.rollback();
-                return "Error: Reservation could not be cancelled.";
-            }
-        } catch (SQLException ex) {
-            try {
+        // Update the available seats: add back the canceled tickets.
+        String updateSeatsSQL = "UPDATE shows SET availableseats = availableseats + ? WHERE showPK = ?";
+        try (PreparedStatement updateStmt = conn.prepareStatement(updateSeatsSQL)) {
+            updateStmt.setInt(1, numTickets);
+            updateStmt.setInt(2, showPK);
+            int updated = updateStmt.executeUpdate();
+            if (updated <= 0) {
                 conn.rollback();
-            } catch (SQLException e1) {
-                e1.printStackTrace();
+                return "Error: Could not update available seats.";
             }
-            ex.printStackTrace();
-            return "Error cancelling reservation: " + ex.getMessage();
-        } finally {
+        }
+
+        // Delete any associated payment record.
+        String deletePaymentSQL = "DELETE FROM payment WHERE reservationpk = ?";
+        try (PreparedStatement payStmt = conn.prepareStatement(deletePaymentSQL)) {
+            payStmt.setInt(1, reservationID);
+            payStmt.executeUpdate();
+        }
+
+        // Delete the reservation record.
+        String deleteReservationSQL = "DELETE FROM reservation WHERE reservationpk = ?";
+        int affectedRows = 0;
+        try (PreparedStatement cancelStmt = conn.prepareStatement(deleteReservationSQL)) {
+            cancelStmt.setInt(1, reservationID);
+            affectedRows = cancelStmt.executeUpdate();
+        }
+
+        if (affectedRows > 0) {
             try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
+                conn.commit();
+            } catch (SQLException ex) {
+                seatInventory.markStale(); // the database may have committed the cancellation anyway
+                throw ex;
             }
+            seatInventory.release(showPK, numTickets);
+            showCatalog.adjustSeats(showPK, numTickets);
+            return CANCELLATION_SUCCESS_MESSAGE;
+        } else {
+            conn.rollback();
+            return "Error: Reservation could not be cancelled.";
         }
     }
 
 
     /**
-     * Retrieves user profile information from the database.
-     * - Searches for a registered user by username.
-     * - If found, extracts and returns details such as email, name, address, and phone number.
-     * - Logs the result and returns a UserProfile object if successful, otherwise returns null.
-     * - Handles SQL exceptions to ensure robustness.
+     * Retrieves the profile of the session's user.
+     * - The user is taken from the session, not from the request, so a client can only read its own profile.
+     * - Answers from the user profile cache, keyed by the session's userPK.
      *
-     * @param username The username of the user whose profile is being retrieved.
-     * @return A UserProfile object containing user details, or null if the user is not found.
+     * @param sessionToken The token returned by START_SESSION.
+     * @return The UserProfile, null if the user no longer exists, or an error message if the session is
+     *         unknown or expired.
      */
-    private UserProfile handleGetUserInfo(String username) {
+    private Object handleGetSessionUserInfo(String sessionToken) {
+        SessionTable.Session session = sessionToken == null ? null : sessions.resolve(sessionToken);
+        if (session == null) {
+            return SESSION_EXPIRED_MESSAGE;
+        }
         try {
-            String query = "SELECT username, email, firstname, lastname, address, phone " +
-                    "FROM registereduser WHERE username = ?";
-            PreparedStatement pstmt = conn.prepareStatement(query);
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                String email = rs.getString("email");
-                String firstName = rs.getString("firstname");
-                String lastName = rs.getString("lastname");
-                String address = rs.getString("address");
-                String phone = rs.getString("phone");
-                System.out.println("User found: " + username + ", " + email);
-                return new UserProfile(username, email, firstName, lastName, address, phone);
-            } else {
-                System.out.println("No user found with username: " + username);
-                return null;
-            }
+            return userProfiles.get(session.getUserPK(), this::loadUserProfile);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
@@ -853,126 +1738,410 @@ public class TicketReservationServer {
     }
 
 
+    /**
+     * Reads a user's profile from the database (user profile cache misses).
+     *
+     * @param userPK The user's primary key.
+     * @return The profile, or null if there is no such user.
+     * @throws SQLException If the user cannot be read.
+     */
+    private UserProfile loadUserProfile(int userPK) throws SQLException {
+        String query = "SELECT username, email, firstname, lastname, address, phone " +
+                "FROM registereduser WHERE userPK = ?";
+        try (Connection conn = connectionPool.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, userPK);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new UserProfile(rs.getString("username"), rs.getString("email"), rs.getString("firstname"),
+                        rs.getString("lastname"), rs.getString("address"), rs.getString("phone"));
+            }
+        }
+    }
+
+
+    /**
+     * Collects the server's metrics for STATS.
+     * - Per request type: calls, errors, latency percentiles, and total versus database time.
+     * - Server-wide counters: connected clients, open sessions, cache hits, misses, evictions and updates,
+     *   reused response bytes, coalesced reads, seat-update pushes, and database connections in use.
+     *
+     * @return A snapshot of the metrics.
+     */
+    private ServerStats handleGetStats() {
+        long coalescedReads = 0;
+        for (RequestRegistry.Operation<?> operation : requests.getOperations()) {
+            coalescedReads += readFlights.getCoalesced(operation.getRequestType());
+        }
+        Map<String, Long> counters = new LinkedHashMap<>();
+        counters.put("clients.connected", (long) (MAX_ACTIVE_CLIENTS - clientPermits.availablePermits()));
+        counters.put("sessions.open", (long) sessions.size());
+        counters.put("movieCache.hits", movieCatalog.getHits());
+        counters.put("movieCache.misses", movieCatalog.getMisses());
+        counters.put("movieCache.coalesced", movieCatalog.getCoalesced());
+        counters.put("userProfiles.hits", userProfiles.getHits());
+        counters.put("userProfiles.misses", userProfiles.getMisses());
+        counters.put("userProfiles.evictions", userProfiles.getEvictions());
+        counters.put("userProfiles.size", (long) userProfiles.size());
+        counters.put("reservationLists.hits", reservationLists.getHits());
+        counters.put("reservationLists.misses", reservationLists.getMisses());
+        counters.put("reservationLists.updates", reservationLists.getUpdates());
+        counters.put("reservationLists.size", (long) reservationLists.size());
+        counters.put("catalogResponses.encodings", catalogResponses.getEncodings());
+        counters.put("catalogResponses.reuses", catalogResponses.getReuses());
+        counters.put("reads.coalesced", coalescedReads);
+        counters.put("seatUpdates.subscribers", (long) seatUpdates.getSubscriberCount());
+        counters.put("seatUpdates.framesSent", seatUpdates.getFramesSent());
+        counters.put("seatUpdates.subscribersDropped", seatUpdates.getSubscribersDropped());
+        counters.put("dbPool.active", connectionPool == null ? 0L : connectionPool.getActiveCount());
+        counters.put("dbPool.idle", connectionPool == null ? 0L : connectionPool.getIdleCount());
+        return new ServerStats(System.currentTimeMillis() - startedAtMillis, requests.stats(), counters);
+    }
+
+
+    /**
+     * Registers the operation behind every request type.
+     * - Each operation declares its payload and response types, and whether it reads or writes data;
+     *   pipelined reads run on the request workers and writes on the write workers, so slow bookings
+     *   never hold up listings.
+     * - Concurrent identical reads that go to the database share one query (show listings are
+     *   answered from memory and need no coalescing).
+     * - Requests that need a particular transport (seat-update subscriptions, streamed reports) are
+     *   taken over by the connection handlers; the operations here answer the other transports.
+     */
+    private void registerRequests() {
+        requests.write("SIGNUP_USER", SignUpRequest.class, String.class, this::handleSignUpUser);
+        requests.read("LOGIN_USER", LoginRequest.class, String.class, this::handleLoginUser);
+        requests.read("START_SESSION", LoginRequest.class, SessionInfo.class, this::handleStartSession);
+        requests.write("ADD_MOVIE", Movie.class, String.class, this::handleAddMovie);
+        requests.write("ADD_SHOW", Show.class, String.class, this::handleAddShow);
+        requests.read("GET_MOVIES", Void.class, List.class, payload -> handleGetMovies());
+        requests.read("GET_SHOWS", Void.class, List.class, payload -> handleGetShows());
+        requests.write("DELETE_MOVIE", Integer.class, String.class, this::handleDeleteMovie);
+        requests.write("DELETE_SHOW", Integer.class, String.class, this::handleDeleteShow);
+        requests.read("GET_AVAILABLE_SHOWS", Void.class, List.class, payload -> handleGetAvailableShows());
+        requests.write("BOOK_TICKET", BookingRequest.class, String.class, this::handleBookTicket);
+        // The username forms of GET_SESSION_RESERVATIONS and GET_SESSION_USER_INFO trust the client's claim,
+        // so they are refused; they stay registered so that old clients are told to log in.
+        requests.read("GET_CUSTOMER_RESERVATIONS", String.class, String.class, username -> SESSION_REQUIRED_MESSAGE);
+        requests.write("CANCEL_RESERVATION", Integer.class, String.class, this::handleCancelReservation);
+        requests.read("GET_USER_INFO", String.class, String.class, username -> SESSION_REQUIRED_MESSAGE);
+        requests.read("GET_SESSION_USER_INFO", String.class, UserProfile.class, this::handleGetSessionUserInfo);
+        requests.read("GET_SESSION_RESERVATIONS", String.class, List.class, this::handleGetSessionReservations);
+        requests.read("GET_SHOWS_SINCE", Long.class, ShowDelta.class, this::handleGetShowsSince);
+        requests.read("GET_SHOWS_PAGE", PageRequest.class, Page.class, this::handleGetShowsPage);
+        requests.read("GET_CUSTOMER_RESERVATIONS_PAGE", PageRequest.class, Page.class,
+                this::handleGetCustomerReservationsPage);
+        requests.read(SUBSCRIBE_SHOWS, Void.class, String.class,
+                payload -> "Error: Seat updates require binary protocol version 2.");
+        requests.read("GET_RESERVATION_REPORT", Void.class, ResultChunk.class,
+                payload -> "Error: Reports are streamed; they require binary protocol version 2.");
+        requests.read("PING", Object.class, String.class, payload -> "PONG");
+        requests.read("STATS", Void.class, ServerStats.class, payload -> handleGetStats());
+    }
+
+
+    /**
+     * Handles the framed protocols for one connection.
+     * - The first frame selects the format: a hello frame switches to the binary wire protocol,
+     *   anything else is treated as a serialized-object frame.
+     * - Each later frame is decoded, dispatched, and answered with exactly one response frame.
+     * - From protocol version 2 on, frames carry correlation IDs, so up to MAX_PIPELINED_REQUESTS
+     *   requests from the connection are handled concurrently and answered as they complete.
+     *   SUBSCRIBE_SHOWS then registers the connection for pushed seat updates.
+     * - Used by both the blocking and the selector front ends.
+     */
+    private class FramedConnectionHandler implements SelectorServer.FrameHandler {
+        // Written while handling the first frame, before any other frame may run.
+        private volatile boolean negotiated = false;
+        private volatile int version = 0;
+        private volatile PushChannel pushChannel;
+
+        @Override
+        public void opened(PushChannel channel) {
+            pushChannel = channel;
+        }
+
+        @Override
+        public byte[] handleFrame(byte[] frame) throws Exception {
+            if (!negotiated) {
+                negotiated = true;
+                int clientVersion = WireProtocol.decodeHello(frame);
+                if (clientVersion >= 1) {
+                    version = Math.min(clientVersion, WireProtocol.VERSION);
+                    return WireProtocol.encodeHello(version);
+                }
+            }
+            if (version >= WireProtocol.FIRST_PIPELINED_VERSION) {
+                int correlationId = WireProtocol.correlationIdOf(frame);
+                WireProtocol.Request request = WireProtocol.decodeRequest(frame, WireProtocol.CORRELATION_ID_BYTES);
+                Object response;
+                if (SUBSCRIBE_SHOWS.equals(request.getRequestType())) {
+                    response = subscribeToSeatUpdates();
+                } else if (STREAMED_REQUESTS.contains(request.getRequestType()) && pushChannel != null) {
+                    // Every chunk carries the request's correlation ID; the last one is the response.
+                    response = streamDispatch(request.getRequestType(), chunk -> pushChannel.write(
+                            WireProtocol.withCorrelationId(correlationId, WireProtocol.encodeResponse(chunk))));
+                } else {
+                    response = requests.dispatch(request.getRequestType(), request.getPayload());
+                }
+                return WireProtocol.withCorrelationId(correlationId,
+                        catalogResponses.binary(request.getRequestType(), response));
+            }
+            if (version >= 1) {
+                WireProtocol.Request request = WireProtocol.decodeRequest(frame);
+                Object response = requests.dispatch(request.getRequestType(), request.getPayload());
+                return catalogResponses.binary(request.getRequestType(), response);
+            }
+            return handleSerializedFrame(frame);
+        }
+
+        @Override
+        public int maxConcurrentFrames() {
+            return version >= WireProtocol.FIRST_PIPELINED_VERSION ? MAX_PIPELINED_REQUESTS : 1;
+        }
+
+        @Override
+        public Executor executorFor(byte[] frame) {
+            if (version < WireProtocol.FIRST_PIPELINED_VERSION) {
+                return null;
+            }
+            return requests.executorFor(WireProtocol.requestTypeOf(frame, WireProtocol.CORRELATION_ID_BYTES));
+        }
+
+        /**
+         * Registers this connection for seat updates, pushed with correlation ID 0 after every
+         * committed booking or cancellation.
+         *
+         * @return A confirmation, or an error if the connection cannot take pushed frames.
+         */
+        private String subscribeToSeatUpdates() {
+            if (pushChannel == null) {
+                return "Error: This connection cannot receive seat updates.";
+            }
+            seatUpdates.subscribe(pushChannel);
+            return "Subscribed to seat updates.";
+        }
+    }
+
+
     /**
      * Handles client requests in a separate thread.
-     * - Manages object streams for communication with the client.
-     * - Processes different request types such as signing up, logging in, booking tickets, and retrieving data.
-     * - Sends appropriate responses back to the client based on request handling.
+     * - Peeks at the first byte to tell a legacy object-stream client from a framed (binary) client.
+     * - Reads each request type and, when the request carries one, its payload.
+     * - Sends exactly one response back per request.
      * - Ensures proper cleanup of resources when the client disconnects.
      */
     private class ClientHandler implements Runnable {
         private Socket socket;
+        private SocketPushChannel pushChannel; // set for framed connections
+        // Taken around every frame written to a framed connection. A lock rather than a monitor, so a
+        // virtual thread blocked in the socket write does not pin its carrier thread.
+        private final ReentrantLock outputLock = new ReentrantLock();
 
         public ClientHandler(Socket socket) {
             this.socket = socket;
         }
 
         public void run() {
-            ObjectOutputStream outputToClient = null;
-            ObjectInputStream inputFromClient = null;
             try {
-                // Set up object streams.
-                outputToClient = new ObjectOutputStream(socket.getOutputStream());
-                outputToClient.flush();
-                inputFromClient = new ObjectInputStream(socket.getInputStream());
-
-                while (true) {
-                    // Read the request type first.
-                    String requestType = (String) inputFromClient.readObject();
-                    String response = "";
-
-                    // Dispatch based on the request type.
-                    switch (requestType) {
-                    case "SIGNUP_USER":
-                        SignUpRequest signUpReq = (SignUpRequest) inputFromClient.readObject();
-                        String signupResponse = handleSignUpUser(signUpReq);
-                        outputToClient.writeObject(signupResponse);
-                        outputToClient.flush();
-                        break;
-                    case "LOGIN_USER":
-                        LoginRequest loginRequest = (LoginRequest) inputFromClient.readObject();
-                        response = handleLoginUser(loginRequest);
-                        break;
-                    case "ADD_MOVIE":
-                        Movie movie = (Movie) inputFromClient.readObject();
-                        response = handleAddMovie(movie);
-                        break;
-                    case "ADD_SHOW":
-                        Show show = (Show) inputFromClient.readObject();
-                        response = handleAddShow(show);
-                        break;
-                    case "GET_MOVIES":
-                        List<MovieItem> movies = handleGetMovies();
-                        outputToClient.writeObject(movies);
-                        outputToClient.flush();
-                        break;
-                    case "GET_SHOWS":
-                        List<ShowItem> shows = handleGetShows();
-                        outputToClient.writeObject(shows);
-                        outputToClient.flush();
-                        break;
-                    case "DELETE_MOVIE":
-                        int movieID = (Integer) inputFromClient.readObject();
-                        response = handleDeleteMovie(movieID);
-                        outputToClient.writeObject(response);
-                        outputToClient.flush();
-                        break;
-                    case "DELETE_SHOW":
-                        int showID = (Integer) inputFromClient.readObject();
-                        response = handleDeleteShow(showID);
-                        outputToClient.writeObject(response);
-                        outputToClient.flush();
-                        break;
-                    case "GET_AVAILABLE_SHOWS":
-                        List<ShowItem> showsAvail = handleGetAvailableShows();
-                        outputToClient.writeObject(showsAvail);
-                        outputToClient.flush();
-                        break;
-                    case "BOOK_TICKET":
-                        BookingRequest bookingReq = (BookingRequest) inputFromClient.readObject();
-                        String bookingResponse = handleBookTicket(bookingReq);
-                        outputToClient.writeObject(bookingResponse);
-                        outputToClient.flush();
-                        break;
-                    case "GET_CUSTOMER_RESERVATIONS":
-                        String username = (String) inputFromClient.readObject();
-                        List<ReservationItem> reservations = handleGetCustomerReservations(username);
-                        outputToClient.writeObject(reservations);
-                        outputToClient.flush();
-                        break;
-                    case "CANCEL_RESERVATION":
-                        Integer reservationID = (Integer) inputFromClient.readObject();
-                        String cancelResponse = handleCancelReservation(reservationID);
-                        outputToClient.writeObject(cancelResponse);
-                        outputToClient.flush();
-                        break;
-                    case "GET_USER_INFO":
-                        String userid = (String) inputFromClient.readObject();
-                        UserProfile profile = handleGetUserInfo(userid);
-                        outputToClient.writeObject(profile);
+                BufferedInputStream input = new BufferedInputStream(socket.getInputStream());
+                BufferedOutputStream output = new BufferedOutputStream(socket.getOutputStream());
+
+                // Object streams start with 0xAC; frames start with the high byte of their length.
+                input.mark(1);
+                int firstByte = input.read();
+                input.reset();
+                if (firstByte == WireProtocol.LEGACY_STREAM_FIRST_BYTE) {
+                    serveObjectStream(input, output);
+                } else if (firstByte >= 0) {
+                    serveFrames(input, output);
+                }
+            } catch (Exception e) {
+                System.out.println("Client disconnected: " + e.getMessage());
+            } finally {
+                if (pushChannel != null) {
+                    pushChannel.close();
+                }
+                try {
+                    if (socket != null && !socket.isClosed()) {
+                        socket.close();
+                    }
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                } finally {
+                    clientPermits.release();
+                }
+            }
+        }
+
+        private void serveObjectStream(InputStream input, OutputStream output) throws Exception {
+            // Set up object streams.
+            ObjectOutputStream outputToClient = new ObjectOutputStream(output);
+            outputToClient.flush();
+            ObjectInputStream inputFromClient = new ObjectInputStream(input);
+            // Set after cached bytes were written: the client then knows objects this stream does not.
+            boolean handlesOutOfStep = false;
+            // An object stream keeps every object written since its last reset (so it can send back-references),
+            // which on a long-lived connection would hold every response ever sent.
+            int writtenSinceReset = 0;
+
+            while (true) {
+                // Read the request type first, then its payload if it has one.
+                String requestType = (String) inputFromClient.readObject();
+                Object payload = requests.hasPayload(requestType) ? inputFromClient.readObject() : null;
+                Object response;
+                if (STREAMED_REQUESTS.contains(requestType)) {
+                    // Reset before each chunk, so the stream does not keep every row sent in its handle table.
+                    response = streamDispatch(requestType, chunk -> {
+                        outputToClient.reset();
+                        outputToClient.writeObject(chunk);
                         outputToClient.flush();
-                    default:
-                        response = "Invalid request type.";
+                    });
+                    handlesOutOfStep = true;
+                } else {
+                    response = requests.dispatch(requestType, payload);
+                }
+
+                // Send the response back to the client.
+                if (catalogResponses.isCached(requestType)) {
+                    // Reset both ends to an empty handle table, then copy the pre-serialized object as is.
+                    byte[] stream = catalogResponses.serialized(requestType, response);
+                    outputToClient.reset();
+                    outputToClient.flush();
+                    output.write(stream, ResponseBytesCache.STREAM_HEADER_BYTES,
+                            stream.length - ResponseBytesCache.STREAM_HEADER_BYTES);
+                    output.flush();
+                    handlesOutOfStep = true;
+                } else {
+                    if (handlesOutOfStep || writtenSinceReset >= OBJECT_STREAM_RESET_INTERVAL) {
+                        outputToClient.reset();
+                        handlesOutOfStep = false;
+                        writtenSinceReset = 0;
                     }
-                    // Send the response back to the client.
                     outputToClient.writeObject(response);
                     outputToClient.flush();
+                    writtenSinceReset++;
+                }
+            }
+        }
+
+        private void serveFrames(InputStream input, OutputStream output) throws Exception {
+            FramedConnectionHandler handler = new FramedConnectionHandler();
+            pushChannel = new SocketPushChannel(output);
+            handler.opened(pushChannel);
+            Semaphore pipelineSlots = new Semaphore(MAX_PIPELINED_REQUESTS);
+            while (true) {
+                byte[] frame = WireProtocol.readFrame(input);
+                if (handler.maxConcurrentFrames() <= 1) {
+                    writeFrame(output, handler.handleFrame(frame));
+                    continue;
+                }
+
+                // Pipelined: hand the frame to its operation's worker pool and keep reading.
+                // Stop reading while too many requests from this connection are still running.
+                Executor executor = handler.executorFor(frame);
+                pipelineSlots.acquire();
+                try {
+                    (executor != null ? executor : requestWorkers)
+                            .execute(() -> handlePipelinedFrame(handler, frame, output, pipelineSlots));
+                } catch (RejectedExecutionException e) {
+                    pipelineSlots.release();
+                    throw e;
                 }
+            }
+        }
+
+        private void handlePipelinedFrame(FramedConnectionHandler handler, byte[] frame, OutputStream output,
+                Semaphore pipelineSlots) {
+            try {
+                writeFrame(output, handler.handleFrame(frame));
             } catch (Exception e) {
+                // Closing the socket also ends the reading loop of this connection.
                 System.out.println("Client disconnected: " + e.getMessage());
-            } finally {
                 try {
-                    if (inputFromClient != null) {
-                        inputFromClient.close();
+                    socket.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            } finally {
+                pipelineSlots.release();
+            }
+        }
+
+        // Writes one whole frame; responses and pushed frames of the connection never interleave.
+        private void writeFrame(OutputStream output, byte[] frame) throws IOException {
+            outputLock.lock();
+            try {
+                WireProtocol.writeFrame(output, frame);
+            } finally {
+                outputLock.unlock();
+            }
+        }
+
+
+        /**
+         * Pushes frames to this connection.
+         * - Frames wait in a bounded queue; a virtual thread, started by the first push, writes them
+         *   between the connection's responses.
+         * - Chunks of streamed responses are written right away by the thread handling the request.
+         */
+        private class SocketPushChannel implements PushChannel {
+            private final OutputStream output;
+            private final ArrayBlockingQueue<byte[]> queuedFrames = new ArrayBlockingQueue<>(PUSH_BUFFER_FRAMES);
+            private Thread writer; // guarded by this
+
+            SocketPushChannel(OutputStream output) {
+                this.output = output;
+            }
+
+            @Override
+            public boolean offer(byte[] frame) {
+                if (!isOpen() || !queuedFrames.offer(frame)) {
+                    return false;
+                }
+                synchronized (this) {
+                    if (writer == null) {
+                        writer = Thread.ofVirtual().name("push-writer").start(this::writeQueuedFrames);
                     }
-                    if (outputToClient != null) {
-                        outputToClient.close();
+                }
+                return true;
+            }
+
+            @Override
+            public void write(byte[] frame) throws IOException {
+                // The blocking socket write itself waits for the client.
+                writeFrame(output, frame);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return !socket.isClosed();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already closed.
+                }
+                synchronized (this) {
+                    if (writer != null) {
+                        writer.interrupt();
                     }
-                    if (socket != null && !socket.isClosed()) {
-                        socket.close();
+                }
+            }
+
+            private void writeQueuedFrames() {
+                try {
+                    while (true) {
+                        writeFrame(output, queuedFrames.take());
                     }
-                } catch (IOException ex) {
-                    ex.printStackTrace();
+                } catch (InterruptedException | IOException e) {
+                    close();
                 }
             }
         }
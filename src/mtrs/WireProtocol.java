@@ -0,0 +1,923 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: WireProtocol.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary wire protocol shared by the server and the clients.
+ *
+ * Every message is a frame: a 4-byte big-endian body length followed by the body.
+ * - The first frame in each direction is a hello: the magic "MT" and a protocol version byte.
+ *   The server answers with the highest version both sides support.
+ * - A request body is an opcode byte followed by the fields of its payload.
+ * - A response body is a kind byte (message, movie list, show list, ...) followed by its fields.
+ * - From version 2 on, every request and response body starts with a 4-byte correlation ID.
+ *   The server may then handle requests from one connection concurrently and answer out of order;
+ *   each response carries the ID of the request it answers.
+ * - Correlation ID 0 is never used by requests; responses with it are server pushes (e.g., seat
+ *   updates after SUBSCRIBE_SHOWS) that answer no request.
+ *
+ * A frame always starts with a zero byte (frames are far below 16 MB), while a Java object stream
+ * starts with 0xAC. The server uses this to serve legacy object-stream clients side by side.
+ *
+ * Field encodings: strings are a length (-1 for null) plus UTF-8 bytes, dates are epoch days,
+ * times are seconds of the day.
+ */
+public final class WireProtocol {
+    public static final short MAGIC          = 0x4D54; // "MT"
+    public static final byte VERSION         = 2;
+    public static final byte FIRST_PIPELINED_VERSION = 2;
+    public static final int CORRELATION_ID_BYTES     = 4;
+    public static final int PUSH_CORRELATION_ID      = 0;
+    public static final int MAX_FRAME_BYTES  = 1 << 20;
+    public static final int LEGACY_STREAM_FIRST_BYTE = 0xAC;
+
+    // Request opcodes; the index in REQUEST_TYPES is the opcode.
+    public static final byte SIGNUP_USER               = 1;
+    public static final byte LOGIN_USER                = 2;
+    public static final byte ADD_MOVIE                 = 3;
+    public static final byte ADD_SHOW                  = 4;
+    public static final byte GET_MOVIES                = 5;
+    public static final byte GET_SHOWS                 = 6;
+    public static final byte DELETE_MOVIE              = 7;
+    public static final byte DELETE_SHOW               = 8;
+    public static final byte GET_AVAILABLE_SHOWS       = 9;
+    public static final byte BOOK_TICKET               = 10;
+    public static final byte GET_CUSTOMER_RESERVATIONS = 11;
+    public static final byte CANCEL_RESERVATION        = 12;
+    public static final byte GET_USER_INFO             = 13;
+    public static final byte PING                      = 14;
+    public static final byte GET_SHOWS_SINCE           = 15;
+    public static final byte SUBSCRIBE_SHOWS           = 16;
+    public static final byte GET_SHOWS_PAGE            = 17;
+    public static final byte GET_CUSTOMER_RESERVATIONS_PAGE = 18;
+    public static final byte GET_RESERVATION_REPORT    = 19;
+    public static final byte STATS                     = 20;
+    public static final byte START_SESSION             = 21;
+    public static final byte GET_SESSION_USER_INFO     = 22;
+    public static final byte GET_SESSION_RESERVATIONS  = 23;
+
+    private static final String[] REQUEST_TYPES = {
+            null, "SIGNUP_USER", "LOGIN_USER", "ADD_MOVIE", "ADD_SHOW", "GET_MOVIES", "GET_SHOWS",
+            "DELETE_MOVIE", "DELETE_SHOW", "GET_AVAILABLE_SHOWS", "BOOK_TICKET",
+            "GET_CUSTOMER_RESERVATIONS", "CANCEL_RESERVATION", "GET_USER_INFO", "PING",
+            "GET_SHOWS_SINCE", "SUBSCRIBE_SHOWS", "GET_SHOWS_PAGE", "GET_CUSTOMER_RESERVATIONS_PAGE",
+            "GET_RESERVATION_REPORT", "STATS", "START_SESSION", "GET_SESSION_USER_INFO", "GET_SESSION_RESERVATIONS" };
+
+    // Response kinds
+    private static final byte KIND_NULL         = 0;
+    private static final byte KIND_MESSAGE      = 1;
+    private static final byte KIND_MOVIES       = 2;
+    private static final byte KIND_SHOWS        = 3;
+    private static final byte KIND_RESERVATIONS = 4;
+    private static final byte KIND_PROFILE      = 5;
+    private static final byte KIND_EMPTY_LIST   = 6;
+    private static final byte KIND_SHOW_DELTA   = 7;
+    private static final byte KIND_SEAT_UPDATES = 8;
+    private static final byte KIND_PAGE         = 9;
+    private static final byte KIND_CHUNK        = 10;
+    private static final byte KIND_RESERVATION_REPORT = 11;
+    private static final byte KIND_STATS        = 12;
+    private static final byte KIND_SESSION      = 13;
+
+    private WireProtocol() {
+    }
+
+
+    /**
+     * A decoded request: the legacy request type string and its payload object.
+     */
+    public static final class Request {
+        private final String requestType;
+        private final Object payload;
+
+        public Request(String requestType, Object payload) {
+            this.requestType = requestType;
+            this.payload = payload;
+        }
+
+        public String getRequestType() {
+            return requestType;
+        }
+
+        public Object getPayload() {
+            return payload;
+        }
+    }
+
+
+    // ------------------------------------------------------------------
+    // Framing and handshake
+    // ------------------------------------------------------------------
+
+    /**
+     * Writes one length-prefixed frame and flushes the stream.
+     *
+     * @param out The stream to write to.
+     * @param body The frame body.
+     * @throws IOException If writing fails.
+     */
+    public static void writeFrame(OutputStream out, byte[] body) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(body.length);
+        dataOut.write(body);
+        dataOut.flush();
+    }
+
+
+    /**
+     * Reads one length-prefixed frame.
+     *
+     * @param in The stream to read from.
+     * @return The frame body.
+     * @throws IOException If the stream ends or the frame length is invalid.
+     */
+    public static byte[] readFrame(InputStream in) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        int length = dataIn.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+        byte[] body = new byte[length];
+        dataIn.readFully(body);
+        return body;
+    }
+
+
+    /**
+     * Encodes a hello frame body announcing the given protocol version.
+     *
+     * @param version The protocol version.
+     * @return The hello frame body.
+     */
+    public static byte[] encodeHello(int version) {
+        return new byte[] { (byte) (MAGIC >> 8), (byte) MAGIC, (byte) version };
+    }
+
+
+    /**
+     * Decodes a hello frame body.
+     *
+     * @param frame The frame body.
+     * @return The announced protocol version, or -1 if the frame is not a hello.
+     */
+    public static int decodeHello(byte[] frame) {
+        if (frame.length != 3 || frame[0] != (byte) (MAGIC >> 8) || frame[1] != (byte) MAGIC) {
+            return -1;
+        }
+        return frame[2];
+    }
+
+
+    /**
+     * Prefixes a request or response body with a correlation ID (protocol version 2 and later).
+     *
+     * @param correlationId The ID chosen by the client for the request.
+     * @param body The request or response body.
+     * @return The body with the correlation ID in front.
+     */
+    public static byte[] withCorrelationId(int correlationId, byte[] body) {
+        byte[] frame = new byte[CORRELATION_ID_BYTES + body.length];
+        frame[0] = (byte) (correlationId >>> 24);
+        frame[1] = (byte) (correlationId >>> 16);
+        frame[2] = (byte) (correlationId >>> 8);
+        frame[3] = (byte) correlationId;
+        System.arraycopy(body, 0, frame, CORRELATION_ID_BYTES, body.length);
+        return frame;
+    }
+
+
+    /**
+     * Reads the correlation ID at the start of a version 2 frame body.
+     *
+     * @param frame The frame body.
+     * @return The correlation ID.
+     * @throws ProtocolException If the frame is too short to hold an ID.
+     */
+    public static int correlationIdOf(byte[] frame) throws ProtocolException {
+        if (frame.length < CORRELATION_ID_BYTES) {
+            throw new ProtocolException("Frame too short for a correlation ID.");
+        }
+        return ((frame[0] & 0xFF) << 24) | ((frame[1] & 0xFF) << 16) | ((frame[2] & 0xFF) << 8) | (frame[3] & 0xFF);
+    }
+
+
+    // ------------------------------------------------------------------
+    // Requests
+    // ------------------------------------------------------------------
+
+    /**
+     * Looks up the opcode for a request type.
+     *
+     * @param requestType The request type string (e.g., "GET_SHOWS").
+     * @return The opcode.
+     * @throws ProtocolException If the request type has no opcode.
+     */
+    public static byte opcodeOf(String requestType) throws ProtocolException {
+        for (int i = 1; i < REQUEST_TYPES.length; i++) {
+            if (REQUEST_TYPES[i].equals(requestType)) {
+                return (byte) i;
+            }
+        }
+        throw new ProtocolException("Unknown request type: " + requestType);
+    }
+
+
+    /**
+     * Reads the request type of a request body without decoding its payload.
+     *
+     * @param frame The request frame body.
+     * @param offset The position of the opcode (after any correlation ID).
+     * @return The request type string, or null if the body is too short or the opcode is unknown.
+     */
+    public static String requestTypeOf(byte[] frame, int offset) {
+        if (frame.length <= offset) {
+            return null;
+        }
+        int opcode = frame[offset] & 0xFF;
+        return opcode >= 1 && opcode < REQUEST_TYPES.length ? REQUEST_TYPES[opcode] : null;
+    }
+
+
+    /**
+     * Encodes a request frame body.
+     *
+     * @param requestType The request type string.
+     * @param payload The payload expected by the request type, or null.
+     * @return The request frame body.
+     * @throws IOException If the request type is unknown or the payload has the wrong type.
+     */
+    public static byte[] encodeRequest(String requestType, Object payload) throws IOException {
+        byte opcode = opcodeOf(requestType);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(opcode);
+        switch (opcode) {
+        case SIGNUP_USER:
+            writeSignUpRequest(out, (SignUpRequest) payload);
+            break;
+        case LOGIN_USER:
+        case START_SESSION:
+            writeLoginRequest(out, (LoginRequest) payload);
+            break;
+        case ADD_MOVIE:
+            writeMovie(out, (Movie) payload);
+            break;
+        case ADD_SHOW:
+            writeShow(out, (Show) payload);
+            break;
+        case DELETE_MOVIE:
+        case DELETE_SHOW:
+        case CANCEL_RESERVATION:
+            out.writeInt((Integer) payload);
+            break;
+        case BOOK_TICKET:
+            writeBookingRequest(out, (BookingRequest) payload);
+            break;
+        case GET_CUSTOMER_RESERVATIONS:
+        case GET_USER_INFO:
+        case GET_SESSION_USER_INFO:
+        case GET_SESSION_RESERVATIONS:
+            writeString(out, (String) payload);
+            break;
+        case GET_SHOWS_SINCE:
+            out.writeLong((Long) payload);
+            break;
+        case GET_SHOWS_PAGE:
+        case GET_CUSTOMER_RESERVATIONS_PAGE:
+            writePageRequest(out, (PageRequest) payload);
+            break;
+        default:
+            // GET_MOVIES, GET_SHOWS, GET_AVAILABLE_SHOWS, PING, SUBSCRIBE_SHOWS, GET_RESERVATION_REPORT and STATS carry no payload.
+            break;
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Decodes a request frame body.
+     *
+     * @param frame The request frame body.
+     * @return The request type and its decoded payload.
+     * @throws IOException If the opcode is unknown or the body is truncated.
+     */
+    public static Request decodeRequest(byte[] frame) throws IOException {
+        return decodeRequest(frame, 0);
+    }
+
+
+    /**
+     * Decodes a request body that starts at the given offset in the frame.
+     *
+     * @param frame The request frame body.
+     * @param offset The position of the opcode (after any correlation ID).
+     * @return The request type and its decoded payload.
+     * @throws IOException If the opcode is unknown or the body is truncated.
+     */
+    public static Request decodeRequest(byte[] frame, int offset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame, offset, frame.length - offset));
+        int opcode = in.readUnsignedByte();
+        if (opcode < 1 || opcode >= REQUEST_TYPES.length) {
+            throw new ProtocolException("Unknown opcode: " + opcode);
+        }
+        Object payload;
+        switch (opcode) {
+        case SIGNUP_USER:
+            payload = readSignUpRequest(in);
+            break;
+        case LOGIN_USER:
+        case START_SESSION:
+            payload = readLoginRequest(in);
+            break;
+        case ADD_MOVIE:
+            payload = readMovie(in);
+            break;
+        case ADD_SHOW:
+            payload = readShow(in);
+            break;
+        case DELETE_MOVIE:
+        case DELETE_SHOW:
+        case CANCEL_RESERVATION:
+            payload = in.readInt();
+            break;
+        case BOOK_TICKET:
+            payload = readBookingRequest(in);
+            break;
+        case GET_CUSTOMER_RESERVATIONS:
+        case GET_USER_INFO:
+        case GET_SESSION_USER_INFO:
+        case GET_SESSION_RESERVATIONS:
+            payload = readString(in);
+            break;
+        case GET_SHOWS_SINCE:
+            payload = in.readLong();
+            break;
+        case GET_SHOWS_PAGE:
+        case GET_CUSTOMER_RESERVATIONS_PAGE:
+            payload = readPageRequest(in);
+            break;
+        default:
+            payload = null;
+            break;
+        }
+        return new Request(REQUEST_TYPES[opcode], payload);
+    }
+
+
+    // ------------------------------------------------------------------
+    // Responses
+    // ------------------------------------------------------------------
+
+    /**
+     * Encodes a response object produced by the server's request handlers.
+     * Supported responses are null, String, UserProfile, SessionInfo, ShowDelta, ServerStats, lists of MovieItem, ShowItem,
+     * ReservationItem, ReservationReportItem or SeatUpdate, and Pages and ResultChunks of such lists.
+     *
+     * @param response The response object.
+     * @return The response frame body.
+     * @throws IOException If the response type is not supported.
+     */
+    public static byte[] encodeResponse(Object response) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeResponse(out, response);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    // Writes the kind byte and fields of a response; Pages and ResultChunks nest their list as a response of its own.
+    private static void writeResponse(DataOutputStream out, Object response) throws IOException {
+        if (response == null) {
+            out.writeByte(KIND_NULL);
+        } else if (response instanceof String message) {
+            out.writeByte(KIND_MESSAGE);
+            writeString(out, message);
+        } else if (response instanceof UserProfile profile) {
+            out.writeByte(KIND_PROFILE);
+            writeUserProfile(out, profile);
+        } else if (response instanceof ShowDelta delta) {
+            out.writeByte(KIND_SHOW_DELTA);
+            writeShowDelta(out, delta);
+        } else if (response instanceof SessionInfo session) {
+            out.writeByte(KIND_SESSION);
+            writeString(out, session.getToken());
+            writeString(out, session.getUsername());
+            writeString(out, session.getRole());
+            writeString(out, session.getMessage());
+        } else if (response instanceof ServerStats stats) {
+            out.writeByte(KIND_STATS);
+            writeServerStats(out, stats);
+        } else if (response instanceof Page<?> page) {
+            out.writeByte(KIND_PAGE);
+            out.writeLong(page.getVersion());
+            writeString(out, page.getNextCursor());
+            writeList(out, page.getItems());
+        } else if (response instanceof ResultChunk<?> chunk) {
+            out.writeByte(KIND_CHUNK);
+            out.writeBoolean(chunk.isEnd());
+            writeString(out, chunk.getError());
+            writeList(out, chunk.getRows());
+        } else if (response instanceof List<?> list) {
+            writeList(out, list);
+        } else {
+            throw new ProtocolException("Unsupported response type: " + response.getClass().getName());
+        }
+    }
+
+
+    /**
+     * Decodes a response frame body into the same objects the legacy protocol delivers.
+     *
+     * @param frame The response frame body.
+     * @return The decoded response (null, String, UserProfile, SessionInfo, ShowDelta, ServerStats, Page, ResultChunk or a List).
+     * @throws IOException If the kind is unknown or the body is truncated.
+     */
+    public static Object decodeResponse(byte[] frame) throws IOException {
+        return decodeResponse(frame, 0);
+    }
+
+
+    /**
+     * Decodes a response body that starts at the given offset in the frame.
+     *
+     * @param frame The response frame body.
+     * @param offset The position of the kind byte (after any correlation ID).
+     * @return The decoded response (null, String, UserProfile, SessionInfo, ShowDelta, ServerStats, Page, ResultChunk or a List).
+     * @throws IOException If the kind is unknown or the body is truncated.
+     */
+    public static Object decodeResponse(byte[] frame, int offset) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame, offset, frame.length - offset));
+        return readResponse(in);
+    }
+
+
+    private static Object readResponse(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+        case KIND_NULL:
+            return null;
+        case KIND_MESSAGE:
+            return readString(in);
+        case KIND_PROFILE:
+            return readUserProfile(in);
+        case KIND_SHOW_DELTA:
+            return readShowDelta(in);
+        case KIND_STATS:
+            return readServerStats(in);
+        case KIND_SESSION:
+            return new SessionInfo(readString(in), readString(in), readString(in), readString(in));
+        case KIND_PAGE: {
+            long version = in.readLong();
+            String nextCursor = readString(in);
+            Object items = readResponse(in);
+            if (!(items instanceof List<?> list)) {
+                throw new ProtocolException("Page without a list of items");
+            }
+            return new Page<>(list, nextCursor, version);
+        }
+        case KIND_CHUNK: {
+            boolean end = in.readBoolean();
+            String error = readString(in);
+            Object rows = readResponse(in);
+            if (!(rows instanceof List<?> list)) {
+                throw new ProtocolException("Chunk without a list of rows");
+            }
+            return new ResultChunk<>(list, end, error);
+        }
+        case KIND_EMPTY_LIST:
+            return new ArrayList<>();
+        case KIND_MOVIES: {
+            int count = in.readInt();
+            List<MovieItem> movies = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                movies.add(readMovieItem(in));
+            }
+            return movies;
+        }
+        case KIND_SHOWS: {
+            int count = in.readInt();
+            List<ShowItem> shows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                shows.add(readShowItem(in));
+            }
+            return shows;
+        }
+        case KIND_RESERVATIONS: {
+            int count = in.readInt();
+            List<ReservationItem> reservations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                reservations.add(readReservationItem(in));
+            }
+            return reservations;
+        }
+        case KIND_RESERVATION_REPORT: {
+            int count = in.readInt();
+            List<ReservationReportItem> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(readReservationReportItem(in));
+            }
+            return rows;
+        }
+        case KIND_SEAT_UPDATES: {
+            int count = in.readInt();
+            List<SeatUpdate> updates = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                updates.add(new SeatUpdate(in.readInt(), in.readInt()));
+            }
+            return updates;
+        }
+        default:
+            throw new ProtocolException("Unknown response kind: " + kind);
+        }
+    }
+
+
+    private static void writeList(DataOutputStream out, List<?> list) throws IOException {
+        if (list.isEmpty()) {
+            out.writeByte(KIND_EMPTY_LIST);
+            return;
+        }
+        Object first = list.get(0);
+        if (first instanceof MovieItem) {
+            out.writeByte(KIND_MOVIES);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeMovieItem(out, (MovieItem) item);
+            }
+        } else if (first instanceof ShowItem) {
+            out.writeByte(KIND_SHOWS);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeShowItem(out, (ShowItem) item);
+            }
+        } else if (first instanceof ReservationItem) {
+            out.writeByte(KIND_RESERVATIONS);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeReservationItem(out, (ReservationItem) item);
+            }
+        } else if (first instanceof ReservationReportItem) {
+            out.writeByte(KIND_RESERVATION_REPORT);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                writeReservationReportItem(out, (ReservationReportItem) item);
+            }
+        } else if (first instanceof SeatUpdate) {
+            out.writeByte(KIND_SEAT_UPDATES);
+            out.writeInt(list.size());
+            for (Object item : list) {
+                SeatUpdate update = (SeatUpdate) item;
+                out.writeInt(update.getShowID());
+                out.writeInt(update.getAvailableSeats());
+            }
+        } else {
+            throw new ProtocolException("Unsupported list element type: " + first.getClass().getName());
+        }
+    }
+
+
+    // ------------------------------------------------------------------
+    // Codecs for the transfer objects
+    // ------------------------------------------------------------------
+
+    public static void writeShowItem(DataOutputStream out, ShowItem show) throws IOException {
+        out.writeInt(show.getShowID());
+        writeString(out, show.getMovieTitle());
+        writeDate(out, show.getShowDate());
+        writeTime(out, show.getShowTime());
+        out.writeInt(show.getRoomNumber());
+        out.writeInt(show.getAvailableSeats());
+        out.writeDouble(show.getPrice());
+    }
+
+    public static ShowItem readShowItem(DataInputStream in) throws IOException {
+        int showID = in.readInt();
+        String movieTitle = readString(in);
+        Date showDate = readDate(in);
+        Time showTime = readTime(in);
+        int roomNumber = in.readInt();
+        int availableSeats = in.readInt();
+        double price = in.readDouble();
+        return new ShowItem(showID, movieTitle, showDate, showTime, roomNumber, availableSeats, price);
+    }
+
+    public static void writeShowDelta(DataOutputStream out, ShowDelta delta) throws IOException {
+        out.writeLong(delta.getVersion());
+        out.writeBoolean(delta.isFullResync());
+        out.writeInt(delta.getChangedShows().size());
+        for (ShowItem show : delta.getChangedShows()) {
+            writeShowItem(out, show);
+        }
+        out.writeInt(delta.getRemovedShowIDs().size());
+        for (int showID : delta.getRemovedShowIDs()) {
+            out.writeInt(showID);
+        }
+    }
+
+    public static ShowDelta readShowDelta(DataInputStream in) throws IOException {
+        long version = in.readLong();
+        boolean fullResync = in.readBoolean();
+        int changedCount = in.readInt();
+        List<ShowItem> changed = new ArrayList<>(changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            changed.add(readShowItem(in));
+        }
+        int removedCount = in.readInt();
+        List<Integer> removed = new ArrayList<>(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            removed.add(in.readInt());
+        }
+        return new ShowDelta(version, fullResync, changed, removed);
+    }
+
+    public static void writeServerStats(DataOutputStream out, ServerStats stats) throws IOException {
+        out.writeLong(stats.getUptimeMillis());
+        out.writeInt(stats.getOperations().size());
+        for (OperationStats operation : stats.getOperations()) {
+            writeString(out, operation.getRequestType());
+            out.writeLong(operation.getCalls());
+            out.writeLong(operation.getErrors());
+            out.writeLong(operation.getTotalMicros());
+            out.writeLong(operation.getDbMicros());
+            out.writeLong(operation.getP50Micros());
+            out.writeLong(operation.getP90Micros());
+            out.writeLong(operation.getP99Micros());
+            out.writeLong(operation.getP999Micros());
+            out.writeLong(operation.getMaxMicros());
+        }
+        out.writeInt(stats.getCounters().size());
+        for (Map.Entry<String, Long> counter : stats.getCounters().entrySet()) {
+            writeString(out, counter.getKey());
+            out.writeLong(counter.getValue());
+        }
+    }
+
+    public static ServerStats readServerStats(DataInputStream in) throws IOException {
+        long uptimeMillis = in.readLong();
+        int operationCount = in.readInt();
+        List<OperationStats> operations = new ArrayList<>(operationCount);
+        for (int i = 0; i < operationCount; i++) {
+            operations.add(new OperationStats(readString(in), in.readLong(), in.readLong(), in.readLong(),
+                    in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+        }
+        int counterCount = in.readInt();
+        Map<String, Long> counters = new LinkedHashMap<>();
+        for (int i = 0; i < counterCount; i++) {
+            counters.put(readString(in), in.readLong());
+        }
+        return new ServerStats(uptimeMillis, operations, counters);
+    }
+
+    public static void writePageRequest(DataOutputStream out, PageRequest request) throws IOException {
+        writeString(out, request.getUsername());
+        writeString(out, request.getCursor());
+        out.writeInt(request.getPageSize());
+        writeString(out, request.getSessionToken());
+    }
+
+    public static PageRequest readPageRequest(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String cursor = readString(in);
+        int pageSize = in.readInt();
+        // The session token is a trailing field; requests from older clients end before it.
+        String sessionToken = in.available() > 0 ? readString(in) : null;
+        return new PageRequest(username, cursor, pageSize, sessionToken);
+    }
+
+    public static void writeMovieItem(DataOutputStream out, MovieItem movie) throws IOException {
+        out.writeInt(movie.getMovieID());
+        writeString(out, movie.getMovieName());
+        out.writeDouble(movie.getRating());
+        writeString(out, movie.getDescription());
+    }
+
+    public static MovieItem readMovieItem(DataInputStream in) throws IOException {
+        int movieID = in.readInt();
+        String movieName = readString(in);
+        double rating = in.readDouble();
+        String description = readString(in);
+        return new MovieItem(movieID, movieName, rating, description);
+    }
+
+    public static void writeReservationItem(DataOutputStream out, ReservationItem reservation) throws IOException {
+        out.writeInt(reservation.getReservationID());
+        writeString(out, reservation.getShowDetails());
+        out.writeInt(reservation.getNumTickets());
+        writeString(out, reservation.getReservationTime());
+    }
+
+    public static ReservationItem readReservationItem(DataInputStream in) throws IOException {
+        int reservationID = in.readInt();
+        String showDetails = readString(in);
+        int numTickets = in.readInt();
+        String reservationTime = readString(in);
+        return new ReservationItem(reservationID, showDetails, numTickets, reservationTime);
+    }
+
+    public static void writeReservationReportItem(DataOutputStream out, ReservationReportItem row) throws IOException {
+        out.writeInt(row.getReservationID());
+        writeString(out, row.getUsername());
+        writeString(out, row.getShowDetails());
+        out.writeInt(row.getNumTickets());
+        writeString(out, row.getReservationTime());
+        out.writeDouble(row.getAmountPaid());
+    }
+
+    public static ReservationReportItem readReservationReportItem(DataInputStream in) throws IOException {
+        int reservationID = in.readInt();
+        String username = readString(in);
+        String showDetails = readString(in);
+        int numTickets = in.readInt();
+        String reservationTime = readString(in);
+        double amountPaid = in.readDouble();
+        return new ReservationReportItem(reservationID, username, showDetails, numTickets, reservationTime, amountPaid);
+    }
+
+    public static void writeUserProfile(DataOutputStream out, UserProfile profile) throws IOException {
+        writeString(out, profile.getUsername());
+        writeString(out, profile.getEmail());
+        writeString(out, profile.getFirstName());
+        writeString(out, profile.getLastName());
+        writeString(out, profile.getAddress());
+        writeString(out, profile.getPhone());
+    }
+
+    public static UserProfile readUserProfile(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String email = readString(in);
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String address = readString(in);
+        String phone = readString(in);
+        return new UserProfile(username, email, firstName, lastName, address, phone);
+    }
+
+    public static void writeBookingRequest(DataOutputStream out, BookingRequest booking) throws IOException {
+        out.writeInt(booking.getShowID());
+        out.writeInt(booking.getNumTickets());
+        writeString(out, booking.getUsername());
+        writeString(out, booking.getCreditCardNumber());
+        writeString(out, booking.getIdempotencyKey());
+        writeString(out, booking.getSessionToken());
+    }
+
+    public static BookingRequest readBookingRequest(DataInputStream in) throws IOException {
+        int showID = in.readInt();
+        int numTickets = in.readInt();
+        String username = readString(in);
+        String creditCardNumber = readString(in);
+        // The idempotency key and session token are trailing fields; requests from older clients end before them.
+        String idempotencyKey = in.available() > 0 ? readString(in) : null;
+        String sessionToken = in.available() > 0 ? readString(in) : null;
+        return new BookingRequest(showID, numTickets, username, creditCardNumber, idempotencyKey, sessionToken);
+    }
+
+    public static void writeLoginRequest(DataOutputStream out, LoginRequest login) throws IOException {
+        writeString(out, login.getUsername());
+        writeString(out, login.getPassword());
+        writeString(out, login.getRole());
+    }
+
+    public static LoginRequest readLoginRequest(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String password = readString(in);
+        String role = readString(in);
+        return new LoginRequest(username, password, role);
+    }
+
+    public static void writeSignUpRequest(DataOutputStream out, SignUpRequest signUp) throws IOException {
+        writeString(out, signUp.getUsername());
+        writeString(out, signUp.getPassword());
+        writeString(out, signUp.getFirstName());
+        writeString(out, signUp.getLastName());
+        writeString(out, signUp.getEmail());
+        writeString(out, signUp.getAddress());
+        writeString(out, signUp.getPhone());
+    }
+
+    public static SignUpRequest readSignUpRequest(DataInputStream in) throws IOException {
+        String username = readString(in);
+        String password = readString(in);
+        String firstName = readString(in);
+        String lastName = readString(in);
+        String email = readString(in);
+        String address = readString(in);
+        String phone = readString(in);
+        return new SignUpRequest(username, password, firstName, lastName, email, address, phone);
+    }
+
+    public static void writeMovie(DataOutputStream out, Movie movie) throws IOException {
+        out.writeInt(movie.getMoviePK());
+        writeString(out, movie.getTitle());
+        out.writeInt(movie.getRating());
+        writeString(out, movie.getInfo());
+    }
+
+    public static Movie readMovie(DataInputStream in) throws IOException {
+        int moviePK = in.readInt();
+        String title = readString(in);
+        int rating = in.readInt();
+        String info = readString(in);
+        return new Movie(moviePK, title, rating, info);
+    }
+
+    public static void writeShow(DataOutputStream out, Show show) throws IOException {
+        out.writeInt(show.getShowPK());
+        out.writeInt(show.getMoviePK());
+        writeDate(out, show.getShowDate());
+        writeTime(out, show.getShowTime());
+        out.writeInt(show.getRoomNumber());
+        out.writeInt(show.getAvailableSeats());
+        out.writeDouble(show.getPrice());
+    }
+
+    public static Show readShow(DataInputStream in) throws IOException {
+        int showPK = in.readInt();
+        int moviePK = in.readInt();
+        Date showDate = readDate(in);
+        Time showTime = readTime(in);
+        int roomNumber = in.readInt();
+        int availableSeats = in.readInt();
+        double price = in.readDouble();
+        return new Show(showPK, moviePK, showDate, showTime, roomNumber, availableSeats, price);
+    }
+
+
+    // ------------------------------------------------------------------
+    // Field encodings
+    // ------------------------------------------------------------------
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new ProtocolException("Invalid string length: " + length);
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, Date date) throws IOException {
+        out.writeBoolean(date != null);
+        if (date != null) {
+            out.writeInt((int) date.toLocalDate().toEpochDay());
+        }
+    }
+
+    private static Date readDate(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Date.valueOf(LocalDate.ofEpochDay(in.readInt())) : null;
+    }
+
+    private static void writeTime(DataOutputStream out, Time time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeInt(time.toLocalTime().toSecondOfDay());
+        }
+    }
+
+    private static Time readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? Time.valueOf(LocalTime.ofSecondOfDay(in.readInt())) : null;
+    }
+}
@@ -0,0 +1,89 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: AdmissionTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.newServer;
+import static mtrs.TestSupport.run;
+import static mtrs.TestSupport.start;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that the server admits at most mtrs.maxClients connections at a time.
+ * - Runs with a cap of 2: a third client gets the "server busy" reply and is disconnected,
+ *   while the admitted clients keep being served.
+ * - A permit is returned when a client disconnects, so the next client is admitted again.
+ */
+public class AdmissionTest {
+    private static final int MAX_CLIENTS = 2;
+    private static final String BUSY = "Error: Server is busy. Please try again shortly.";
+
+    public static void main(String[] args) throws Exception {
+        // Read once when the server class is initialized, so it must be set first.
+        System.setProperty("mtrs.maxClients", String.valueOf(MAX_CLIENTS));
+        int port = start(newServer(new FakeDatabase(), 2, 2_000));
+        run("clientsBeyondTheCapAreTurnedAway", () -> clientsBeyondTheCapAreTurnedAway(port));
+        run("disconnectFreesAPlace", () -> disconnectFreesAPlace(port));
+    }
+
+
+    static void clientsBeyondTheCapAreTurnedAway(int port) throws Exception {
+        List<LegacyClient> admitted = new ArrayList<>();
+        try {
+            for (int i = 0; i < MAX_CLIENTS; i++) {
+                LegacyClient client = new LegacyClient(port);
+                admitted.add(client);
+                assertEquals("PONG", client.request("PING", (Object) null), "admitted client " + i);
+            }
+            try (LegacyClient rejected = new LegacyClient(port)) {
+                assertEquals(BUSY, rejected.reply(), "reply to the client over the cap");
+                check(rejected.isDisconnected(), "client over the cap was not disconnected");
+            }
+            for (LegacyClient client : admitted) {
+                assertEquals("PONG", client.request("PING", (Object) null), "admitted client after a rejection");
+            }
+        } finally {
+            for (LegacyClient client : admitted) {
+                client.close();
+            }
+        }
+    }
+
+
+    static void disconnectFreesAPlace(int port) throws Exception {
+        LegacyClient first = new LegacyClient(port);
+        try (LegacyClient second = new LegacyClient(port)) {
+            assertEquals("PONG", first.request("PING", (Object) null), "first client");
+            assertEquals("PONG", second.request("PING", (Object) null), "second client");
+            first.close();
+            // The server returns the permit once its handler sees the disconnect; retry until it has.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (true) {
+                try (LegacyClient next = new LegacyClient(port)) {
+                    Object reply = next.request("PING", (Object) null);
+                    if ("PONG".equals(reply)) {
+                        return;
+                    }
+                    assertEquals(BUSY, reply, "reply while the place is not yet free");
+                }
+                check(System.nanoTime() < deadline, "no place was freed after a client disconnected");
+                Thread.sleep(20);
+            }
+        } finally {
+            first.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: BookingTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.getField;
+import static mtrs.TestSupport.invoke;
+import static mtrs.TestSupport.newServer;
+import static mtrs.TestSupport.openSession;
+import static mtrs.TestSupport.run;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the statements a booking sends to the database.
+ * - A successful booking is one guarded seat UPDATE, one reservation INSERT ... SELECT and one payment
+ *   INSERT, committed once, with no queries.
+ * - Refused bookings roll back, give their seats back to the seat inventory, and explain why.
+ * - Bookings the seat inventory can already refuse never reach the database.
+ * - A booking whose commit failed may have been committed anyway; the seat counts are read back from the database.
+ */
+public class BookingTest {
+    private static final int SHOW_PK = 5;
+    private static final int SEATS = 10;
+    private static final LocalDateTime STARTS_AT = LocalDateTime.now().plusDays(2).withHour(20).withMinute(0)
+            .withSecond(0).withNano(0);
+    private static final String TAKE_SEATS = "UPDATE shows SET availableSeats = availableSeats - ?";
+    private static final String INSERT_RESERVATION = "INSERT INTO reservation";
+    private static final String INSERT_PAYMENT = "INSERT INTO payment";
+
+    public static void main(String[] args) throws Exception {
+        run("bookingIsOneUpdateAndTwoInserts", BookingTest::bookingIsOneUpdateAndTwoInserts);
+        run("refusedSeatUpdateExplainsAndReleases", BookingTest::refusedSeatUpdateExplainsAndReleases);
+        run("timeClashRollsBackAndReleases", BookingTest::timeClashRollsBackAndReleases);
+        run("inventoryRefusalsSkipTheDatabase", BookingTest::inventoryRefusalsSkipTheDatabase);
+        run("failedCommitReloadsSeatCounts", BookingTest::failedCommitReloadsSeatCounts);
+    }
+
+
+    static void bookingIsOneUpdateAndTwoInserts() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        TicketReservationServer server = serverWithShow(database);
+
+        String result = book(server, 3);
+        check(result.startsWith("Booking and payment processed successfully! Reservation ID: "), "booking failed: " + result);
+        assertEquals(List.of(TAKE_SEATS, INSERT_RESERVATION, INSERT_PAYMENT), statementKinds(database), "statements");
+        assertEquals(1, database.commits(), "commits");
+        assertEquals(SEATS - 3, seats(server).getAvailableSeats(), "seats left in the inventory");
+    }
+
+
+    static void refusedSeatUpdateExplainsAndReleases() throws Exception {
+        // The database has fewer seats than the inventory believed, e.g., after an outside change.
+        FakeDatabase database = new FakeDatabase()
+                .onUpdate(TAKE_SEATS, 0)
+                .onQuery("SELECT availableSeats, showdate, showtime FROM shows", List.of(showRow(1)));
+        TicketReservationServer server = serverWithShow(database);
+
+        assertEquals("Error: Only 1 seats are available for this show.", book(server, 3), "message");
+        check(database.count(INSERT_RESERVATION) == 0 && database.count(INSERT_PAYMENT) == 0, "inserted after a refusal");
+        check(database.rollbacks() > 0, "refused booking was not rolled back");
+        assertEquals(SEATS, seats(server).getAvailableSeats(), "seats after a refused booking");
+
+        FakeDatabase noShow = new FakeDatabase().onUpdate(TAKE_SEATS, 0);
+        assertEquals("Error: Show not found.", book(serverWithShow(noShow), 1), "message for a deleted show");
+    }
+
+
+    static void timeClashRollsBackAndReleases() throws Exception {
+        FakeDatabase database = new FakeDatabase().onUpdate(INSERT_RESERVATION, 0);
+        TicketReservationServer server = serverWithShow(database);
+
+        assertEquals("Error: You already have a reservation at the same time for this theater.", book(server, 2), "message");
+        assertEquals(0L, database.count(INSERT_PAYMENT), "payments inserted after a time clash");
+        check(database.rollbacks() > 0, "time clash was not rolled back");
+        assertEquals(SEATS, seats(server).getAvailableSeats(), "seats after a time clash");
+    }
+
+
+    static void inventoryRefusalsSkipTheDatabase() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        TicketReservationServer server = serverWithShow(database);
+        String token = openSession(server, 42, "ana");
+
+        assertEquals("Error: Only " + SEATS + " seats are available for this show.", book(server, SEATS + 1), "sold-out message");
+        assertEquals("Error: Number of tickets must be at least 1.", book(server, 0), "zero tickets");
+        assertEquals("Error: Invalid credit card number. Must be exactly 5 digits.",
+                invoke(server, "handleBookTicket", new BookingRequest(SHOW_PK, 1, null, "1234", null, token)), "short card");
+        assertEquals("Error: Show not found.",
+                invoke(server, "handleBookTicket", new BookingRequest(SHOW_PK + 1, 1, null, "12345", null, token)), "unknown show");
+        assertEquals(List.of(), database.executed(), "statements for refused bookings");
+        assertEquals(SEATS, seats(server).getAvailableSeats(), "seats after refused bookings");
+    }
+
+
+    static void failedCommitReloadsSeatCounts() throws Exception {
+        // Whether the database kept the booking or not, the inventory ends up with the database's count.
+        for (int storedSeats : new int[] { SEATS - 3, SEATS }) {
+            Map<String, Object> stored = new LinkedHashMap<>();
+            stored.put("showPK", SHOW_PK);
+            stored.put("availableseats", storedSeats);
+            FakeDatabase database = new FakeDatabase().onQuery("SELECT showPK, availableseats FROM shows", List.of(stored));
+            database.setCommitFailure("connection lost while committing");
+            TicketReservationServer server = serverWithShow(database);
+
+            assertEquals("Error: The booking could not be confirmed. Please check your reservations before booking again.",
+                    book(server, 3), "message");
+            SeatInventory seatInventory = (SeatInventory) getField(server, "seatInventory");
+            check(!seatInventory.isStale(), "seat counts still stale after the reload");
+            assertEquals(storedSeats, seats(server).getAvailableSeats(), "seats after the reload");
+        }
+    }
+
+
+    private static TicketReservationServer serverWithShow(FakeDatabase database) throws Exception {
+        TicketReservationServer server = newServer(database, 2, 2_000);
+        ((SeatInventory) getField(server, "seatInventory")).put(SHOW_PK, 1, STARTS_AT, 3, 12.5, SEATS);
+        return server;
+    }
+
+
+    private static String book(TicketReservationServer server, int numTickets) throws Exception {
+        String token = openSession(server, 42, "ana");
+        return (String) invoke(server, "handleBookTicket", new BookingRequest(SHOW_PK, numTickets, null, "12345", null, token));
+    }
+
+
+    private static SeatInventory.ShowSeats seats(TicketReservationServer server) throws Exception {
+        return ((SeatInventory) getField(server, "seatInventory")).get(SHOW_PK);
+    }
+
+
+    private static Map<String, Object> showRow(int availableSeats) {
+        Map<String, Object> show = new LinkedHashMap<>();
+        show.put("availableSeats", availableSeats);
+        show.put("showdate", Date.valueOf(STARTS_AT.toLocalDate()));
+        show.put("showtime", Time.valueOf(STARTS_AT.toLocalTime()));
+        return show;
+    }
+
+
+    // Names each executed statement by the kind it starts with, so the sequence reads without the full SQL.
+    private static List<String> statementKinds(FakeDatabase database) {
+        return database.executed().stream()
+                .map(sql -> sql.startsWith(TAKE_SEATS) ? TAKE_SEATS
+                        : sql.startsWith(INSERT_RESERVATION) ? INSERT_RESERVATION
+                        : sql.startsWith(INSERT_PAYMENT) ? INSERT_PAYMENT : sql)
+                .toList();
+    }
+}
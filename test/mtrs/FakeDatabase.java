@@ -0,0 +1,322 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: FakeDatabase.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An in-memory stand-in for the MySQL database, reached through JDBC like the real one.
+ * - Each instance has its own "jdbc:fake:" URL; pass it to a ConnectionPool.
+ * - Answers are scripted by SQL fragment: queries return the rows given to onQuery (none by default),
+ *   updates return the row count given to onUpdate (1 by default), and generated keys count up.
+ * - Records every executed statement, commit and rollback, so tests can check what a handler sent.
+ * - Can slow every statement down or fail every commit, to provoke contention and failure paths.
+ */
+final class FakeDatabase {
+    private static final String URL_PREFIX = "jdbc:fake:";
+    private static final Map<String, FakeDatabase> DATABASES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    static {
+        try {
+            DriverManager.registerDriver(proxy(Driver.class, (_, method, args) -> switch (method.getName()) {
+                case "acceptsURL" -> ((String) args[0]).startsWith(URL_PREFIX);
+                case "connect" -> {
+                    FakeDatabase database = DATABASES.get((String) args[0]);
+                    yield database == null ? null : database.connect();
+                }
+                case "getMajorVersion", "getMinorVersion" -> 1;
+                case "jdbcCompliant" -> false;
+                case "getPropertyInfo" -> new DriverPropertyInfo[0];
+                default -> null;
+            }));
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String url = URL_PREFIX + NEXT_ID.incrementAndGet();
+    private final Map<String, List<Map<String, Object>>> queryAnswers = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, Integer> updateAnswers = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger nextKey = new AtomicInteger(1000);
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+    private volatile long statementDelayMillis = 0;
+    private volatile String commitFailure = null;
+
+    FakeDatabase() {
+        DATABASES.put(url, this);
+    }
+
+
+    String url() {
+        return url;
+    }
+
+
+    /**
+     * Scripts the rows returned by queries whose SQL contains the fragment (case-insensitive).
+     * - Each row maps column labels to values; getInt(1) and friends read the values in order, so use ordered maps
+     *   (e.g., LinkedHashMap) when a handler reads columns by position.
+     *
+     * @param sqlFragment Part of the query's SQL.
+     * @param rows The rows to return.
+     * @return This database, for chaining.
+     */
+    FakeDatabase onQuery(String sqlFragment, List<Map<String, Object>> rows) {
+        queryAnswers.put(sqlFragment.toLowerCase(Locale.ROOT), rows);
+        return this;
+    }
+
+
+    /**
+     * Scripts the row count returned by updates (and each statement of a batch) whose SQL contains the fragment.
+     *
+     * @param sqlFragment Part of the statement's SQL.
+     * @param rowCount The row count to return.
+     * @return This database, for chaining.
+     */
+    FakeDatabase onUpdate(String sqlFragment, int rowCount) {
+        updateAnswers.put(sqlFragment.toLowerCase(Locale.ROOT), rowCount);
+        return this;
+    }
+
+
+    // Makes every statement take this long, to hold connections and locks the way a real round trip does.
+    void setStatementDelayMillis(long millis) {
+        statementDelayMillis = millis;
+    }
+
+
+    // Makes every commit throw an SQLException with this message; null makes commits succeed again.
+    void setCommitFailure(String message) {
+        commitFailure = message;
+    }
+
+
+    /**
+     * Returns the SQL of the statements executed so far, in order; a batch shows up once per statement.
+     *
+     * @return A copy of the statement log.
+     */
+    List<String> executed() {
+        synchronized (executed) {
+            return new ArrayList<>(executed);
+        }
+    }
+
+
+    // Counts the executed statements whose SQL contains the fragment (case-insensitive).
+    long count(String sqlFragment) {
+        String fragment = sqlFragment.toLowerCase(Locale.ROOT);
+        return executed().stream().filter(sql -> sql.toLowerCase(Locale.ROOT).contains(fragment)).count();
+    }
+
+
+    void clearExecuted() {
+        executed.clear();
+    }
+
+
+    int commits() {
+        return commits.get();
+    }
+
+
+    int rollbacks() {
+        return rollbacks.get();
+    }
+
+
+    private Connection connect() {
+        boolean[] autoCommit = { true };
+        boolean[] closed = { false };
+        Connection[] connection = new Connection[1];
+        connection[0] = proxy(Connection.class, (_, method, args) -> switch (method.getName()) {
+            case "prepareStatement" -> prepare(connection[0], (String) args[0],
+                    args.length > 1 && args[1] instanceof Integer keys && keys == Statement.RETURN_GENERATED_KEYS);
+            case "setAutoCommit" -> {
+                autoCommit[0] = (Boolean) args[0];
+                yield null;
+            }
+            case "getAutoCommit" -> autoCommit[0];
+            case "commit" -> {
+                String failure = commitFailure;
+                if (failure != null) {
+                    throw new SQLException(failure);
+                }
+                commits.incrementAndGet();
+                yield null;
+            }
+            case "rollback" -> {
+                rollbacks.incrementAndGet();
+                yield null;
+            }
+            case "setSavepoint" -> proxy(Savepoint.class, (_, _, _) -> null);
+            case "isValid" -> !closed[0];
+            case "isClosed" -> closed[0];
+            case "close", "abort" -> {
+                closed[0] = true;
+                yield null;
+            }
+            case "hashCode" -> System.identityHashCode(connection[0]);
+            case "equals" -> connection[0] == args[0];
+            case "toString" -> "FakeConnection@" + url;
+            default -> null;
+        });
+        return connection[0];
+    }
+
+
+    // Creates a prepared statement that answers from the scripts and records each execution.
+    private PreparedStatement prepare(Connection connection, String sql, boolean returnKeys) {
+        String lowerSQL = sql.toLowerCase(Locale.ROOT);
+        int[] batched = { 0 };
+        List<Map<String, Object>> keys = new ArrayList<>();
+        return proxy(PreparedStatement.class, (self, method, args) -> switch (method.getName()) {
+            case "executeQuery" -> {
+                execute(sql);
+                yield resultSet(answer(queryAnswers, lowerSQL, List.of()));
+            }
+            case "executeUpdate" -> {
+                execute(sql);
+                int rowCount = answer(updateAnswers, lowerSQL, 1);
+                generateKeys(keys, returnKeys, rowCount);
+                yield rowCount;
+            }
+            case "addBatch" -> {
+                batched[0]++;
+                yield null;
+            }
+            case "executeBatch" -> {
+                int[] rowCounts = new int[batched[0]];
+                for (int i = 0; i < rowCounts.length; i++) {
+                    execute(sql);
+                    rowCounts[i] = answer(updateAnswers, lowerSQL, 1);
+                    generateKeys(keys, returnKeys, rowCounts[i]);
+                }
+                batched[0] = 0;
+                yield rowCounts;
+            }
+            case "getGeneratedKeys" -> {
+                List<Map<String, Object>> generated = new ArrayList<>(keys);
+                keys.clear();
+                yield resultSet(generated);
+            }
+            case "getConnection" -> connection;
+            case "hashCode" -> System.identityHashCode(self);
+            case "equals" -> self == args[0];
+            case "toString" -> sql;
+            default -> null; // parameters, fetch sizes and close are not needed by the answers
+        });
+    }
+
+
+    private void execute(String sql) {
+        long delay = statementDelayMillis;
+        if (delay > 0) {
+            LockSupport.parkNanos(delay * 1_000_000);
+        }
+        executed.add(sql);
+    }
+
+
+    private void generateKeys(List<Map<String, Object>> keys, boolean returnKeys, int rowCount) {
+        if (returnKeys && rowCount > 0) {
+            keys.add(Map.of("GENERATED_KEY", nextKey.incrementAndGet()));
+        }
+    }
+
+
+    // Returns the answer of the first script whose fragment occurs in the SQL, or the default.
+    private static <T> T answer(Map<String, T> answers, String lowerSQL, T otherwise) {
+        synchronized (answers) {
+            for (Map.Entry<String, T> answer : answers.entrySet()) {
+                if (lowerSQL.contains(answer.getKey())) {
+                    return answer.getValue();
+                }
+            }
+        }
+        return otherwise;
+    }
+
+
+    // Creates a forward-only result set over the rows; columns are found by label (case-insensitive) or position.
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] position = { -1 };
+        return proxy(ResultSet.class, (self, method, args) -> {
+            switch (method.getName()) {
+            case "next":
+                return ++position[0] < rows.size();
+            case "close":
+                return null;
+            case "hashCode":
+                return System.identityHashCode(self);
+            case "equals":
+                return self == args[0];
+            default:
+                break;
+            }
+            if (!method.getName().startsWith("get") || args == null || args.length != 1) {
+                return null;
+            }
+            Map<String, Object> row = rows.get(position[0]);
+            Object value = null;
+            if (args[0] instanceof Integer column) {
+                value = new ArrayList<>(row.values()).get(column - 1);
+            } else {
+                for (Map.Entry<String, Object> cell : row.entrySet()) {
+                    if (cell.getKey().equalsIgnoreCase((String) args[0])) {
+                        value = cell.getValue();
+                    }
+                }
+            }
+            if (value == null && method.getReturnType().isPrimitive()) {
+                return method.getReturnType() == boolean.class ? false : method.getReturnType() == double.class ? 0.0 : 0;
+            }
+            if (value instanceof Number number) {
+                if (method.getReturnType() == long.class) {
+                    return number.longValue();
+                }
+                if (method.getReturnType() == double.class) {
+                    return number.doubleValue();
+                }
+            }
+            return value;
+        });
+    }
+
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
@@ -0,0 +1,185 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: GroupCommitterTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.run;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the group commit stage.
+ * - Items submitted together are written as one batch and committed once; batches never exceed the maximum size.
+ * - A batch whose batched write fails is rolled back and written one item at a time, so only failing items fail.
+ * - If the commit fails, the writer decides each item's message, since the database may have committed it.
+ */
+public class GroupCommitterTest {
+
+    public static void main(String[] args) throws Exception {
+        run("itemsSubmittedTogetherShareOneCommit", GroupCommitterTest::itemsSubmittedTogetherShareOneCommit);
+        run("batchesStopAtTheMaximumSize", GroupCommitterTest::batchesStopAtTheMaximumSize);
+        run("failedBatchIsWrittenItemByItem", GroupCommitterTest::failedBatchIsWrittenItemByItem);
+        run("commitFailureIsLeftToTheWriter", GroupCommitterTest::commitFailureIsLeftToTheWriter);
+        run("closedCommitterFailsNewItems", GroupCommitterTest::closedCommitterFailsNewItems);
+    }
+
+
+    static void itemsSubmittedTogetherShareOneCommit() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        RecordingWriter writer = new RecordingWriter();
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>(pool(database), 500, 64, writer)) {
+            List<CompletableFuture<String>> results = submit(committer, 10);
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("written " + i, results.get(i).get(5, TimeUnit.SECONDS), "message of item " + i);
+            }
+            assertEquals(List.of(10), writer.batchSizes, "batch sizes");
+            assertEquals(1, database.commits(), "commits");
+        }
+    }
+
+
+    static void batchesStopAtTheMaximumSize() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        RecordingWriter writer = new RecordingWriter();
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>(pool(database), 500, 4, writer)) {
+            for (CompletableFuture<String> result : submit(committer, 10)) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(List.of(4, 4, 2), writer.batchSizes, "batch sizes");
+            assertEquals(3, database.commits(), "commits");
+        }
+    }
+
+
+    static void failedBatchIsWrittenItemByItem() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        RecordingWriter writer = new RecordingWriter();
+        writer.failBatch = true;
+        writer.failingItem = 2;
+        writer.refusedItem = 3;
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>(pool(database), 500, 64, writer)) {
+            List<CompletableFuture<String>> results = submit(committer, 5);
+            for (int i = 0; i < results.size(); i++) {
+                if (i == 2) {
+                    expectFailure(results.get(i), "item 2 failed");
+                } else {
+                    assertEquals(i == 3 ? "refused 3" : "written " + i, results.get(i).get(5, TimeUnit.SECONDS),
+                            "message of item " + i);
+                }
+            }
+            assertEquals(List.of(0, 1, 2, 3, 4), writer.writtenOneByOne, "items written one at a time");
+            assertEquals(1, database.commits(), "commits");
+            // The failed batch, the failing item and the refused item each roll back.
+            check(database.rollbacks() >= 3, "rollbacks: " + database.rollbacks());
+        }
+    }
+
+
+    static void commitFailureIsLeftToTheWriter() throws Exception {
+        FakeDatabase database = new FakeDatabase();
+        database.setCommitFailure("connection lost while committing");
+        RecordingWriter writer = new RecordingWriter();
+        writer.failBatch = true;
+        writer.failingItem = 1;
+        try (GroupCommitter<Integer> committer = new GroupCommitter<>(pool(database), 500, 64, writer)) {
+            List<CompletableFuture<String>> results = submit(committer, 3);
+            assertEquals("unconfirmed: written 0", results.get(0).get(5, TimeUnit.SECONDS), "message of item 0");
+            expectFailure(results.get(1), "item 1 failed");
+            assertEquals("unconfirmed: written 2", results.get(2).get(5, TimeUnit.SECONDS), "message of item 2");
+            // Only items still standing after their writes are handed to commitFailed.
+            assertEquals(List.of(0, 2), writer.commitFailures, "items passed to commitFailed");
+            assertEquals(0, database.commits(), "commits");
+        }
+    }
+
+
+    static void closedCommitterFailsNewItems() throws Exception {
+        GroupCommitter<Integer> committer = new GroupCommitter<>(pool(new FakeDatabase()), 500, 64, new RecordingWriter());
+        committer.close();
+        expectFailure(committer.submit(1), "Group committer is closed.");
+    }
+
+
+    /**
+     * A writer over Integer items that records what it was asked to write and can fail on demand.
+     */
+    private static final class RecordingWriter implements GroupCommitter.Writer<Integer> {
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> writtenOneByOne = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> commitFailures = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean failBatch = false;
+        private volatile int failingItem = -1;
+        private volatile int refusedItem = -1;
+
+        @Override
+        public List<String> writeBatch(Connection conn, List<Integer> items) throws SQLException {
+            if (failBatch) {
+                throw new SQLException("batch rejected");
+            }
+            batchSizes.add(items.size());
+            return items.stream().map(item -> "written " + item).toList();
+        }
+
+        @Override
+        public String write(Connection conn, Integer item, Savepoint savepoint) throws SQLException {
+            writtenOneByOne.add(item);
+            if (item == failingItem) {
+                throw new SQLException("item " + item + " failed");
+            }
+            if (item == refusedItem) {
+                conn.rollback(savepoint);
+                return "refused " + item;
+            }
+            return "written " + item;
+        }
+
+        @Override
+        public String commitFailed(Integer item, String message, SQLException cause) {
+            commitFailures.add(item);
+            return "unconfirmed: " + message;
+        }
+    }
+
+
+    private static ConnectionPool pool(FakeDatabase database) throws SQLException {
+        return new ConnectionPool(database.url(), 0, 2, 2_000, 60_000, 0, false);
+    }
+
+
+    // Submits items 0 to count - 1 back to back, so they fall into the same collection window.
+    private static List<CompletableFuture<String>> submit(GroupCommitter<Integer> committer, int count) {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(committer.submit(i));
+        }
+        return results;
+    }
+
+
+    private static void expectFailure(CompletableFuture<String> result, String message) throws Exception {
+        try {
+            String value = result.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("expected a failure but got: " + value);
+        } catch (ExecutionException e) {
+            assertEquals(message, e.getCause().getMessage(), "failure");
+        }
+    }
+}
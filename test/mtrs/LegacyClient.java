@@ -0,0 +1,143 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: LegacyClient.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.net.Socket;
+
+/**
+ * A test client of the original object-stream protocol: the request type, then its payload if it has one,
+ * answered by exactly one object.
+ * - Keeps the raw bytes of the last reply, so tests can see how the server encoded it.
+ */
+final class LegacyClient implements AutoCloseable {
+    private static final byte TC_RESET = 0x79;
+    private static final byte TC_REFERENCE = 0x71;
+    private static final byte TC_STRING = 0x74;
+
+    private final Socket socket;
+    private final ObjectOutputStream out;
+    private final RecordingInputStream recorded;
+    private final ObjectInputStream in;
+
+
+    /**
+     * Connects and exchanges the object stream headers.
+     *
+     * @param port The server's port on this machine.
+     * @throws IOException If the server cannot be reached or does not answer within 10 seconds.
+     */
+    LegacyClient(int port) throws IOException {
+        socket = new Socket("localhost", port);
+        socket.setSoTimeout(10_000);
+        out = new ObjectOutputStream(socket.getOutputStream());
+        out.flush();
+        recorded = new RecordingInputStream(socket.getInputStream());
+        in = new ObjectInputStream(recorded);
+    }
+
+
+    /**
+     * Sends a request and reads its reply.
+     * - A client the server turned away may be closed before the request is sent; its reply is still read.
+     *
+     * @param requestType The request type.
+     * @param payload The payload, if the request type has one (PING takes a null one).
+     * @return The reply.
+     * @throws Exception If no reply can be read.
+     */
+    Object request(String requestType, Object... payload) throws Exception {
+        try {
+            out.writeObject(requestType);
+            for (Object value : payload) {
+                out.writeObject(value);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // read the reply the server sent before closing
+        }
+        return reply();
+    }
+
+
+    // Reads the next object the server sent.
+    Object reply() throws Exception {
+        recorded.bytes.reset();
+        return in.readObject();
+    }
+
+
+    // True if the server has closed the connection without sending anything more.
+    boolean isDisconnected() throws Exception {
+        try {
+            in.readObject();
+            return false;
+        } catch (EOFException e) {
+            return true;
+        }
+    }
+
+
+    // Describes how the last reply started: optional resets, then a full string, a back-reference or another object.
+    String lastReplyKind() {
+        byte[] bytes = recorded.bytes.toByteArray();
+        int at = 0;
+        StringBuilder kind = new StringBuilder();
+        while (at < bytes.length && bytes[at] == TC_RESET) {
+            kind.append("reset ");
+            at++;
+        }
+        byte tag = at < bytes.length ? bytes[at] : -1;
+        kind.append(tag == TC_STRING ? "string" : tag == TC_REFERENCE ? "reference" : "object");
+        return kind.toString();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+
+    // Keeps a copy of every byte read through it.
+    private static final class RecordingInputStream extends FilterInputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytes.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                bytes.write(buffer, offset, count);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: LegacyDispatchTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.newServer;
+import static mtrs.TestSupport.run;
+import static mtrs.TestSupport.start;
+
+import java.util.List;
+
+/**
+ * Tests that every object-stream request is answered by exactly one reply.
+ * - The original request switch let GET_USER_INFO fall through into the default case, which sent
+ *   "Invalid request type." after the profile; every later reply on the connection was then one behind.
+ * - Each request here is followed by a PING, which must get its own PONG.
+ */
+public class LegacyDispatchTest {
+    private static final String SESSION_REQUIRED = "Error: Please log in; this request needs a session.";
+
+    public static void main(String[] args) throws Exception {
+        int port = start(newServer(new FakeDatabase(), 2, 2_000));
+        run("everyRequestGetsOneReply", () -> everyRequestGetsOneReply(port));
+    }
+
+
+    static void everyRequestGetsOneReply(int port) throws Exception {
+        try (LegacyClient client = new LegacyClient(port)) {
+            assertEquals(SESSION_REQUIRED, client.request("GET_USER_INFO", "ana"), "reply to GET_USER_INFO");
+            assertEquals("PONG", client.request("PING", (Object) null), "reply after GET_USER_INFO");
+
+            assertEquals(SESSION_REQUIRED, client.request("GET_CUSTOMER_RESERVATIONS", "ana"),
+                    "reply to GET_CUSTOMER_RESERVATIONS");
+            assertEquals("PONG", client.request("PING", (Object) null), "reply after GET_CUSTOMER_RESERVATIONS");
+
+            assertEquals(List.of(), client.request("GET_SHOWS"), "reply to GET_SHOWS");
+            assertEquals("PONG", client.request("PING", (Object) null), "reply after GET_SHOWS");
+
+            assertEquals("Invalid request type.", client.request("NO_SUCH_REQUEST"), "reply to an unknown request");
+            assertEquals("PONG", client.request("PING", (Object) null), "reply after an unknown request");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: LockOrderTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.getField;
+import static mtrs.TestSupport.invoke;
+import static mtrs.TestSupport.newServer;
+import static mtrs.TestSupport.openSession;
+import static mtrs.TestSupport.run;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Tests that bookings and cancellations take the show's lock before they borrow a database connection.
+ * - A request waiting for a show lock must hold no connection; otherwise requests for one busy show
+ *   tie up the pool, and a request holding the lock can wait forever for a connection.
+ */
+public class LockOrderTest {
+    private static final int SHOW_PK = 5;
+    private static final LocalDateTime STARTS_AT = LocalDateTime.now().plusDays(2).withHour(20).withMinute(0)
+            .withSecond(0).withNano(0);
+
+    public static void main(String[] args) throws Exception {
+        run("waitersForAShowLockHoldNoConnection", LockOrderTest::waitersForAShowLockHoldNoConnection);
+        run("oneConnectionServesContendedShow", LockOrderTest::oneConnectionServesContendedShow);
+    }
+
+
+    static void waitersForAShowLockHoldNoConnection() throws Exception {
+        FakeDatabase database = scriptedDatabase();
+        TicketReservationServer server = newServer(database, 8, 5_000);
+        ConnectionPool pool = (ConnectionPool) getField(server, "connectionPool");
+        List<Callable<String>> requests = mixedRequests(server, 4);
+
+        Lock showLock = ((StripedLocks) getField(server, "showLocks")).lockFor(SHOW_PK);
+        showLock.lock();
+        List<Thread> workers = Collections.synchronizedList(new ArrayList<>());
+        List<Future<String>> results;
+        ExecutorService threads = Executors.newFixedThreadPool(requests.size(), runnable -> {
+            Thread worker = new Thread(runnable);
+            workers.add(worker);
+            return worker;
+        });
+        try {
+            results = submitAll(threads, requests, null);
+            // Every request ends up parked on the show lock: cancellations after their lookup, bookings after taking seats.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!allWaiting(workers, requests.size())) {
+                check(System.nanoTime() < deadline, "requests did not all reach the show lock");
+                Thread.sleep(5);
+            }
+            assertEquals(0, pool.getActiveCount(), "connections held while waiting for the show lock");
+        } finally {
+            showLock.unlock();
+            threads.shutdown();
+        }
+        for (Future<String> result : results) {
+            assertSucceeded(result.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(0, pool.getActiveCount(), "connections held after the requests finished");
+    }
+
+
+    static void oneConnectionServesContendedShow() throws Exception {
+        FakeDatabase database = scriptedDatabase();
+        database.setStatementDelayMillis(5);
+        // With a single connection, a request holding the show lock while another waits for it with the
+        // connection in hand can never proceed; it would give up after the acquire timeout.
+        TicketReservationServer server = newServer(database, 1, 3_000);
+        for (int round = 0; round < 3; round++) {
+            List<Callable<String>> requests = mixedRequests(server, 6);
+            ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<String>> results = submitAll(threads, requests, start);
+                start.countDown();
+                for (Future<String> result : results) {
+                    assertSucceeded(result.get(30, TimeUnit.SECONDS));
+                }
+            } finally {
+                threads.shutdown();
+            }
+        }
+    }
+
+
+    // A database that holds reservation 100+ of one ticket for SHOW_PK, owned by user 42.
+    private static FakeDatabase scriptedDatabase() {
+        Map<String, Object> reservation = new LinkedHashMap<>();
+        reservation.put("numberoftickets", 1);
+        reservation.put("showpk", SHOW_PK);
+        reservation.put("userpk", 42);
+        Map<String, Object> show = new LinkedHashMap<>();
+        show.put("showdate", Date.valueOf(STARTS_AT.toLocalDate()));
+        show.put("showtime", Time.valueOf(STARTS_AT.toLocalTime()));
+        show.put("availableseats", 500);
+        return new FakeDatabase()
+                .onQuery("FROM reservation WHERE reservationpk", List.of(reservation))
+                .onQuery("FROM shows WHERE showPK", List.of(show));
+    }
+
+
+    // Half bookings (each by its own user) and half cancellations, all for SHOW_PK.
+    private static List<Callable<String>> mixedRequests(TicketReservationServer server, int pairs) throws Exception {
+        SeatInventory seatInventory = (SeatInventory) getField(server, "seatInventory");
+        if (seatInventory.get(SHOW_PK) == null) {
+            seatInventory.put(SHOW_PK, 1, STARTS_AT, 3, 10.0, 1_000);
+        }
+        List<Callable<String>> requests = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            String token = openSession(server, 1 + i, "user" + i);
+            BookingRequest booking = new BookingRequest(SHOW_PK, 1, null, "12345", null, token);
+            int reservationID = 100 + i;
+            requests.add(() -> (String) invoke(server, "handleBookTicket", booking));
+            requests.add(() -> (String) invoke(server, "handleCancelReservation", reservationID));
+        }
+        return requests;
+    }
+
+
+    private static List<Future<String>> submitAll(ExecutorService threads, List<Callable<String>> requests,
+            CountDownLatch start) {
+        List<Future<String>> results = new ArrayList<>();
+        for (Callable<String> request : requests) {
+            results.add(threads.submit(() -> {
+                if (start != null) {
+                    start.await();
+                }
+                return request.call();
+            }));
+        }
+        return results;
+    }
+
+
+    // True once the expected number of workers exist and all are parked without a timeout, i.e., on a lock.
+    private static boolean allWaiting(List<Thread> workers, int expected) {
+        synchronized (workers) {
+            return workers.size() == expected
+                    && workers.stream().allMatch(worker -> worker.getState() == Thread.State.WAITING);
+        }
+    }
+
+
+    private static void assertSucceeded(String result) {
+        check(result.startsWith("Booking and payment processed successfully!")
+                || result.equals("Reservation cancelled successfully."), "request failed: " + result);
+    }
+}
@@ -0,0 +1,65 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ObjectStreamResetTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.newServer;
+import static mtrs.TestSupport.run;
+import static mtrs.TestSupport.start;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that legacy object-stream connections reset their stream every mtrs.objectStreamResetInterval responses.
+ * - Runs with an interval of 3 and looks at the bytes of each response: the same "PONG" string sent
+ *   again without a reset is a back-reference; after a reset it is written in full.
+ * - After cached catalog bytes, the next ordinary response must reset first, since the client's handle table
+ *   then holds objects the server's stream never wrote.
+ */
+public class ObjectStreamResetTest {
+    private static final int RESET_INTERVAL = 3;
+
+    public static void main(String[] args) throws Exception {
+        // Read once when the server class is initialized, so it must be set first.
+        System.setProperty("mtrs.objectStreamResetInterval", String.valueOf(RESET_INTERVAL));
+        int port = start(newServer(new FakeDatabase(), 2, 2_000));
+        run("streamIsResetEveryInterval", () -> streamIsResetEveryInterval(port));
+        run("responseAfterCachedBytesResets", () -> responseAfterCachedBytesResets(port));
+    }
+
+
+    static void streamIsResetEveryInterval(int port) throws Exception {
+        try (LegacyClient client = new LegacyClient(port)) {
+            List<String> kinds = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                assertEquals("PONG", client.request("PING", (Object) null), "response " + i);
+                kinds.add(client.lastReplyKind());
+            }
+            assertEquals(List.of("string", "reference", "reference", "reset string", "reference", "reference", "reset string"),
+                    kinds, "response encodings");
+        }
+    }
+
+
+    static void responseAfterCachedBytesResets(int port) throws Exception {
+        try (LegacyClient client = new LegacyClient(port)) {
+            assertEquals("PONG", client.request("PING", (Object) null), "first response");
+            assertEquals(List.of(), client.request("GET_SHOWS"), "catalog response");
+            assertEquals("reset", client.lastReplyKind().substring(0, 5), "catalog response encoding");
+            assertEquals("PONG", client.request("PING", (Object) null), "response after the catalog");
+            assertEquals("reset string", client.lastReplyKind(), "encoding after the catalog");
+            assertEquals("PONG", client.request("PING", (Object) null), "next response");
+            assertEquals("reference", client.lastReplyKind(), "encoding of the next response");
+        }
+    }
+}
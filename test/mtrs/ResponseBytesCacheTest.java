@@ -0,0 +1,120 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: ResponseBytesCacheTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.run;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests for the cache of encoded catalog responses.
+ * - A snapshot is encoded once per encoding and its bytes are reused until the handler returns a new snapshot.
+ * - Cached object stream bytes copied into a live, just-reset object stream read back as the response,
+ *   and the stream keeps working afterwards.
+ */
+public class ResponseBytesCacheTest {
+    private static final String CACHED = "GET_SHOWS";
+    private static final String UNCACHED = "GET_SHOWS_PAGE";
+
+    public static void main(String[] args) throws Exception {
+        run("snapshotIsEncodedOnce", ResponseBytesCacheTest::snapshotIsEncodedOnce);
+        run("newSnapshotIsEncodedAgain", ResponseBytesCacheTest::newSnapshotIsEncodedAgain);
+        run("uncachedTypesAreEncodedEveryTime", ResponseBytesCacheTest::uncachedTypesAreEncodedEveryTime);
+        run("cachedStreamBytesSpliceIntoResetStream", ResponseBytesCacheTest::cachedStreamBytesSpliceIntoResetStream);
+    }
+
+
+    static void snapshotIsEncodedOnce() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(Set.of(CACHED));
+        List<ShowItem> shows = shows(118);
+
+        byte[] binary = cache.binary(CACHED, shows);
+        check(binary == cache.binary(CACHED, shows), "binary bytes of the same snapshot were encoded again");
+        byte[] serialized = cache.serialized(CACHED, shows);
+        check(serialized == cache.serialized(CACHED, shows), "serialized bytes of the same snapshot were encoded again");
+        assertEquals(2L, cache.getEncodings(), "encodings");
+        assertEquals(2L, cache.getReuses(), "reuses");
+
+        List<?> decoded = (List<?>) WireProtocol.decodeResponse(binary);
+        assertEquals(shows.toString(), decoded.toString(), "decoded binary response");
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            assertEquals(shows.toString(), in.readObject().toString(), "deserialized response");
+        }
+    }
+
+
+    static void newSnapshotIsEncodedAgain() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(Set.of(CACHED));
+        byte[] before = cache.binary(CACHED, shows(118));
+        List<ShowItem> changed = shows(117);
+        byte[] after = cache.binary(CACHED, changed);
+        check(before != after, "a new snapshot reused the old bytes");
+        assertEquals(changed.toString(), WireProtocol.decodeResponse(after).toString(), "decoded new snapshot");
+        assertEquals(2L, cache.getEncodings(), "encodings");
+        check(after == cache.binary(CACHED, changed), "the new snapshot's bytes were not kept");
+    }
+
+
+    static void uncachedTypesAreEncodedEveryTime() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(Set.of(CACHED));
+        List<ShowItem> shows = shows(118);
+        check(!cache.isCached(UNCACHED), "uncached type reported as cached");
+        check(cache.binary(UNCACHED, shows) != cache.binary(UNCACHED, shows), "uncached binary bytes were reused");
+        check(cache.serialized(UNCACHED, shows) != cache.serialized(UNCACHED, shows), "uncached serialized bytes were reused");
+        assertEquals(0L, cache.getEncodings() + cache.getReuses(), "counted uncached encodings");
+    }
+
+
+    static void cachedStreamBytesSpliceIntoResetStream() throws Exception {
+        ResponseBytesCache cache = new ResponseBytesCache(Set.of(CACHED));
+        List<ShowItem> shows = shows(118);
+        String message = "Show added successfully!";
+
+        // Write the way the legacy connection loop does: an ordinary object, then cached bytes twice, then
+        // another ordinary object (the same string again, so it would be a back-reference without the reset).
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(wire);
+        out.writeObject(message);
+        for (int i = 0; i < 2; i++) {
+            byte[] stream = cache.serialized(CACHED, shows);
+            out.reset();
+            out.flush();
+            wire.write(stream, ResponseBytesCache.STREAM_HEADER_BYTES, stream.length - ResponseBytesCache.STREAM_HEADER_BYTES);
+        }
+        out.reset();
+        out.writeObject(message);
+        out.flush();
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(wire.toByteArray()))) {
+            assertEquals(message, in.readObject(), "object before the cached bytes");
+            assertEquals(shows.toString(), in.readObject().toString(), "first cached response");
+            assertEquals(shows.toString(), in.readObject().toString(), "second cached response");
+            assertEquals(message, in.readObject(), "object after the cached bytes");
+        }
+    }
+
+
+    private static List<ShowItem> shows(int availableSeats) {
+        return List.of(
+                new ShowItem(42, "Arrival", Date.valueOf("2026-10-17"), Time.valueOf("19:30:00"), 3, availableSeats, 12.5),
+                new ShowItem(43, "Arrival", Date.valueOf("2026-10-18"), Time.valueOf("21:00:00"), 4, 90, 12.5));
+    }
+}
@@ -0,0 +1,170 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: SeatInventoryTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.run;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the in-memory seat counters that admit bookings.
+ * - Many threads race tryReserve on the same show; the seats taken must add up to exactly the seats
+ *   that existed, and the counter must never go below zero.
+ */
+public class SeatInventoryTest {
+    private static final int THREADS = 16;
+    private static final LocalDateTime STARTS_AT = LocalDateTime.of(2026, 10, 17, 19, 30);
+
+    public static void main(String[] args) throws Exception {
+        run("reserveTakesOnlyAvailableSeats", SeatInventoryTest::reserveTakesOnlyAvailableSeats);
+        run("concurrentReservationsNeverOversell", SeatInventoryTest::concurrentReservationsNeverOversell);
+        run("concurrentReserveAndReleaseBalance", SeatInventoryTest::concurrentReserveAndReleaseBalance);
+        run("showsAreAddedAndRemoved", SeatInventoryTest::showsAreAddedAndRemoved);
+    }
+
+
+    static void reserveTakesOnlyAvailableSeats() {
+        SeatInventory.ShowSeats seats = newShow(1, 5);
+        check(!seats.tryReserve(6), "took more seats than exist");
+        assertEquals(5, seats.getAvailableSeats(), "seats after a refused reservation");
+        check(seats.tryReserve(2), "refused seats that exist");
+        check(seats.tryReserve(3), "refused the last seats");
+        assertEquals(0, seats.getAvailableSeats(), "seats when sold out");
+        check(!seats.tryReserve(1), "took a seat of a sold-out show");
+        seats.release(2);
+        assertEquals(2, seats.getAvailableSeats(), "seats after a release");
+    }
+
+
+    static void concurrentReservationsNeverOversell() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            int capacity = 500 + round;
+            SeatInventory.ShowSeats seats = newShow(1, capacity);
+            AtomicInteger lowest = new AtomicInteger(capacity);
+            List<Integer> taken = race(thread -> {
+                int mine = 0;
+                int attempt = 0;
+                // Mixed sizes first, then single seats until the show is sold out.
+                while (true) {
+                    int numTickets = attempt < 200 ? 1 + (thread + attempt) % 4 : 1;
+                    attempt++;
+                    if (seats.tryReserve(numTickets)) {
+                        mine += numTickets;
+                    } else if (numTickets == 1) {
+                        break;
+                    }
+                    lowest.accumulateAndGet(seats.getAvailableSeats(), Math::min);
+                }
+                return mine;
+            });
+            int total = taken.stream().mapToInt(Integer::intValue).sum();
+            assertEquals(capacity, total, "seats taken in round " + round);
+            assertEquals(0, seats.getAvailableSeats(), "seats left in round " + round);
+            check(lowest.get() >= 0, "counter went below zero in round " + round + ": " + lowest.get());
+        }
+    }
+
+
+    static void concurrentReserveAndReleaseBalance() throws Exception {
+        int capacity = 10;
+        SeatInventory.ShowSeats seats = newShow(1, capacity);
+        AtomicInteger lowest = new AtomicInteger(capacity);
+        AtomicInteger highest = new AtomicInteger(capacity);
+        List<Integer> successes = race(thread -> {
+            int mine = 0;
+            for (int attempt = 0; attempt < 20_000; attempt++) {
+                int numTickets = 1 + (thread + attempt) % 3;
+                if (seats.tryReserve(numTickets)) {
+                    mine++;
+                    int left = seats.getAvailableSeats();
+                    lowest.accumulateAndGet(left, Math::min);
+                    seats.release(numTickets);
+                    highest.accumulateAndGet(seats.getAvailableSeats(), Math::max);
+                }
+            }
+            return mine;
+        });
+        check(successes.stream().anyMatch(count -> count > 0), "no reservation succeeded");
+        assertEquals(capacity, seats.getAvailableSeats(), "seats after every reservation was released");
+        check(lowest.get() >= 0, "counter went below zero: " + lowest.get());
+        check(highest.get() <= capacity, "counter went above the capacity: " + highest.get());
+    }
+
+
+    static void showsAreAddedAndRemoved() {
+        SeatInventory inventory = new SeatInventory();
+        inventory.put(1, 10, STARTS_AT, 3, 12.5, 100);
+        inventory.put(2, 10, STARTS_AT, 4, 12.5, 50);
+        inventory.put(3, 11, STARTS_AT, 5, 9.0, 80);
+        assertEquals(100, inventory.get(1).getAvailableSeats(), "seats of show 1");
+
+        check(inventory.get(1).tryReserve(40), "refused seats that exist");
+        inventory.release(1, 15);
+        assertEquals(75, inventory.get(1).getAvailableSeats(), "seats of show 1 after a release");
+
+        inventory.remove(2);
+        assertEquals(null, inventory.get(2), "removed show");
+        inventory.release(2, 5); // a cancellation racing the delete of its show is ignored
+
+        inventory.removeMovie(10);
+        assertEquals(null, inventory.get(1), "show of a removed movie");
+        assertEquals(80, inventory.get(3).getAvailableSeats(), "show of another movie");
+    }
+
+
+    private static SeatInventory.ShowSeats newShow(int showPK, int availableSeats) {
+        SeatInventory inventory = new SeatInventory();
+        inventory.put(showPK, 10, STARTS_AT, 3, 12.5, availableSeats);
+        return inventory.get(showPK);
+    }
+
+
+    private interface Contender {
+        int run(int thread) throws Exception;
+    }
+
+
+    // Starts THREADS threads together and returns what each of them returned.
+    private static List<Integer> race(Contender contender) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int id = thread;
+                Callable<Integer> task = () -> {
+                    start.await();
+                    return contender.run(id);
+                };
+                results.add(threads.submit(task));
+            }
+            start.countDown();
+            List<Integer> returned = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                returned.add(result.get());
+            }
+            return returned;
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
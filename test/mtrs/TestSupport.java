@@ -0,0 +1,161 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: TestSupport.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.util.Objects;
+
+/**
+ * Assertions shared by the test programs in test/mtrs.
+ * - Each test class is a plain program: its main method runs every test and prints one line per test.
+ * - A failed check throws an AssertionError, which ends the program with a non-zero exit code.
+ * - Server tests build a TicketReservationServer on a free port without starting it, point it at a
+ *   FakeDatabase, and call its request handlers directly, the way the request registry does.
+ */
+final class TestSupport {
+
+    private TestSupport() {
+    }
+
+
+    /**
+     * A test body; it may throw any exception, which fails the test.
+     */
+    interface TestBody {
+        void run() throws Exception;
+    }
+
+
+    /**
+     * Runs one test and reports it on standard output.
+     *
+     * @param name The test name printed in the report.
+     * @param body The test body.
+     * @throws Exception If the test fails.
+     */
+    static void run(String name, TestBody body) throws Exception {
+        body.run();
+        System.out.println("PASS " + name);
+    }
+
+
+    /**
+     * Fails the running test unless the condition holds.
+     *
+     * @param condition The condition to check.
+     * @param message What went wrong if the condition does not hold.
+     */
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+
+    /**
+     * Fails the running test unless the two values are equal.
+     *
+     * @param expected The expected value.
+     * @param actual The actual value.
+     * @param what The value being checked, for the failure message.
+     */
+    static void assertEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+
+    /**
+     * Creates a server whose connection pool is backed by the fake database; the server is not started.
+     * - The real MySQL driver is not on the test class path, so the constructor leaves the pool unset
+     *   (and says so on standard error); the test's pool is put in its place.
+     *
+     * @param database The database the server's pool connects to.
+     * @param poolSize The most connections the pool lends at once.
+     * @param acquireTimeoutMillis How long a request waits for a connection before giving up.
+     * @return The server.
+     * @throws Exception If no free port is found or the pool cannot be set.
+     */
+    static TicketReservationServer newServer(FakeDatabase database, int poolSize, long acquireTimeoutMillis)
+            throws Exception {
+        TicketReservationServer server = new TicketReservationServer(freePort());
+        setField(server, "connectionPool",
+                new ConnectionPool(database.url(), 0, poolSize, acquireTimeoutMillis, 60_000, 0, false));
+        return server;
+    }
+
+
+    // Starts the server's accept loop (blocking mode) on a daemon thread and returns the port it listens on.
+    static int start(TicketReservationServer server) throws ReflectiveOperationException {
+        Thread acceptor = new Thread(server::start, "test-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return ((ServerSocket) getField(server, "serverSocket")).getLocalPort();
+    }
+
+
+    // Opens a session for the user on the server and returns its token, as START_SESSION would.
+    static String openSession(TicketReservationServer server, int userPK, String username) throws Exception {
+        SessionTable sessions = (SessionTable) getField(server, "sessions");
+        return sessions.open(new SessionTable.Session(userPK, username, "customer", username, "Test"));
+    }
+
+
+    /**
+     * Calls a private method (e.g., a request handler) of an object, unwrapping what it throws.
+     *
+     * @param target The object.
+     * @param methodName The method; it must be the only declared method with that name and number of arguments.
+     * @param args The arguments.
+     * @return What the method returned.
+     * @throws Exception What the method threw.
+     */
+    static Object invoke(Object target, String methodName, Object... args) throws Exception {
+        for (Method method : target.getClass().getDeclaredMethods()) {
+            if (method.getName().equals(methodName) && method.getParameterCount() == args.length) {
+                method.setAccessible(true);
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+        throw new NoSuchMethodException(target.getClass().getName() + "." + methodName);
+    }
+
+
+    static Object getField(Object target, String fieldName) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+
+    static void setField(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+}
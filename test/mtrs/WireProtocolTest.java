@@ -0,0 +1,312 @@
+//*********************************************************************
+//*                              CSU
+//* CSU SYSENG                  SP2025                  ABODA
+//*
+//* Final Project: Movie Ticket Reservation System
+//*
+//* Date Created: October 17, 2026
+//*
+//* Saved in: WireProtocolTest.java --> ABODAFP.zip
+//*
+//*********************************************************************
+package mtrs; // mtrs: movie ticket reservation system
+
+import static mtrs.TestSupport.assertEquals;
+import static mtrs.TestSupport.check;
+import static mtrs.TestSupport.run;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.ProtocolException;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Round-trip tests for the binary wire protocol.
+ * - Every request type and every response kind is encoded and decoded again, both as a version 1
+ *   frame and as a version 2 frame with a correlation ID in front.
+ * - Frames from older clients that end before the trailing optional fields (the idempotency key
+ *   and session token of BOOK_TICKET, the session token of the page requests) still decode, with
+ *   the missing fields null.
+ */
+public class WireProtocolTest {
+    private static final int CORRELATION_ID = 0x7F00FF01;
+
+    public static void main(String[] args) throws Exception {
+        run("framesAndHello", WireProtocolTest::framesAndHello);
+        run("correlationIds", WireProtocolTest::correlationIds);
+        run("everyRequestTypeRoundTrips", WireProtocolTest::everyRequestTypeRoundTrips);
+        run("bookingTrailingFieldsAreOptional", WireProtocolTest::bookingTrailingFieldsAreOptional);
+        run("pageRequestTokenIsOptional", WireProtocolTest::pageRequestTokenIsOptional);
+        run("everyResponseKindRoundTrips", WireProtocolTest::everyResponseKindRoundTrips);
+        run("malformedInputIsRejected", WireProtocolTest::malformedInputIsRejected);
+    }
+
+
+    static void framesAndHello() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        WireProtocol.writeFrame(stream, WireProtocol.encodeHello(WireProtocol.VERSION));
+        WireProtocol.writeFrame(stream, new byte[0]);
+        WireProtocol.writeFrame(stream, "body".getBytes());
+        byte[] written = stream.toByteArray();
+        check(written[0] == 0, "a frame must not start like an object stream");
+
+        ByteArrayInputStream in = new ByteArrayInputStream(written);
+        assertEquals((int) WireProtocol.VERSION, WireProtocol.decodeHello(WireProtocol.readFrame(in)), "hello version");
+        assertEquals(0, WireProtocol.readFrame(in).length, "empty frame length");
+        assertEquals("body", new String(WireProtocol.readFrame(in)), "frame body");
+        assertEquals(-1, WireProtocol.decodeHello("body".getBytes()), "hello of a non-hello frame");
+        assertEquals(-1, WireProtocol.decodeHello(new byte[] { 'M', 'X', 2 }), "hello with a wrong magic");
+    }
+
+
+    static void correlationIds() throws IOException {
+        byte[] body = WireProtocol.encodeRequest("PING", null);
+        for (int id : new int[] { 1, 255, 256, CORRELATION_ID, -1, Integer.MIN_VALUE }) {
+            byte[] frame = WireProtocol.withCorrelationId(id, body);
+            assertEquals(WireProtocol.CORRELATION_ID_BYTES + body.length, frame.length, "framed length");
+            assertEquals(id, WireProtocol.correlationIdOf(frame), "correlation ID");
+            assertEquals("PING", WireProtocol.decodeRequest(frame, WireProtocol.CORRELATION_ID_BYTES).getRequestType(),
+                    "request type after the correlation ID");
+        }
+        expectProtocolException(() -> WireProtocol.correlationIdOf(new byte[3]), "frame shorter than a correlation ID");
+    }
+
+
+    static void everyRequestTypeRoundTrips() throws IOException {
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        payloads.put("SIGNUP_USER", new SignUpRequest("ana", "pw", "Ana", "Ávila", "ana@example.com", null, "555-0100"));
+        payloads.put("LOGIN_USER", new LoginRequest("ana", "pw", "customer"));
+        payloads.put("START_SESSION", new LoginRequest("ana", "pw", "customer"));
+        payloads.put("ADD_MOVIE", new Movie(0, "Arrival", 5, "First contact; ünïcödé ✓"));
+        payloads.put("ADD_SHOW", new Show(0, 7, Date.valueOf("2026-10-17"), Time.valueOf("19:30:00"), 3, 120, 12.5));
+        payloads.put("DELETE_MOVIE", 7);
+        payloads.put("DELETE_SHOW", 42);
+        payloads.put("CANCEL_RESERVATION", Integer.MAX_VALUE);
+        payloads.put("BOOK_TICKET", new BookingRequest(42, 3, null, "4111111111111111", "key-1", "token-1"));
+        payloads.put("GET_CUSTOMER_RESERVATIONS", "ana");
+        payloads.put("GET_USER_INFO", "ana");
+        payloads.put("GET_SESSION_USER_INFO", "token-1");
+        payloads.put("GET_SESSION_RESERVATIONS", "token-1");
+        payloads.put("GET_SHOWS_SINCE", Long.MAX_VALUE - 1);
+        payloads.put("GET_SHOWS_PAGE", new PageRequest(null, "cursor-9", 50));
+        payloads.put("GET_CUSTOMER_RESERVATIONS_PAGE", new PageRequest(null, null, 20, "token-1"));
+        for (String requestType : List.of("GET_MOVIES", "GET_SHOWS", "GET_AVAILABLE_SHOWS", "PING", "SUBSCRIBE_SHOWS",
+                "GET_RESERVATION_REPORT", "STATS")) {
+            payloads.put(requestType, null);
+        }
+
+        for (Map.Entry<String, Object> request : payloads.entrySet()) {
+            String requestType = request.getKey();
+            byte[] body = WireProtocol.encodeRequest(requestType, request.getValue());
+            assertEquals(requestType, WireProtocol.requestTypeOf(body, 0), "request type of " + requestType);
+
+            WireProtocol.Request v1 = WireProtocol.decodeRequest(body);
+            assertEquals(requestType, v1.getRequestType(), "v1 request type");
+            assertEquals(fields(request.getValue()), fields(v1.getPayload()), "v1 payload of " + requestType);
+
+            WireProtocol.Request v2 = decodeV2Request(body);
+            assertEquals(requestType, v2.getRequestType(), "v2 request type");
+            assertEquals(fields(request.getValue()), fields(v2.getPayload()), "v2 payload of " + requestType);
+        }
+    }
+
+
+    static void bookingTrailingFieldsAreOptional() throws IOException {
+        // Written by a current client: both trailing fields present, the key explicitly null.
+        BookingRequest full = decodeBooking(WireProtocol.encodeRequest("BOOK_TICKET",
+                new BookingRequest(42, 2, null, "4111", null, "token-1")));
+        assertEquals(null, full.getIdempotencyKey(), "null idempotency key");
+        assertEquals("token-1", full.getSessionToken(), "session token");
+
+        // Written by a client from before sessions: the frame ends after the idempotency key.
+        byte[] keyOnly = legacyBooking(42, 2, "ana", "4111", "key-1");
+        for (BookingRequest booking : List.of(decodeBooking(keyOnly), decodeV2Booking(keyOnly))) {
+            assertEquals(42, booking.getShowID(), "show ID");
+            assertEquals(2, booking.getNumTickets(), "tickets");
+            assertEquals("ana", booking.getUsername(), "username");
+            assertEquals("4111", booking.getCreditCardNumber(), "card");
+            assertEquals("key-1", booking.getIdempotencyKey(), "idempotency key");
+            assertEquals(null, booking.getSessionToken(), "session token of a key-only frame");
+        }
+
+        // Written by the first binary clients: the frame ends after the card number.
+        byte[] original = legacyBooking(42, 2, "ana", "4111");
+        for (BookingRequest booking : List.of(decodeBooking(original), decodeV2Booking(original))) {
+            assertEquals("4111", booking.getCreditCardNumber(), "card");
+            assertEquals(null, booking.getIdempotencyKey(), "idempotency key of an original frame");
+            assertEquals(null, booking.getSessionToken(), "session token of an original frame");
+        }
+    }
+
+
+    static void pageRequestTokenIsOptional() throws IOException {
+        for (String requestType : List.of("GET_SHOWS_PAGE", "GET_CUSTOMER_RESERVATIONS_PAGE")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(WireProtocol.opcodeOf(requestType));
+            WireProtocol.writeString(out, "ana");
+            WireProtocol.writeString(out, "cursor-3");
+            out.writeInt(25);
+            byte[] legacy = bytes.toByteArray();
+
+            for (WireProtocol.Request request : List.of(WireProtocol.decodeRequest(legacy), decodeV2Request(legacy))) {
+                PageRequest page = (PageRequest) request.getPayload();
+                assertEquals("ana", page.getUsername(), "username");
+                assertEquals("cursor-3", page.getCursor(), "cursor");
+                assertEquals(25, page.getPageSize(), "page size");
+                assertEquals(null, page.getSessionToken(), "session token of a frame without one");
+            }
+        }
+    }
+
+
+    static void everyResponseKindRoundTrips() throws IOException {
+        ShowItem show = new ShowItem(42, "Arrival", Date.valueOf("2026-10-17"), Time.valueOf("19:30:00"), 3, 118, 12.5);
+        ShowItem undated = new ShowItem(43, null, null, null, 0, 0, 0.0);
+        ReservationReportItem reportRow = new ReservationReportItem(9, "ana", "Arrival 2026-10-17", 2, "2026-10-01 10:00", 25.0);
+        List<Object> responses = List.of(
+                "Booking successful!",
+                "",
+                new UserProfile("ana", "ana@example.com", "Ana", "Ávila", null, "555-0100"),
+                new SessionInfo("token-1", "ana", "customer", "Welcome, Ana!"),
+                new SessionInfo(null, null, null, "Error: Invalid credentials."),
+                new ShowDelta(17, false, List.of(show, undated), List.of(5, 6)),
+                new ShowDelta(18, true, List.of(), List.of()),
+                new ServerStats(60_000, List.of(new OperationStats("BOOK_TICKET", 10, 1, 5000, 3000, 400, 700, 900, 950, 1200)),
+                        new LinkedHashMap<>(Map.of("clients.connected", 3L))),
+                List.of(new MovieItem(7, "Arrival", 4.5, "First contact")),
+                List.of(show, undated),
+                List.of(new ReservationItem(9, "Arrival 2026-10-17", 2, "2026-10-01 10:00")),
+                List.of(reportRow),
+                List.of(new SeatUpdate(42, 118), new SeatUpdate(43, 0)),
+                List.of(),
+                new Page<>(List.of(show), "cursor-42", 17),
+                new Page<>(List.of(), null, 0),
+                new ResultChunk<>(List.of(reportRow), false, null),
+                new ResultChunk<>(List.of(), true, "Error: Report stopped early."));
+
+        for (Object response : responses) {
+            byte[] body = WireProtocol.encodeResponse(response);
+            assertEquals(fields(response), fields(WireProtocol.decodeResponse(body)), "v1 response");
+
+            byte[] frame = WireProtocol.withCorrelationId(CORRELATION_ID, body);
+            assertEquals(CORRELATION_ID, WireProtocol.correlationIdOf(frame), "v2 correlation ID");
+            assertEquals(fields(response), fields(WireProtocol.decodeResponse(frame, WireProtocol.CORRELATION_ID_BYTES)),
+                    "v2 response");
+        }
+        assertEquals(null, WireProtocol.decodeResponse(WireProtocol.encodeResponse(null)), "null response");
+    }
+
+
+    static void malformedInputIsRejected() throws IOException {
+        expectProtocolException(() -> WireProtocol.opcodeOf("NO_SUCH_REQUEST"), "unknown request type");
+        expectProtocolException(() -> WireProtocol.decodeRequest(new byte[] { 99 }), "unknown opcode");
+        expectProtocolException(() -> WireProtocol.decodeResponse(new byte[] { 99 }), "unknown response kind");
+        expectProtocolException(() -> WireProtocol.encodeResponse(new Object()), "unsupported response type");
+        expectProtocolException(() -> WireProtocol.readFrame(new ByteArrayInputStream(new byte[] { 0x7F, 0, 0, 0 })),
+                "oversized frame");
+    }
+
+
+    // Decodes a request body after prefixing it with a correlation ID, as a version 2 connection sends it.
+    private static WireProtocol.Request decodeV2Request(byte[] body) throws IOException {
+        byte[] frame = WireProtocol.withCorrelationId(CORRELATION_ID, body);
+        assertEquals(CORRELATION_ID, WireProtocol.correlationIdOf(frame), "v2 correlation ID");
+        return WireProtocol.decodeRequest(frame, WireProtocol.CORRELATION_ID_BYTES);
+    }
+
+
+    private static BookingRequest decodeBooking(byte[] body) throws IOException {
+        return (BookingRequest) WireProtocol.decodeRequest(body).getPayload();
+    }
+
+
+    private static BookingRequest decodeV2Booking(byte[] body) throws IOException {
+        return (BookingRequest) decodeV2Request(body).getPayload();
+    }
+
+
+    // Builds a BOOK_TICKET body the way older clients did: the fixed fields plus only the given trailing strings.
+    private static byte[] legacyBooking(int showID, int numTickets, String... strings) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(WireProtocol.BOOK_TICKET);
+        out.writeInt(showID);
+        out.writeInt(numTickets);
+        for (String value : strings) {
+            WireProtocol.writeString(out, value);
+        }
+        return bytes.toByteArray();
+    }
+
+
+    // Renders a transfer object (or list or map of them) through the getters of its fields, so two instances compare field by field.
+    private static String fields(Object value) throws IOException {
+        if (value instanceof List<?> list) {
+            StringBuilder rendered = new StringBuilder("[");
+            for (Object item : list) {
+                rendered.append(fields(item)).append(", ");
+            }
+            return rendered.append(']').toString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.entrySet().stream().map(entry -> entry.getKey() + "=" + entry.getValue())
+                    .collect(Collectors.joining(", ", "{", "}"));
+        }
+        if (value == null || !value.getClass().getPackageName().equals("mtrs")) {
+            return String.valueOf(value);
+        }
+        Method[] getters = Arrays.stream(value.getClass().getMethods())
+                .filter(method -> method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+                        && hasField(value.getClass(), method.getName()))
+                .sorted(Comparator.comparing(Method::getName))
+                .toArray(Method[]::new);
+        StringBuilder rendered = new StringBuilder(value.getClass().getSimpleName()).append('{');
+        for (Method getter : getters) {
+            try {
+                rendered.append(getter.getName()).append('=').append(fields(getter.invoke(value))).append(", ");
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Cannot read " + getter.getName(), e);
+            }
+        }
+        return rendered.append('}').toString();
+    }
+
+
+    // True if the getter reads a field of the class (getShowID reads showID), rather than deriving a value like getDetails.
+    private static boolean hasField(Class<?> type, String getterName) {
+        String property = getterName.startsWith("get") ? getterName.substring(3)
+                : getterName.startsWith("is") ? getterName.substring(2) : "";
+        if (property.isEmpty()) {
+            return false;
+        }
+        String fieldName = Character.toLowerCase(property.charAt(0)) + property.substring(1);
+        return Arrays.stream(type.getDeclaredFields()).anyMatch(field -> field.getName().equals(fieldName));
+    }
+
+
+    private interface ProtocolCall {
+        void call() throws IOException;
+    }
+
+
+    private static void expectProtocolException(ProtocolCall call, String what) throws IOException {
+        try {
+            call.call();
+        } catch (ProtocolException expected) {
+            return;
+        }
+        throw new AssertionError(what + ": expected a ProtocolException");
+    }
+}